@@ -0,0 +1,357 @@
+/**
+ * Benchmarks for the hot paths of the solver: entering, solving, validating, comparing, copying and printing a Sudoku.
+ * Each benchmark is warmed up before being measured, so JIT compilation is not counted, and reports the mean time per
+ * operation over several measured iterations along with the spread between them.
+ *
+ * Puzzles are loaded from the SudokuExamples folders (4x4, 9x9, 16x16, 25x25 for scales 2 to 5), and grouped into
+ * parameter sets by the start of their file name: easy_, hard_ and unsolvable_.
+ *
+ * Arguments:
+ * --examples:		The folder holding the example folders. Defaults to SudokuExamples
+ * --filter:		Only runs benchmarks whose name contains this text. (ie: "solveFull", "scale=4", "set=hard")
+ * --warmup:		Number of warmup iterations. Defaults to 3
+ * --iterations:	Number of measured iterations. Defaults to 5
+ * --time:			Milliseconds spent on each iteration. Defaults to 500
+ *
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Locale;
+
+public class SudokuBenchmark {
+
+	private static final String[] SCALE_FOLDERS = {"4x4", "9x9", "16x16", "25x25"};
+	private static final String[] PUZZLE_SETS = {"easy", "hard", "unsolvable"};
+
+	private static String examplesFolder = "SudokuExamples";
+	private static String filter = "";
+	private static int warmupIterations = 3;
+	private static int measuredIterations = 5;
+	private static long iterationNanos = 500 * 1000000L;
+
+	//results are folded into this, so the JIT can't drop the work being measured
+	private static volatile long sink;
+
+	/**
+	 * An operation to measure. Returns something derived from the work done, for the sink.
+	 */
+	private interface Operation {
+		long run(int invocation) throws SudokuException;
+	}
+
+	/**
+	 * The puzzles of one scale and set, already read from their files.
+	 */
+	private static class PuzzleSet {
+		String name;
+		int scale;
+		int sideLength;
+		SudokuIODecoder decoder;
+		ArrayList<String> puzzles = new ArrayList<String>();
+	}
+
+	public static void main(String[] args){
+		readArgs(args);
+
+		ArrayList<PuzzleSet> sets = loadPuzzleSets();
+		if(sets.isEmpty()) {
+			System.out.println("No example puzzles found in " + examplesFolder);
+			return;
+		}
+
+		System.out.println(String.format(Locale.ROOT, "%-60s %14s %12s %10s", "Benchmark", "ns/op", "+/- ns/op", "ops"));
+		for(PuzzleSet set : sets) {
+			try {
+				benchmarkSet(set);
+			}catch(SudokuException e) {
+				System.out.println(set.name + " could not be benchmarked: " + e.getMessage());
+			}
+		}
+	}
+
+	private static void readArgs(String[] args) {
+		for(int i=0; i < args.length; i++) {
+			try {
+				switch(args[i].toLowerCase()) {
+					case "--examples":
+						examplesFolder = args[++i];
+						break;
+					case "--filter":
+						filter = args[++i];
+						break;
+					case "--warmup":
+						warmupIterations = Integer.parseInt(args[++i]);
+						break;
+					case "--iterations":
+						measuredIterations = Integer.parseInt(args[++i]);
+						break;
+					case "--time":
+						iterationNanos = Long.parseLong(args[++i]) * 1000000L;
+						break;
+					default:
+						System.out.println(args[i] + " is not a known argument.");
+				}
+			}catch(IndexOutOfBoundsException e) {
+				System.out.println(args[i - 1] + " expects a value afterwards.");
+			}catch(NumberFormatException e) {
+				System.out.println(args[i - 1] + " could not parse \"" + args[i] + "\" as an integer.");
+			}
+		}
+	}
+
+	private static ArrayList<PuzzleSet> loadPuzzleSets() {
+		ArrayList<PuzzleSet> sets = new ArrayList<PuzzleSet>();
+		for(int scale=2; scale < 2 + SCALE_FOLDERS.length; scale++) {
+			File folder = new File(examplesFolder, SCALE_FOLDERS[scale - 2]);
+			File[] files = folder.listFiles();
+			if(files == null) {
+				continue;
+			}
+			for(String setName : PUZZLE_SETS) {
+				PuzzleSet set = new PuzzleSet();
+				set.name = "scale=" + scale + ",set=" + setName;
+				set.scale = scale;
+				set.sideLength = scale * scale;
+				set.decoder = decoderFor(set.sideLength);
+				for(File file : files) {
+					if(file.getName().startsWith(setName + "_") && !file.getName().contains("solution")) {
+						set.puzzles.add(readFile(file));
+					}
+				}
+				if(!set.puzzles.isEmpty()) {
+					sets.add(set);
+				}
+			}
+		}
+		return sets;
+	}
+
+	private static SudokuIODecoder decoderFor(int sideLength) {
+		switch(sideLength) {
+			case 16:
+				return new SudokuIODecoder(SudokuIODecoder.TYPICAL16X16_SPACEBLANKS_STARTATONE);
+			case 25:
+				return new SudokuIODecoder(SudokuIODecoder.TYPICAL25X25_SPACEBLANKS_STARTATONE);
+			default:
+				return new SudokuIODecoder(SudokuIODecoder.TYPICAL9X9_SPACEBLANKS);
+		}
+	}
+
+	private static String readFile(File file) {
+		StringBuilder content = new StringBuilder();
+		try {
+			BufferedReader reader = new BufferedReader(new FileReader(file));
+			String line;
+			while((line = reader.readLine()) != null) {
+				content.append(line);
+			}
+			reader.close();
+		}catch(IOException e) {
+			System.out.println(e.getMessage());
+		}
+		return content.toString();
+	}
+
+	private static void benchmarkSet(final PuzzleSet set) throws SudokuException{
+		final int count = set.puzzles.size();
+		final String[] puzzles = set.puzzles.toArray(new String[count]);
+		final Sudoku[] entered = new Sudoku[count];
+		final Sudoku[] solved = new Sudoku[count];
+		final SudokuBoard[] solvedBoards = new SudokuBoard[count];
+		final SudokuSolver solver = new SudokuSolver();
+
+		for(int i=0; i<count; i++) {
+			solver.enterSudoku(puzzles[i], set.sideLength, set.decoder);
+			entered[i] = solver.getSudokuAttempt();
+			try {
+				solver.solveFull();
+			}catch(SudokuException e) {
+				//invalid puzzles keep whatever was found
+			}
+			solved[i] = solver.getSudokuAttempt();
+			solvedBoards[i] = new SudokuBoard(solved[i]);
+		}
+
+		measure("enterSudoku", set, new Operation() {
+			public long run(int invocation) throws SudokuException{
+				solver.enterSudoku(puzzles[invocation % count], set.sideLength, set.decoder);
+				return solver.getCurrentValue();
+			}
+		}, false);
+		measure("solveFull,engine=deductive", set, solveOperation(set, solver, puzzles, SudokuSolver.ENGINE_DEDUCTIVE, false, null), true);
+		measure("solveFull,engine=deductive,metrics=on", set, solveOperation(set, solver, puzzles, SudokuSolver.ENGINE_DEDUCTIVE, false, new SudokuMetrics()), true);
+		measure("solveFull,engine=deductive+search", set, solveOperation(set, solver, puzzles, SudokuSolver.ENGINE_DEDUCTIVE, true, null), true);
+		measure("solveFull,engine=dlx", set, solveOperation(set, solver, puzzles, SudokuSolver.ENGINE_DANCING_LINKS, false, null), true);
+		//the same searches spread over every processor, which only pays off on puzzles whose search is long
+		final int processors = Runtime.getRuntime().availableProcessors();
+		final SudokuParallelSearch parallelSearch = new SudokuParallelSearch(set.sideLength, processors);
+		final SudokuSolver parallelSolver = new SudokuSolver();
+		parallelSolver.setParallelSearch(parallelSearch);
+		measure("solveFull,engine=deductive+search,parallel=" + processors, set,
+				solveOperation(set, parallelSolver, puzzles, SudokuSolver.ENGINE_DEDUCTIVE, true, null), true);
+		measure("solveFull,engine=dlx,parallel=" + processors, set,
+				solveOperation(set, parallelSolver, puzzles, SudokuSolver.ENGINE_DANCING_LINKS, false, null), true);
+		parallelSearch.shutdown();
+		//each invocation enters, solves and writes out one puzzle of the packed set, so it compares to enterSudoku + solveFull
+		final int numberOfSquares = set.sideLength * set.sideLength;
+		final byte[] packed = new byte[count * numberOfSquares];
+		final byte[] packedSolutions = new byte[count * numberOfSquares];
+		final byte[] statuses = new byte[count];
+		final int[] decoded = new int[numberOfSquares];
+		for(int i=0; i<count; i++) {
+			set.decoder.decode(puzzles[i], decoded, numberOfSquares);
+			for(int square=0; square<numberOfSquares; square++) {
+				packed[i * numberOfSquares + square] = (byte)decoded[square];
+			}
+		}
+		final SudokuPackedBatch batch = new SudokuPackedBatch(set.sideLength);
+		measure("solveBatch,input=packed", set, new Operation() {
+			public long run(int invocation) {
+				int puzzle = invocation % count;
+				return batch.solve(packed, puzzle * numberOfSquares, packedSolutions, puzzle * numberOfSquares, statuses, puzzle, 1);
+			}
+		}, false);
+		//after the first pass every puzzle is a hit, so this is the cost of canonicalizing and looking one up
+		final SudokuPackedBatch cachedBatch = new SudokuPackedBatch(set.sideLength);
+		cachedBatch.setCache(new SudokuSolutionCache(set.sideLength, count));
+		measure("solveBatch,input=packed,cache=on", set, new Operation() {
+			public long run(int invocation) {
+				int puzzle = invocation % count;
+				return cachedBatch.solve(packed, puzzle * numberOfSquares, packedSolutions, puzzle * numberOfSquares, statuses, puzzle, 1);
+			}
+		}, false);
+		measure("validate", set, new Operation() {
+			public long run(int invocation) {
+				return solved[invocation % count].validate();
+			}
+		}, false);
+		measure("compare", set, new Operation() {
+			public long run(int invocation) {
+				return solved[invocation % count].compare(entered[invocation % count]);
+			}
+		}, false);
+		measure("copy", set, new Operation() {
+			public long run(int invocation) throws SudokuException{
+				return new Sudoku(solved[invocation % count]).SUDOKU_NUMBER_OF_SQUARES;
+			}
+		}, false);
+		measure("validate,representation=board", set, new Operation() {
+			public long run(int invocation) {
+				return solvedBoards[invocation % count].validate();
+			}
+		}, false);
+		measure("copy,representation=board", set, new Operation() {
+			public long run(int invocation) {
+				return new SudokuBoard(solvedBoards[invocation % count]).getEmptySquareCount();
+			}
+		}, false);
+		measure("print", set, new Operation() {
+			public long run(int invocation) {
+				return solved[invocation % count].print(set.decoder).length();
+			}
+		}, false);
+		final StringBuilder printed = new StringBuilder();
+		measure("print,output=appendable", set, new Operation() {
+			public long run(int invocation) throws SudokuException{
+				printed.setLength(0);
+				try {
+					solved[invocation % count].print(set.decoder, printed);
+				}catch(IOException e) {
+					throw new SudokuException(e.getMessage());
+				}
+				return printed.length();
+			}
+		}, false);
+		measure("print,output=compact", set, new Operation() {
+			public long run(int invocation) throws SudokuException{
+				printed.setLength(0);
+				try {
+					solved[invocation % count].printCompact(set.decoder, printed);
+				}catch(IOException e) {
+					throw new SudokuException(e.getMessage());
+				}
+				return printed.length();
+			}
+		}, false);
+	}
+
+	/**
+	 * Enters the puzzle before each invocation, so only solveFull() is measured.
+	 * @param metrics Where the solver counts what it does, or null to measure it without counting.
+	 */
+	private static Operation solveOperation(final PuzzleSet set, final SudokuSolver solver, final String[] puzzles, final int engine, final boolean search,
+			final SudokuMetrics metrics) {
+		return new Operation() {
+			public long run(int invocation) throws SudokuException{
+				solver.setEngine(engine);
+				solver.setSearchEnabled(search);
+				solver.setMetrics(metrics);
+				solver.enterSudoku(puzzles[invocation % puzzles.length], set.sideLength, set.decoder);
+				long start = System.nanoTime();
+				try {
+					solver.solveFull();
+				}catch(SudokuException e) {
+					//still measured; invalid puzzles are part of the set
+				}
+				return System.nanoTime() - start;
+			}
+		};
+	}
+
+	/**
+	 * Runs the warmup and measured iterations of one benchmark, then prints its result.
+	 * @param timedByOperation True if the operation returns its own elapsed nanos, to leave its setup out of the measurement.
+	 */
+	private static void measure(String name, PuzzleSet set, Operation operation, boolean timedByOperation) throws SudokuException{
+		String fullName = name + "," + set.name;
+		if(!fullName.contains(filter)) {
+			return;
+		}
+
+		double[] nanosPerOp = new double[measuredIterations];
+		long totalOps = 0;
+		for(int iteration = -warmupIterations; iteration < measuredIterations; iteration++) {
+			long ops = 0;
+			long measuredNanos = 0;
+			long result = 0;
+			long start = System.nanoTime();
+			long elapsed = 0;
+			while(elapsed < iterationNanos) {
+				long value = operation.run((int)ops);
+				if(timedByOperation) {
+					measuredNanos += value;
+				}
+				result += value;
+				ops++;
+				elapsed = System.nanoTime() - start;
+			}
+			sink += result;
+			if(!timedByOperation) {
+				measuredNanos = elapsed;
+			}
+			if(iteration >= 0) {
+				nanosPerOp[iteration] = (double)measuredNanos / ops;
+				totalOps += ops;
+			}
+		}
+
+		double mean = 0;
+		for(double value : nanosPerOp) {
+			mean += value;
+		}
+		mean /= measuredIterations;
+		double variance = 0;
+		for(double value : nanosPerOp) {
+			variance += (value - mean) * (value - mean);
+		}
+		double deviation = measuredIterations > 1 ? Math.sqrt(variance / (measuredIterations - 1)) : 0;
+
+		System.out.println(String.format(Locale.ROOT, "%-60s %14.1f %12.1f %10d", fullName, mean, deviation, totalOps));
+	}
+}
@@ -9,6 +9,8 @@
 
 package SudokuSolver;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -23,6 +25,9 @@ public class Sudoku {
 	public final int SUDOKU_BLOCK_LENGTH; //This one doesn't really get used, but whatever. It's there.
 	public final int SUDOKU_SIDE_LENGTH;
 	public final int SUDOKU_NUMBER_OF_SQUARES;
+	
+	//lookup tables shared by every Sudoku of this scale
+	private final SudokuGeometry geometry;
 
 	//The squares that populate blocks/rows/columns
 	private SudokuSquare[] squares;
@@ -39,6 +44,37 @@ public class Sudoku {
 	 * |6|7|8|*/
 	private SudokuBlock[] blocks;
 	
+	//every row, column and block, numbered as the units of SudokuGeometry
+	private SudokuRow[] units;
+	
+	//squares set since the change log was last cleared, in the order they were set.
+	//A square can only be set once between loads (undoing clears the log), so this never holds more than SUDOKU_NUMBER_OF_SQUARES entries.
+	private int[] changedSquares;
+	private int changeCount;
+	
+	//values each square has been ruled out of by a SudokuTechnique, on top of what its row, column and block hold.
+	//Dropped whenever values are loaded, as they only hold for the values they were worked out from.
+	private long[][] exclusions;
+	//exclusions made since the change log was last cleared, as square * SUDOKU_SIDE_LENGTH + (value - 1).
+	//A value can only be excluded once from a square between loads, so this never holds more than SUDOKU_NUMBER_OF_SQUARES * SUDOKU_SIDE_LENGTH entries.
+	private int[] eliminations;
+	private int eliminationCount;
+	
+	//undo trail: every change to the squares, exclusions, completions and XORs since values were last loaded, oldest
+	//first, as two ints each: (subject << TRAIL_KIND_BITS | kind) then a detail. (See mark() and undoTo())
+	static final int TRAIL_SET = 0; //square position; the units the value was new to (See SudokuSquare.unset())
+	static final int TRAIL_EXCLUDE = 1; //square position; value
+	static final int TRAIL_COMPLETED = 2; //unit; nothing
+	static final int TRAIL_XOR_ADDED = 3; //unit; value
+	static final int TRAIL_XOR_DROPPED = 4; //unit; value
+	private static final int TRAIL_KIND_BITS = 3;
+	private int[] trail;
+	private int trailSize;
+	
+	//counts of what happens to this Sudoku, null unless a SudokuSolver asked for them (See SudokuMetrics)
+	//Read by the squares, rows, columns and blocks as they're set, completed, or gain and lose XORs.
+	SudokuMetrics metrics;
+	
 	/**
 	 * Populates a Sudoku of sudokuSideLength by sudokuSideLength.
 	 * @param numbers Takes an array of int of length sudokuSideLength^2. (ie: int[89] (9^2) digits. All must be from 1 to 9, or 0 for empty squares.)
@@ -60,6 +96,7 @@ public class Sudoku {
 		}else if(SUDOKU_SIDE_LENGTH != SUDOKU_BLOCK_LENGTH*SUDOKU_BLOCK_LENGTH) {
 			throw new SudokuException("Sudoku is not square, and does not apply to this implementation. (side length = " + SUDOKU_SIDE_LENGTH + ")");
 		}
+		geometry = SudokuGeometry.forSideLength(SUDOKU_SIDE_LENGTH);
 		
 		populate(sudokuValues);
 		
@@ -67,6 +104,7 @@ public class Sudoku {
 	
 	/**
 	 * Copies a Sudoku without any condition that might be stored.
+	 * This builds every square, row, column and block again; saveState() and restoreState() keep the conditions, without building anything.
 	 * @param otherSudoku Sudoku to copy.
 	 */
 	public Sudoku(Sudoku otherSudoku) throws SudokuException{
@@ -78,6 +116,7 @@ public class Sudoku {
 		if(SUDOKU_NUMBER_OF_SQUARES != SUDOKU_SIDE_LENGTH*SUDOKU_SIDE_LENGTH || SUDOKU_SIDE_LENGTH != SUDOKU_BLOCK_LENGTH*SUDOKU_BLOCK_LENGTH) {
 			throw new SudokuException("Sudoku being copied is not square, and does not apply to this implementation. (side length = " + SUDOKU_SIDE_LENGTH + ")");
 		}
+		geometry = otherSudoku.geometry;
 		
 		int[] sudokuValues = new int[SUDOKU_NUMBER_OF_SQUARES];
 		for(int i=0; i<SUDOKU_NUMBER_OF_SQUARES; i++){
@@ -88,22 +127,370 @@ public class Sudoku {
 	}
 	
 	private void populate(int[] sudokuValues){
+		changedSquares = new int[SUDOKU_NUMBER_OF_SQUARES];
+		changeCount = 0;
+		exclusions = new long[SUDOKU_NUMBER_OF_SQUARES][];
+		for(int i=0; i<SUDOKU_NUMBER_OF_SQUARES; i++){
+			exclusions[i] = SudokuBits.newMask(SUDOKU_SIDE_LENGTH);
+		}
+		eliminations = new int[SUDOKU_NUMBER_OF_SQUARES * SUDOKU_SIDE_LENGTH];
+		eliminationCount = 0;
+		trail = new int[4 * SUDOKU_NUMBER_OF_SQUARES];
+		trailSize = 0;
 		populateSquares(sudokuValues);
 		populateRows();
 		populateColumns();
 		populateBlocks();
+		units = new SudokuRow[geometry.NUMBER_OF_UNITS];
+		for(int i=0; i<SUDOKU_SIDE_LENGTH; i++){
+			units[geometry.rowUnit(i)] = rows[i];
+			units[geometry.columnUnit(i)] = columns[i];
+			units[geometry.blockUnit(i)] = blocks[i];
+		}
+		for(int unit=0; unit < units.length; unit++){
+			units[unit].setUnit(this, unit);
+		}
+	}
+	
+	/**
+	 * @return The lookup tables for this Sudoku's scale.
+	 */
+	public SudokuGeometry getGeometry(){
+		return geometry;
 	}
 	
 	public int valueAt(int position){
 		return squares[position].getValue();
 	}
 	
+	/**
+	 * @return A copy of the values of each square, in the same order given to the constructor.
+	 */
+	public int[] getValues(){
+		return getValues(new int[SUDOKU_NUMBER_OF_SQUARES]);
+	}
+	
+	/**
+	 * Copies the values of each square into the given array, in the same order given to the constructor.
+	 * @param sudokuValues An array of at least SUDOKU_NUMBER_OF_SQUARES ints to fill.
+	 * @return The same array, filled.
+	 */
+	public int[] getValues(int[] sudokuValues){
+		for(int i=0; i<SUDOKU_NUMBER_OF_SQUARES; i++){
+			sudokuValues[i] = squares[i].getValue();
+		}
+		return sudokuValues;
+	}
+	
+	/**
+	 * Replaces the value of every square, dropping any conditions and exclusions that were stored, and the undo trail.
+	 * Unlike the copy constructor, the existing squares, rows, columns and blocks are reused.
+	 * @param sudokuValues The values to load, in the same order given to the constructor.
+	 */
+	public void loadValues(int[] sudokuValues){
+		for(int i=0; i<SUDOKU_NUMBER_OF_SQUARES; i++){
+			squares[i].reset(sudokuValues[i]);
+			SudokuBits.clear(exclusions[i]);
+		}
+		for(int i=0; i<SUDOKU_SIDE_LENGTH; i++){
+			rows[i].reset();
+			columns[i].reset();
+			blocks[i].reset();
+		}
+		changeCount = 0;
+		eliminationCount = 0;
+		trailSize = 0;
+	}
+	
+	/**
+	 * @return A new snapshot of this Sudoku. (See saveState(SudokuSnapshot))
+	 */
+	public SudokuSnapshot saveState(){
+		SudokuSnapshot snapshot = new SudokuSnapshot(SUDOKU_SIDE_LENGTH);
+		try {
+			saveState(snapshot);
+		} catch (SudokuException e) {
+			//can't happen, the snapshot was made for this size
+			if(DEBUG) {
+				e.printStackTrace();
+			}
+		}
+		return snapshot;
+	}
+	
+	/**
+	 * Copies the values, exclusions, change log, XOR conditions and completion flags of this Sudoku into the snapshot.
+	 * Unlike the copy constructor, conditions are kept, and nothing is built.
+	 * Any solver state saved in it before is dropped, as it was for another board. (See SudokuSolver.saveState())
+	 * @param snapshot A snapshot of the same size, whose state is overwritten.
+	 * @throws SudokuException If the snapshot is for another size.
+	 */
+	public void saveState(SudokuSnapshot snapshot) throws SudokuException{
+		checkSnapshot(snapshot);
+		snapshot.hasSolverState = false;
+		getValues(snapshot.values);
+		for(int i=0; i<SUDOKU_NUMBER_OF_SQUARES; i++){
+			System.arraycopy(exclusions[i], 0, snapshot.exclusions, i * snapshot.WORDS, snapshot.WORDS);
+		}
+		snapshot.changedSquares = SudokuSnapshot.fit(snapshot.changedSquares, changeCount);
+		System.arraycopy(changedSquares, 0, snapshot.changedSquares, 0, changeCount);
+		snapshot.changeCount = changeCount;
+		snapshot.eliminations = SudokuSnapshot.fit(snapshot.eliminations, eliminationCount);
+		System.arraycopy(eliminations, 0, snapshot.eliminations, 0, eliminationCount);
+		snapshot.eliminationCount = eliminationCount;
+		for(int unit=0; unit < units.length; unit++){
+			snapshot.completed[unit] = units[unit].isCompleted();
+			snapshot.xorCounts[unit] = units[unit].saveXORs(snapshot.xors, unit * snapshot.XOR_STRIDE);
+		}
+	}
+	
+	/**
+	 * Puts this Sudoku back in the state saved in the snapshot, reusing its squares, rows, columns, blocks and conditions.
+	 * The undo trail is dropped, as when values are loaded.
+	 * @param snapshot A snapshot saved from a Sudoku of the same size.
+	 * @throws SudokuException If the snapshot is for another size.
+	 */
+	public void restoreState(SudokuSnapshot snapshot) throws SudokuException{
+		SudokuMetrics counting = metrics;
+		
+		checkSnapshot(snapshot);
+		//the XORs put back weren't made by solving
+		metrics = null;
+		for(int i=0; i<SUDOKU_NUMBER_OF_SQUARES; i++){
+			squares[i].reset(snapshot.values[i]);
+			System.arraycopy(snapshot.exclusions, i * snapshot.WORDS, exclusions[i], 0, snapshot.WORDS);
+		}
+		//every square is reloaded before any condition is put back on them
+		for(int unit=0; unit < units.length; unit++){
+			units[unit].restore(snapshot.completed[unit], snapshot.xors, unit * snapshot.XOR_STRIDE, snapshot.xorCounts[unit], squares);
+		}
+		System.arraycopy(snapshot.changedSquares, 0, changedSquares, 0, snapshot.changeCount);
+		changeCount = snapshot.changeCount;
+		System.arraycopy(snapshot.eliminations, 0, eliminations, 0, snapshot.eliminationCount);
+		eliminationCount = snapshot.eliminationCount;
+		trailSize = 0;
+		metrics = counting;
+	}
+	
+	/**
+	 * Marks the current state, so undoTo() can come back to it. Nothing is copied: the mark is where the undo trail is up to.
+	 * Marks are only good until values are loaded or a snapshot is restored, which drops the trail.
+	 * @return The mark.
+	 */
+	public int mark(){
+		return trailSize;
+	}
+	
+	/**
+	 * Undoes every change since the mark, from the last: squares set, values excluded, rows/columns/blocks completed,
+	 * and XORs added or dropped. The cost is in the number of changes undone, not the size of the Sudoku.
+	 * The change log is cleared, as the squares it lists might not be set anymore.
+	 * @param mark A mark from mark(), taken since values were last loaded.
+	 * @throws SudokuException If the mark isn't on the trail.
+	 */
+	public void undoTo(int mark) throws SudokuException{
+		int subject;
+		int detail;
+		
+		if(mark < 0 || mark > trailSize || mark % 2 != 0){
+			throw new SudokuException("Mark (" + mark + ") isn't on the undo trail. (" + trailSize / 2 + " changes long)");
+		}
+		if(metrics != null){
+			metrics.changesUndone += (trailSize - mark) / 2;
+		}
+		while(trailSize > mark){
+			detail = trail[--trailSize];
+			subject = trail[--trailSize] >> TRAIL_KIND_BITS;
+			switch(trail[trailSize] & ((1 << TRAIL_KIND_BITS) - 1)){
+				case TRAIL_SET:
+					squares[subject].unset(detail);
+					break;
+				case TRAIL_EXCLUDE:
+					SudokuBits.remove(exclusions[subject], detail);
+					break;
+				case TRAIL_COMPLETED:
+					units[subject].undoCompleted();
+					break;
+				case TRAIL_XOR_ADDED:
+					units[subject].undoAddXOR(detail);
+					break;
+				case TRAIL_XOR_DROPPED:
+					units[subject].undoDropXOR(detail);
+					break;
+			}
+		}
+		clearChanges();
+	}
+	
+	/**
+	 * @return The number of changes on the undo trail. (See mark())
+	 */
+	public int getTrailLength(){
+		return trailSize / 2;
+	}
+	
+	private void trail(int kind, int subject, int detail){
+		if(trailSize + 2 > trail.length){
+			trail = Arrays.copyOf(trail, trail.length * 2);
+		}
+		trail[trailSize++] = subject << TRAIL_KIND_BITS | kind;
+		trail[trailSize++] = detail;
+	}
+	
+	private void checkSnapshot(SudokuSnapshot snapshot) throws SudokuException{
+		if(snapshot.SUDOKU_SIDE_LENGTH != SUDOKU_SIDE_LENGTH){
+			throw new SudokuException("Snapshot is for a " + snapshot.SUDOKU_SIDE_LENGTH + "x" + snapshot.SUDOKU_SIDE_LENGTH
+					+ " Sudoku, not a " + SUDOKU_SIDE_LENGTH + "x" + SUDOKU_SIDE_LENGTH + " one.");
+		}
+	}
+	
+	/**
+	 * Called by a square of this Sudoku when it's set.
+	 * @param newUnits The units the value was new to. (See SudokuSquare.unset())
+	 */
+	void logChange(int position, int newUnits){
+		changedSquares[changeCount++] = position;
+		trail(TRAIL_SET, position, newUnits);
+		if(metrics != null){
+			metrics.squaresSet++;
+		}
+	}
+	
+	/**
+	 * Called by a row, column or block of this Sudoku when it's completed, or an XOR is added to or dropped from it.
+	 */
+	void logUnitChange(int kind, int unit, int value){
+		trail(kind, unit, value);
+		if(metrics != null){
+			switch(kind){
+				case TRAIL_COMPLETED:
+					metrics.unitsCompleted++;
+					break;
+				case TRAIL_XOR_ADDED:
+					metrics.xorsCreated++;
+					break;
+				case TRAIL_XOR_DROPPED:
+					metrics.xorsSatisfied++;
+					break;
+			}
+		}
+	}
+	
+	/**
+	 * Starts or stops counting what happens to this Sudoku. (See SudokuMetrics)
+	 * @param metrics Where to count, or null to stop counting.
+	 */
+	public void setMetrics(SudokuMetrics metrics){
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * @return Where this Sudoku counts what happens to it, or null if it doesn't.
+	 */
+	public SudokuMetrics getMetrics(){
+		return metrics;
+	}
+	
+	/**
+	 * @return The number of squares set since the change log was last cleared.
+	 */
+	public int getChangeCount(){
+		return changeCount;
+	}
+	
+	/**
+	 * @param index Which change, from 0 (the oldest) to getChangeCount()-1.
+	 * @return The position of the square set by that change.
+	 */
+	public int getChangedSquare(int index){
+		return changedSquares[index];
+	}
+	
+	/**
+	 * @return The number of values excluded from squares since the change log was last cleared.
+	 */
+	public int getEliminationCount(){
+		return eliminationCount;
+	}
+	
+	/**
+	 * @param index Which exclusion, from 0 (the oldest) to getEliminationCount()-1.
+	 * @return The position of the square the value was excluded from.
+	 */
+	public int getEliminatedSquare(int index){
+		return eliminations[index] / SUDOKU_SIDE_LENGTH;
+	}
+	
+	/**
+	 * @param index Which exclusion, from 0 (the oldest) to getEliminationCount()-1.
+	 * @return The value that was excluded.
+	 */
+	public int getEliminatedValue(int index){
+		return eliminations[index] % SUDOKU_SIDE_LENGTH + 1;
+	}
+	
+	/**
+	 * Forgets the squares set and values excluded so far. Loading values clears the log as well.
+	 */
+	public void clearChanges(){
+		changeCount = 0;
+		eliminationCount = 0;
+	}
+	
+	/**
+	 * Rules a value out of an empty square, for deductions that go beyond the row, column and block of the square.
+	 * The exclusion is logged with the changes, and lasts until values are loaded, or it's undone. (See undoTo())
+	 * @param position The position of the square.
+	 * @param value The value the square can't hold.
+	 * @return True if the square could hold the value until now.
+	 */
+	public boolean exclude(int position, int value){
+		if(!squares[position].canBe(value)){
+			return false;
+		}
+		SudokuBits.add(exclusions[position], value);
+		eliminations[eliminationCount++] = position * SUDOKU_SIDE_LENGTH + value - 1;
+		trail(TRAIL_EXCLUDE, position, value);
+		return true;
+	}
+	
+	/**
+	 * @return True if the value was ruled out of the square by exclude().
+	 */
+	public boolean isExcluded(int position, int value){
+		return SudokuBits.contains(exclusions[position], value);
+	}
+	
+	/**
+	 * Works out every value an empty square can still hold: anything its row, column and block don't hold, and that
+	 * hasn't been excluded.
+	 * @param position The position of the square.
+	 * @param mask Filled with the values. (See SudokuBits) Must hold SudokuBits.wordsFor(SUDOKU_SIDE_LENGTH) longs.
+	 * @return The number of values, 0 if the square isn't empty.
+	 */
+	public int candidates(int position, long[] mask){
+		if(!isSquareEmpty(position)){
+			SudokuBits.clear(mask);
+			return 0;
+		}
+		long[] rowValues = rows[geometry.rowOf(position)].usedValues();
+		long[] columnValues = columns[geometry.columnOf(position)].usedValues();
+		long[] blockValues = blocks[geometry.blockOf(position)].usedValues();
+		long[] excluded = exclusions[position];
+		SudokuBits.fill(mask, SUDOKU_SIDE_LENGTH);
+		for(int i=0; i<mask.length; i++){
+			mask[i] &= ~(rowValues[i] | columnValues[i] | blockValues[i] | excluded[i]);
+		}
+		return SudokuBits.count(mask);
+	}
+	
 	private void populateSquares(int[] numbers){
 		
 		squares = new SudokuSquare[SUDOKU_NUMBER_OF_SQUARES];
 		
 		for(int i=0; i < squares.length; i++){
 			squares[i] = new SudokuSquare(numbers[i]);
+			squares[i].setPosition(this, i);
 		}
 	}
 
@@ -161,7 +548,7 @@ public class Sudoku {
 		for(int block=0; block < SUDOKU_SIDE_LENGTH; block++){
 			tempArray = new SudokuSquare[SUDOKU_SIDE_LENGTH];
 			for(int pos=0; pos < SUDOKU_SIDE_LENGTH; pos++){
-				index = blockSquareIndex(block, pos);
+				index = geometry.blockSquare(block, pos);
 				tempArray[pos] = squares[index];
 			}
 			if(DEBUG) {
@@ -178,7 +565,7 @@ public class Sudoku {
 	}
 	
 	/**
-	 * Checks the square, and relevant row and column to see if the square can hold the given value.
+	 * Checks the square, and relevant row and column to see if the square can hold the given value, and that it wasn't excluded.
 	 * For checking block and conditions, check blockContains.
 	 * @param block The block that contains the square that is being tested
 	 * @param position The square in the block that is being tested
@@ -186,20 +573,33 @@ public class Sudoku {
 	 * @return True if not immediately illegal
 	 */
 	public boolean squareAtPositionCanBe(int squarePosition, int value){
+		if(metrics != null){
+			metrics.candidateChecks++;
+		}
 		
 		boolean squareEmpty = isSquareEmpty(squarePosition);
 		if(squareEmpty){
-			boolean rowCheck = rowContains(squarePosition/SUDOKU_SIDE_LENGTH, value);
-			boolean columnCheck = columnContains(squarePosition%SUDOKU_SIDE_LENGTH, value);
+			boolean rowCheck = rowContains(geometry.rowOf(squarePosition), value);
+			boolean columnCheck = columnContains(geometry.columnOf(squarePosition), value);
 			if(DEBUG) {
 				System.out.println("[pos"+squarePosition+" row"+squarePosition/SUDOKU_SIDE_LENGTH+" col"+squarePosition%SUDOKU_SIDE_LENGTH+"]");
 			}
-			return !(rowCheck || columnCheck);
+			return !(rowCheck || columnCheck || isExcluded(squarePosition, value));
 		}else{
 			return squareEmpty;
 		}
 	}
 	
+	/**
+	 * Checks the square, and its row, column and block to see if the square can hold the given value.
+	 * @param squarePosition The position of the square in the Sudoku
+	 * @param value The value to check for legality in the square
+	 * @return True if not immediately illegal
+	 */
+	public boolean squareAtPositionCanHold(int squarePosition, int value){
+		return squares[squarePosition].canBe(value);
+	}
+	
 	/**
 	 * Checks the block if the given value has been found absolutely. (A square contains that value)
 	 * @param block The block to be tested.
@@ -230,6 +630,26 @@ public class Sudoku {
 		return targetBlock.hasDiscovered(value);
 	}
 	
+	/**
+	 * Checks the row, column or block if the given value has been found absolutely. (A square contains that value)
+	 * @param unit The unit to be tested, numbered as in SudokuGeometry.
+	 * @param value The value to check.
+	 * @return True if found in a square
+	 */
+	public boolean unitContainsAbsolute(int unit, int value){
+		return units[unit].contains(value);
+	}
+	
+	/**
+	 * Checks the row, column or block if the given value has been found absolutely OR conditionally.
+	 * @param unit The unit to be tested, numbered as in SudokuGeometry.
+	 * @param value The value to check.
+	 * @return True if found absolutely OR if found conditionally. (See SudokuSquareXOR)
+	 */
+	public boolean unitContainsConditional(int unit, int value){
+		return units[unit].hasDiscovered(value);
+	}
+	
 	/**
 	 * True if square at position is empty.
 	 * @param position must be within the boundaries of the Sudoku (ie 0-80 in 9x9 sudoku)
@@ -259,13 +679,65 @@ public class Sudoku {
 	}
 	
 	/**
-	 * Returns the count of conditions found in each block.
-	 * @return The count of conditions found in each block.
+	 * Records that the value must be in one of two squares of a row, column or block.
+	 * @param unit The unit holding both squares, numbered as in SudokuGeometry.
+	 * @param position1 The position of the first square within the unit. (See SudokuGeometry.unitSquare())
+	 * @param position2 The position of the second square within the unit.
+	 */
+	public void addUnitXOR(int unit, int value, int position1, int position2) {
+		units[unit].addXOR(value, position1, position2);
+	}
+	
+	/**
+	 * Follows the XOR for the value held by a row, column or block, from one of its squares.
+	 * @param unit The unit to look in, numbered as in SudokuGeometry.
+	 * @param value The value of the XOR.
+	 * @param position The position of one of the squares in the Sudoku.
+	 * @return The position of the other square of the XOR, which must hold the value if this one doesn't. -1 if the unit
+	 *  holds no XOR for the value through this square.
+	 */
+	public int getLinkedSquare(int unit, int value, int position) {
+		SudokuSquareXOR xor = units[unit].getXOR(value);
+		SudokuSquare other;
+		if(xor == null) {
+			return -1;
+		}
+		other = xor.getOtherSquare(squares[position]);
+		if(other == null) {
+			return -1;
+		}
+		return other.getPosition();
+	}
+	
+	/**
+	 * Finds an XOR condition that has not been satisfied yet.
+	 * @param xorDetails Filled with the value of the XOR, followed by the positions of its two squares. Must hold 3 ints.
+	 * @return True if an unsatisfied XOR was found.
+	 */
+	public boolean getOpenXOR(int[] xorDetails){
+		SudokuSquareXOR xor;
+		ArrayList<SudokuSquare> xorSquares;
+		for(SudokuRow unit : units) {
+			xor = unit.getOpenXOR();
+			if(xor != null) {
+				xorSquares = xor.getSquares();
+				xorDetails[0] = xor.getValue();
+				xorDetails[1] = getSquarePosition(xorSquares.get(0));
+				xorDetails[2] = getSquarePosition(xorSquares.get(1));
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns the count of conditions found in each row, column and block.
+	 * @return The count of conditions found in each row, column and block.
 	 */
 	public int getXORConditionCount() {
 		int count = 0;
-		for(int i=0; i<SUDOKU_SIDE_LENGTH; i++) {
-			count += blocks[i].getXORConditionCount();
+		for(SudokuRow unit : units) {
+			count += unit.getXORConditionCount();
 		}
 		return count;
 	}
@@ -279,6 +751,14 @@ public class Sudoku {
 		targetBlock.checkConditions();
 	}
 	
+	/**
+	 * Checks any conditions in the row, column or block for satisfaction.
+	 * @param unit The unit to check, numbered as in SudokuGeometry.
+	 */
+	public void checkUnitConditions(int unit) throws SudokuException{
+		units[unit].checkConditions();
+	}
+	
 	/**
 	 * Checks the column if the given value has been found.
 	 * @param column The column to be tested.
@@ -325,22 +805,11 @@ public class Sudoku {
 	 * @return
 	 */
 	public int blockSquareIndex(int block, int position){
-		int index;
-		int blockOffset;
-		int rowOffset;
-		//get the index of the starting position of a block
 		//Magic -- 9x9 -> {0, 3, 6, 27, 30, 33, 54, 57, 60}
-		//{+0,+3,+6} & {+0,+27,+54}
+		//{+0,+3,+6} & {+0,+27,+54}, then {+0,+9,+18} for the row inside the block
 		//Note: This is inverted by how it's read from file
-		blockOffset = block%SUDOKU_BLOCK_LENGTH*SUDOKU_BLOCK_LENGTH + block/SUDOKU_BLOCK_LENGTH*SUDOKU_BLOCK_LENGTH*SUDOKU_SIDE_LENGTH;
-		
-		//get the index of the row
-		//{+0,+9,+18}
-		rowOffset = position/SUDOKU_BLOCK_LENGTH*SUDOKU_SIDE_LENGTH;
-		
-		//get position in block plus offsets
-		index = position%SUDOKU_BLOCK_LENGTH + rowOffset + blockOffset;
-		return index;
+		//These are worked out once per scale. (See SudokuGeometry)
+		return geometry.blockSquare(block, position);
 	}
 	
 	/**
@@ -388,11 +857,26 @@ public class Sudoku {
 				return "Puzzle holds conflicting values.";
 			case 3:
 				return "Puzzle holds values beyond the scope the of puzzle.";
+			case 4:
+				//only given by SudokuSolver.validate()
+				return "Puzzle is incomplete, as the solver was stopped before it finished.";
 			default:
 				return "Validation code not defined.";
 		}
 	}
 	
+	/**
+	 * Compares the cells of a saved state to this puzzle. (See compare(Sudoku))
+	 * @param snapshot The saved state to compare to this one.
+	 * @return A code specifying describing the result, as specified in compare(Sudoku).
+	 */
+	public int compare(SudokuSnapshot snapshot) {
+		if(snapshot.SUDOKU_NUMBER_OF_SQUARES != SUDOKU_NUMBER_OF_SQUARES) {
+			return 4;
+		}
+		return compareValues(snapshot.values);
+	}
+	
 	/**
 	 * Compares the cells of other puzzle to this one.
 	 * 
@@ -432,19 +916,47 @@ public class Sudoku {
 		
 		if(!dimensionsCompatible) { //The puzzles are of different types and can't be compared.
 			resultCode = 4;
-		}else if(thisExistsInOtherPuzzle && otherPuzzleExistsInThis) { //The puzzles are identical
-			resultCode = 0;
-		}else if(thisExistsInOtherPuzzle) { //The other puzzle is a more complete version of this one.
-			resultCode = 1;
-		}else if(otherPuzzleExistsInThis) { //This puzzle is a more complete version of the other one.
-			resultCode = 2;
-		}else { //The two puzzles do not overlap. They are different.
-			resultCode = 3;
+		}else {
+			resultCode = compareResult(thisExistsInOtherPuzzle, otherPuzzleExistsInThis);
 		}
 		
 		return resultCode;
 	}
 	
+	/**
+	 * Same as compare(Sudoku), against the values of a puzzle of the same size.
+	 */
+	private int compareValues(int[] otherValues) {
+		boolean thisExistsInOtherPuzzle = true;
+		boolean otherPuzzleExistsInThis = true;
+		int thisValue;
+		
+		for(int i=0; i < SUDOKU_NUMBER_OF_SQUARES && (thisExistsInOtherPuzzle || otherPuzzleExistsInThis); i++) {
+			thisValue = valueAt(i);
+			if(thisValue == 0 && otherValues[i] != 0) {
+				otherPuzzleExistsInThis = false;
+			}else if(thisValue != 0 && otherValues[i] == 0) {
+				thisExistsInOtherPuzzle = false;
+			}else if(thisValue != otherValues[i]) {
+				otherPuzzleExistsInThis = false;
+				thisExistsInOtherPuzzle = false;
+			}
+		}
+		return compareResult(thisExistsInOtherPuzzle, otherPuzzleExistsInThis);
+	}
+	
+	private static int compareResult(boolean thisExistsInOtherPuzzle, boolean otherPuzzleExistsInThis) {
+		if(thisExistsInOtherPuzzle && otherPuzzleExistsInThis) { //The puzzles are identical
+			return 0;
+		}else if(thisExistsInOtherPuzzle) { //The other puzzle is a more complete version of this one.
+			return 1;
+		}else if(otherPuzzleExistsInThis) { //This puzzle is a more complete version of the other one.
+			return 2;
+		}
+		//The two puzzles do not overlap. They are different.
+		return 3;
+	}
+	
 	public static String getCompareMessage(int code) {
 		switch(code){
 			case 0:
@@ -467,7 +979,7 @@ public class Sudoku {
 		if(squarePos < 0) { //Square not found
 			return squarePos;
 		}
-		return squarePos % SUDOKU_SIDE_LENGTH;
+		return geometry.columnOf(squarePos);
 	}
 	
 	public int getColumnNumber(SudokuSquare square) {
@@ -475,15 +987,13 @@ public class Sudoku {
 		if(squarePos < 0) { //Square not found
 			return squarePos;
 		}
-		return squarePos / SUDOKU_SIDE_LENGTH;
+		return geometry.rowOf(squarePos);
 	}
 	
 	public int getSquarePosition(SudokuSquare square) {
-		int squarePos = -1;
-		for(int i = 0; i < squares.length && squarePos < 0; i++) {
-			if(square == squares[i]) {
-				squarePos = i;
-			}
+		int squarePos = square.getPosition();
+		if(squarePos < 0 || squarePos >= squares.length || squares[squarePos] != square) { //Square belongs to another Sudoku
+			return -1;
 		}
 		return squarePos;
 	}
@@ -500,9 +1010,9 @@ public class Sudoku {
 		int rowNumber;
 		int colNumber;
 		
-		for(SudokuBlock block : blocks) {
-			xorValues = block.getXORValues();
-			xorSquares = block.getXORSquares();
+		for(SudokuRow unit : units) {
+			xorValues = unit.getXORValues();
+			xorSquares = unit.getXORSquares();
 			
 			if(DEBUG) { //the length of xorSquares must be double the length of xorValues.
 				assert xorValues.length*2 == xorSquares.length;
@@ -529,14 +1039,74 @@ public class Sudoku {
 	 * @param decoderForIO class for managing the formatting and translating the integers to each their own character.
 	 */
 	public String print(SudokuIODecoder decoderForIO){
-		String sudokuString = "";
-		
+		StringBuilder sudokuString = new StringBuilder(SUDOKU_SIDE_LENGTH * (SUDOKU_SIDE_LENGTH * 2 + 2));
+		try {
+			print(decoderForIO, sudokuString);
+		}catch(IOException e) {
+			//StringBuilder doesn't throw
+		}
+		return sudokuString.toString(); //"| | | |\n| | | |\n| | | |";
+	}
+	
+	/**
+	 * Writes the whole Sudoku, one row per line, in the same form as print(SudokuIODecoder).
+	 * Nothing is built along the way, so this is the one to use when printing many puzzles.
+	 * @param decoderForIO class for managing the formatting and translating the integers to each their own character.
+	 * @param out Where the Sudoku is written. (ie: a StringBuilder, or a Writer)
+	 * @throws IOException If out can't be written to.
+	 */
+	public void print(SudokuIODecoder decoderForIO, Appendable out) throws IOException{
 		for(int i=0; i<SUDOKU_SIDE_LENGTH; i++){
-			sudokuString += rows[i].print(decoderForIO);
-			sudokuString += '\n';
+			rows[i].print(decoderForIO, out);
+			out.append('\n');
 		}
-		
-		return sudokuString; //"| | | |\n| | | |\n| | | |";
+	}
+	
+	/**
+	 * Same as print(SudokuIODecoder, Appendable), as ASCII bytes. (ie: for writing to a FileChannel)
+	 * @throws java.nio.BufferOverflowException If the buffer doesn't have room for the Sudoku.
+	 */
+	public void print(SudokuIODecoder decoderForIO, ByteBuffer out){
+		for(int i=0; i<SUDOKU_SIDE_LENGTH; i++){
+			rows[i].print(decoderForIO, out);
+			out.put((byte)'\n');
+		}
+	}
+	
+	/**
+	 * Writes the values of every square on one line, without delimiters or a new line, in the same order the
+	 * constructor takes them. This is the form puzzles take in a csv file.
+	 * @param decoderForIO The decoder translating values to characters. Its delimiter isn't used.
+	 * @param out Where the Sudoku is written.
+	 * @throws IOException If out can't be written to.
+	 */
+	public void printCompact(SudokuIODecoder decoderForIO, Appendable out) throws IOException{
+		for(int i=0; i<SUDOKU_SIDE_LENGTH; i++){
+			rows[i].printCompact(decoderForIO, out);
+		}
+	}
+	
+	/**
+	 * Same as printCompact(SudokuIODecoder, Appendable), as ASCII bytes.
+	 * @throws java.nio.BufferOverflowException If the buffer doesn't have room for the Sudoku.
+	 */
+	public void printCompact(SudokuIODecoder decoderForIO, ByteBuffer out){
+		for(int i=0; i<SUDOKU_SIDE_LENGTH; i++){
+			rows[i].printCompact(decoderForIO, out);
+		}
+	}
+	
+	/**
+	 * @return The values of every square on one line. (See printCompact(SudokuIODecoder, Appendable))
+	 */
+	public String printCompact(SudokuIODecoder decoderForIO){
+		StringBuilder sudokuString = new StringBuilder(SUDOKU_NUMBER_OF_SQUARES);
+		try {
+			printCompact(decoderForIO, sudokuString);
+		}catch(IOException e) {
+			//StringBuilder doesn't throw
+		}
+		return sudokuString.toString();
 	}
 	
 }
@@ -0,0 +1,439 @@
+/**
+ * Solves the puzzles of a csv file on several threads, for --csv-test --threads.
+ * Lines are streamed from the file in chunks and handed to a work-stealing pool. Each worker thread keeps its own
+ * SudokuSolver, and the result counts and timings of each chunk are merged once the chunk is done.
+ * Puzzles are decoded by a SudokuCSVReader straight into the int arrays of each chunk, and chunks are reused once merged.
+ * @author drbob132
+ * @version 1.1
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class SudokuBatchRunner {
+
+	private static final boolean DEBUG = false;
+
+	//lines handed to a worker at once
+	private static final int CHUNK_SIZE = 64;
+	//chunks allowed in flight per thread, to keep the reader from running away from the workers
+	private static final int CHUNKS_PER_THREAD = 4;
+	private static final long nanoToMili = 1000000;
+
+	private final int threads;
+	private final int sudokuSideLength;
+	private final SudokuIODecoder inputDecoder;
+	private final SudokuIODecoder outputDecoder;
+	private boolean orderedOutput = false;
+	private boolean verbose = false;
+	private boolean compactOutput = false;
+	private long solutionCountLimit = 0;
+	private boolean searchEnabled = false;
+	private int engine = SudokuSolver.ENGINE_DEDUCTIVE;
+	private int maxIterations = SudokuSolver.DEFAULT_MAX_ITERATIONS;
+	private long timeLimitNanos = 0;
+	private SudokuMetrics metrics; //null unless asked for
+	private final ArrayList<SudokuMetrics> workerMetrics = new ArrayList<SudokuMetrics>(); //one per solver, merged into metrics once done
+
+	private final ThreadLocal<SudokuSolver> solvers = new ThreadLocal<SudokuSolver>();
+	private final ThreadLocal<int[]> solvedValues = new ThreadLocal<int[]>();
+
+	//merged results
+	private int[] results = new int[6];
+	private int puzzlesProcessed;
+	private int solutionMismatches;
+	private int[] solutionCounts = new int[3];
+	//techniques of the solvers, only kept for their names
+	private final ArrayList<SudokuTechnique> techniques = SudokuSolver.createDefaultTechniques();
+	private long[] techniquePuzzles = new long[techniques.size()];
+	private long solveNanos;
+	private long batchNanos;
+
+	/**
+	 * The lines of one chunk, and their results until merged.
+	 */
+	private static class Chunk {
+		int length;
+		int[][] puzzles;
+		int[][] solutions;
+		int[] lineTypes;
+		long[] lineNumbers;
+
+		int[] results = new int[6];
+		int puzzlesProcessed;
+		int solutionMismatches;
+		int[] solutionCounts = new int[3];
+		long[] techniquePuzzles;
+		long solveNanos;
+		StringBuilder output = new StringBuilder();
+
+		Chunk(int numberOfSquares, int numberOfTechniques){
+			techniquePuzzles = new long[numberOfTechniques];
+			puzzles = new int[CHUNK_SIZE][numberOfSquares];
+			solutions = new int[CHUNK_SIZE][numberOfSquares];
+			lineTypes = new int[CHUNK_SIZE];
+			lineNumbers = new long[CHUNK_SIZE];
+		}
+
+		/**
+		 * Empties the chunk, so it can be filled again.
+		 */
+		void reset(){
+			length = 0;
+			Arrays.fill(results, 0);
+			Arrays.fill(solutionCounts, 0);
+			Arrays.fill(techniquePuzzles, 0);
+			puzzlesProcessed = 0;
+			solutionMismatches = 0;
+			solveNanos = 0;
+			output.setLength(0);
+		}
+	}
+
+	/**
+	 * @param threads The number of worker threads.
+	 * @param sudokuSideLength The side length of every puzzle in the file.
+	 * @param inputDecoder The decoder for the puzzles in the file.
+	 * @param outputDecoder The decoder used when printing puzzles.
+	 */
+	public SudokuBatchRunner(int threads, int sudokuSideLength, SudokuIODecoder inputDecoder, SudokuIODecoder outputDecoder){
+		this.threads = threads;
+		this.sudokuSideLength = sudokuSideLength;
+		this.inputDecoder = inputDecoder;
+		this.outputDecoder = outputDecoder;
+	}
+
+	/**
+	 * @param orderedOutput True to print the output of each puzzle in the order of the file, rather than as each chunk finishes.
+	 */
+	public void setOrderedOutput(boolean orderedOutput) {
+		this.orderedOutput = orderedOutput;
+	}
+
+	/**
+	 * @param verbose True to print each puzzle before and after its attempt.
+	 */
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	/**
+	 * @param compactOutput True to print each puzzle and its result on one line, as "puzzle,result" in the input encoding.
+	 */
+	public void setCompactOutput(boolean compactOutput) {
+		this.compactOutput = compactOutput;
+	}
+
+	/**
+	 * @param solutionCountLimit The max number of solutions to count for each puzzle before it's solved, or 0 to not count them.
+	 */
+	public void setSolutionCountLimit(long solutionCountLimit) {
+		this.solutionCountLimit = solutionCountLimit;
+	}
+
+	public void setSearchEnabled(boolean searchEnabled) {
+		this.searchEnabled = searchEnabled;
+	}
+
+	public void setEngine(int engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * @param maxIterations The max iterations of each pass of the solvers. (See SudokuSolver.setMaxIterations())
+	 */
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * @param timeLimitNanos The time limit of each puzzle, or 0 for none. (See SudokuSolver.setTimeLimit())
+	 */
+	public void setTimeLimit(long timeLimitNanos) {
+		this.timeLimitNanos = timeLimitNanos;
+	}
+
+	/**
+	 * @param metrics Where the counts of every solver are added once the batch is done, or null to not count. Each solver
+	 *  counts into its own SudokuMetrics in the meantime. (See SudokuSolver.setMetrics())
+	 */
+	public void setMetrics(SudokuMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Solves each line of the csv file, up to the limit.
+	 * @param puzzleCSV The file, with the puzzle as the first value of each line, and optionally the solution as the second.
+	 * @param limit The max number of puzzles to attempt, or 0 for the whole file.
+	 * @param out Where any output for each puzzle is printed.
+	 * @throws IOException If the file can't be read.
+	 */
+	public void run(File puzzleCSV, int limit, PrintStream out) throws IOException{
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<Future<Chunk>>();
+		ArrayDeque<Chunk> freeChunks = new ArrayDeque<Chunk>();
+		int numberOfSquares = sudokuSideLength * sudokuSideLength;
+		long startBatchTime = System.nanoTime();
+		long latestUpdate = 0L;
+		long updatePeriod = nanoToMili*1000;
+		int linesRead = 0;
+		int lineType = SudokuCSVReader.LINE_INVALID;
+
+		SudokuCSVReader reader = new SudokuCSVReader(puzzleCSV, sudokuSideLength, inputDecoder);
+		try {
+			Chunk chunk = new Chunk(numberOfSquares, techniques.size());
+			while((limit == 0 || linesRead < limit) && lineType != SudokuCSVReader.END_OF_FILE) {
+				lineType = reader.readLine(chunk.puzzles[chunk.length], chunk.solutions[chunk.length]);
+				if(lineType == SudokuCSVReader.END_OF_FILE) {
+					break;
+				}
+				chunk.lineTypes[chunk.length] = lineType;
+				chunk.lineNumbers[chunk.length] = reader.getLineNumber();
+				chunk.length++;
+				linesRead++;
+				if(chunk.length == CHUNK_SIZE) {
+					submit(pool, inFlight, chunk, out);
+					chunk = freeChunks.isEmpty() ? new Chunk(numberOfSquares, techniques.size()) : freeChunks.poll();
+				}
+				while(inFlight.size() >= threads * CHUNKS_PER_THREAD) {
+					freeChunks.add(merge(inFlight.poll(), out));
+				}
+				if((System.nanoTime() - latestUpdate) >= updatePeriod) {
+					latestUpdate = System.nanoTime();
+					System.out.println("- - -");
+					System.out.println("Puzzles processed: " + puzzlesProcessed + " of " + limit + " (read: " + linesRead + ")");
+				}
+			}
+			if(chunk.length > 0) {
+				submit(pool, inFlight, chunk, out);
+			}
+			while(!inFlight.isEmpty()) {
+				merge(inFlight.poll(), out);
+			}
+		}finally {
+			reader.close();
+			pool.shutdown();
+		}
+		batchNanos = System.nanoTime() - startBatchTime;
+		//every chunk was merged, so the solvers are done counting
+		synchronized(workerMetrics) {
+			for(SudokuMetrics counted : workerMetrics) {
+				metrics.add(counted);
+			}
+			workerMetrics.clear();
+		}
+	}
+
+	private void submit(ForkJoinPool pool, ArrayDeque<Future<Chunk>> inFlight, final Chunk chunk, final PrintStream out) {
+		inFlight.add(pool.submit(() -> {
+			for(int i=0; i<chunk.length; i++) {
+				solveLine(chunk, i);
+			}
+			if(!orderedOutput && chunk.output.length() > 0) {
+				synchronized(out) {
+					out.print(chunk.output);
+				}
+			}
+			return chunk;
+		}));
+	}
+
+	/**
+	 * Waits for the chunk, then adds its results to the totals.
+	 * @return The chunk, emptied so it can be filled again.
+	 */
+	private Chunk merge(Future<Chunk> future, PrintStream out) throws IOException{
+		Chunk chunk;
+		try {
+			chunk = future.get();
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for puzzles to be solved.");
+		}catch(ExecutionException e) {
+			throw new IOException("A worker failed: " + e.getCause());
+		}
+		for(int i=0; i<results.length; i++) {
+			results[i] += chunk.results[i];
+		}
+		puzzlesProcessed += chunk.puzzlesProcessed;
+		solutionMismatches += chunk.solutionMismatches;
+		for(int i=0; i<solutionCounts.length; i++) {
+			solutionCounts[i] += chunk.solutionCounts[i];
+		}
+		for(int i=0; i<techniquePuzzles.length; i++) {
+			techniquePuzzles[i] += chunk.techniquePuzzles[i];
+		}
+		solveNanos += chunk.solveNanos;
+		if(orderedOutput && chunk.output.length() > 0) {
+			out.print(chunk.output);
+		}
+		chunk.reset();
+		return chunk;
+	}
+
+	/**
+	 * Solves the puzzle of one line of the chunk with this thread's solver.
+	 */
+	private void solveLine(Chunk chunk, int line) {
+		SudokuSolver solver = solvers.get();
+		int[] solved = solvedValues.get();
+		long startPuzzleTime;
+		int verifyCode;
+
+		if(solver == null) {
+			solver = new SudokuSolver();
+			solver.setSearchEnabled(searchEnabled);
+			solver.setEngine(engine);
+			solver.setMaxIterations(maxIterations);
+			solver.setTimeLimit(timeLimitNanos, TimeUnit.NANOSECONDS);
+			if(metrics != null) {
+				SudokuMetrics counted = new SudokuMetrics();
+				synchronized(workerMetrics) {
+					workerMetrics.add(counted);
+				}
+				solver.setMetrics(counted);
+			}
+			solvers.set(solver);
+			solved = new int[sudokuSideLength * sudokuSideLength];
+			solvedValues.set(solved);
+		}
+
+		chunk.puzzlesProcessed++;
+		if(chunk.lineTypes[line] == SudokuCSVReader.LINE_INVALID) {
+			//ie: a header line
+			chunk.output.append("Line ").append(chunk.lineNumbers[line]).append(" does not hold a puzzle.\n");
+			chunk.results[0]++;
+			return;
+		}
+		try {
+			solver.enterSudoku(chunk.puzzles[line], sudokuSideLength, inputDecoder);
+		}catch(SudokuException e) {
+			chunk.output.append(e.getMessage()).append('\n');
+			chunk.results[0]++;
+			return;
+		}
+		if(solutionCountLimit > 0) {
+			try {
+				chunk.solutionCounts[(int)Math.min(solver.countSolutions(solutionCountLimit), 2)]++;
+			}catch(SudokuException e) {
+				chunk.output.append(e.getMessage()).append('\n');
+			}
+		}
+		try {
+			if(verbose) {
+				chunk.output.append("Before:\n");
+				solver.print(outputDecoder, chunk.output);
+			}
+			if(compactOutput) {
+				solver.printCompact(inputDecoder, chunk.output);
+				chunk.output.append(',');
+			}
+		}catch(IOException e) {
+			//StringBuilder doesn't throw
+		}
+
+		startPuzzleTime = System.nanoTime();
+		try{
+			solver.solveFull();
+		}catch(SudokuException e){
+			chunk.output.append(e.getMessage()).append('\n');
+		}
+		chunk.solveNanos += System.nanoTime() - startPuzzleTime;
+
+		try {
+			if(compactOutput) {
+				solver.printCompact(inputDecoder, chunk.output);
+				chunk.output.append('\n');
+			}
+			if(verbose) {
+				chunk.output.append("After:\n");
+				solver.print(outputDecoder, chunk.output);
+			}
+		}catch(IOException e) {
+			//StringBuilder doesn't throw
+		}
+		SudokuSolverTester.countTechniques(solver, chunk.techniquePuzzles);
+		verifyCode = solver.validate();
+		chunk.results[verifyCode + 1]++;
+		if(verifyCode == 0 && chunk.lineTypes[line] == SudokuCSVReader.LINE_PUZZLE_AND_SOLUTION
+				&& !Arrays.equals(solver.getValues(solved), chunk.solutions[line])) {
+			chunk.solutionMismatches++;
+		}
+		if(DEBUG && verifyCode != 0) {
+			chunk.output.append(solver.print(outputDecoder));
+		}
+	}
+
+	/**
+	 * @return Count of puzzles for each validation code, offset by one. (index 0 holds puzzles that couldn't be initialized)
+	 */
+	public int[] getResults() {
+		return results.clone();
+	}
+
+	public int getPuzzlesProcessed() {
+		return puzzlesProcessed;
+	}
+
+	/**
+	 * @return Count of completed puzzles that don't match the solution given in the csv.
+	 */
+	public int getSolutionMismatches() {
+		return solutionMismatches;
+	}
+
+	/**
+	 * @return Count of puzzles with no, one, and several solutions. (all 0 unless a solution count limit was set)
+	 */
+	public int[] getSolutionCounts() {
+		return solutionCounts.clone();
+	}
+
+	/**
+	 * @return Time spent in solveFull(), summed across every thread.
+	 */
+	public long getSolveNanos() {
+		return solveNanos;
+	}
+
+	/**
+	 * @return Wall clock time of the whole batch, including reading the file.
+	 */
+	public long getBatchNanos() {
+		return batchNanos;
+	}
+
+	/**
+	 * Prints the merged results, in the same form as the single threaded csv test.
+	 */
+	public void printResults(PrintStream out) {
+		out.println("\n");
+		out.println("(Time Elapsed: " + formatSeconds(batchNanos) + " s, on " + threads + " threads)");
+		out.println("(Time spent solving, across all threads: " + formatSeconds(solveNanos) + " s)");
+		out.println("Puzzle results:");
+		for(int i=0; i<results.length;i++) {
+			out.println("\"" + Sudoku.getValidateMessage(i - 1) + "\": " + results[i]);
+		}
+		out.println("Completed puzzles that differ from the solution in the csv: " + solutionMismatches);
+		if(solutionCountLimit > 0) {
+			SudokuSolverTester.printSolutionCounts(solutionCounts, out);
+		}
+		if(engine == SudokuSolver.ENGINE_DEDUCTIVE) {
+			SudokuSolverTester.printTechniqueCounts(techniques, techniquePuzzles, out);
+		}
+	}
+
+	private static String formatSeconds(long nanos) {
+		long milliseconds = TimeUnit.NANOSECONDS.toMillis(nanos);
+		return String.format("%d.%03d", milliseconds / 1000, milliseconds % 1000);
+	}
+}
@@ -0,0 +1,131 @@
+/**
+ * Helpers for the value bitmasks used by the Sudoku units.
+ * Value n (starting at 1) is stored as bit (n-1), spread over as many longs as the side length requires,
+ * so a scale 8 Sudoku (64x64) still fits in a single long, and anything larger grows into more words.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+public class SudokuBits {
+
+	private SudokuBits() {
+
+	}
+
+	/**
+	 * @param sideLength The number of values the mask must hold (ie: 9 for a 9x9 Sudoku)
+	 * @return The number of longs required to hold one bit per value.
+	 */
+	public static int wordsFor(int sideLength) {
+		return (sideLength + 63) >>> 6;
+	}
+
+	/**
+	 * @param sideLength The number of values the mask must hold.
+	 * @return An empty mask with enough words for the values.
+	 */
+	public static long[] newMask(int sideLength) {
+		return new long[wordsFor(sideLength)];
+	}
+
+	/**
+	 * @return True if the value's bit is set. Values beyond the mask are never contained.
+	 */
+	public static boolean contains(long[] mask, int value) {
+		int bit = value - 1;
+		if(bit < 0 || (bit >>> 6) >= mask.length) {
+			return false;
+		}
+		return (mask[bit >>> 6] & (1L << bit)) != 0;
+	}
+
+	public static void add(long[] mask, int value) {
+		int bit = value - 1;
+		mask[bit >>> 6] |= (1L << bit);
+	}
+
+	public static void remove(long[] mask, int value) {
+		int bit = value - 1;
+		mask[bit >>> 6] &= ~(1L << bit);
+	}
+
+	/**
+	 * Sets the bit of every value from 1 to sideLength.
+	 */
+	public static void fill(long[] mask, int sideLength) {
+		for(int i=0; i<mask.length; i++) {
+			int bits = sideLength - (i << 6);
+			if(bits >= 64) {
+				mask[i] = -1L;
+			}else if(bits > 0) {
+				mask[i] = (1L << bits) - 1;
+			}else {
+				mask[i] = 0L;
+			}
+		}
+	}
+
+	/**
+	 * @return The lowest value held in the mask, or 0 if it's empty.
+	 */
+	public static int first(long[] mask) {
+		for(int i=0; i<mask.length; i++) {
+			if(mask[i] != 0L) {
+				return (i << 6) + Long.numberOfTrailingZeros(mask[i]) + 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return The lowest value held in the mask above the given one, or 0 if there is none. Starting from 0 gives first().
+	 */
+	public static int next(long[] mask, int value) {
+		int word = value >>> 6;
+		if(word >= mask.length) {
+			return 0;
+		}
+		long bits = mask[word] & (-1L << (value & 63));
+		while(bits == 0L) {
+			if(++word >= mask.length) {
+				return 0;
+			}
+			bits = mask[word];
+		}
+		return (word << 6) + Long.numberOfTrailingZeros(bits) + 1;
+	}
+
+	public static void clear(long[] mask) {
+		for(int i=0; i<mask.length; i++) {
+			mask[i] = 0L;
+		}
+	}
+
+	/**
+	 * @return The number of values held in the mask.
+	 */
+	public static int count(long[] mask) {
+		int count = 0;
+		for(int i=0; i<mask.length; i++) {
+			count += Long.bitCount(mask[i]);
+		}
+		return count;
+	}
+
+	/**
+	 * @param sideLength The number of values the mask can hold.
+	 * @return The lowest value (starting at 1) that is not in the mask, or 0 if every value is held.
+	 */
+	public static int firstMissing(long[] mask, int sideLength) {
+		for(int i=0; i<mask.length; i++) {
+			if(mask[i] != -1L) {
+				int value = (i << 6) + Long.numberOfTrailingZeros(~mask[i]) + 1;
+				return value <= sideLength ? value : 0;
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,388 @@
+/**
+ * A compact Sudoku, holding the value of each square in a single byte[] along with a bitmask of the values used in each
+ * row, column and block. The layout tables come from a SudokuGeometry shared by every board of the same scale, so a
+ * board is only a few arrays rather than an object per square and unit.
+ * Offers the same checks as Sudoku (valueAt, setSquare, rowContains, validate, compare...) but holds no conditions,
+ * which makes it suited to search engines and to holding many puzzles at once.
+ * Values up to 255 are supported (up to scale 15).
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.io.IOException;
+
+public class SudokuBoard {
+
+	public final int SUDOKU_BLOCK_LENGTH;
+	public final int SUDOKU_SIDE_LENGTH;
+	public final int SUDOKU_NUMBER_OF_SQUARES;
+
+	private final SudokuGeometry geometry;
+	private final int words; //longs per unit mask
+	private final byte[] squares;
+	private final long[] used; //unit * words + word, units numbered as in SudokuGeometry
+	private int emptySquares;
+	private long[] foundValues; //scratch mask for validate(), made on its first call so copies made by a search don't carry one
+
+	/**
+	 * Populates a board of sudokuSideLength by sudokuSideLength.
+	 * @param sudokuValues The value of each square, in the same order as Sudoku. (0 for empty squares)
+	 * @param sudokuSideLength The side length (ie: 9 for a 9x9 Sudoku)
+	 * @throws SudokuException If the values don't fit the side length, or the side length isn't supported.
+	 */
+	public SudokuBoard(int[] sudokuValues, int sudokuSideLength) throws SudokuException{
+		this(SudokuGeometry.forSideLength(sudokuSideLength));
+		if(sudokuValues.length < SUDOKU_NUMBER_OF_SQUARES) {
+			throw new SudokuException("Number of values given (" + sudokuValues.length + ") not equal to the number of values required. ("
+					+ SUDOKU_NUMBER_OF_SQUARES + ")");
+		}
+		loadValues(sudokuValues);
+	}
+
+	/**
+	 * Copies the square values of a Sudoku. Conditions are not copied.
+	 * @param sudoku Sudoku to copy.
+	 */
+	public SudokuBoard(Sudoku sudoku) throws SudokuException{
+		this(sudoku.getValues(), sudoku.SUDOKU_SIDE_LENGTH);
+	}
+
+	/**
+	 * Copies another board.
+	 * @param otherBoard Board to copy.
+	 */
+	public SudokuBoard(SudokuBoard otherBoard){
+		this(otherBoard.geometry);
+		copyFrom(otherBoard);
+	}
+
+	/**
+	 * Creates an empty board.
+	 * @param geometry The geometry of the board's scale.
+	 */
+	public SudokuBoard(SudokuGeometry geometry){
+		this.geometry = geometry;
+		SUDOKU_BLOCK_LENGTH = geometry.SUDOKU_BLOCK_LENGTH;
+		SUDOKU_SIDE_LENGTH = geometry.SUDOKU_SIDE_LENGTH;
+		SUDOKU_NUMBER_OF_SQUARES = geometry.SUDOKU_NUMBER_OF_SQUARES;
+		words = SudokuBits.wordsFor(SUDOKU_SIDE_LENGTH);
+		squares = new byte[SUDOKU_NUMBER_OF_SQUARES];
+		used = new long[geometry.NUMBER_OF_UNITS * words];
+		emptySquares = SUDOKU_NUMBER_OF_SQUARES;
+	}
+
+	public SudokuGeometry getGeometry() {
+		return geometry;
+	}
+
+	/**
+	 * Replaces the value of every square.
+	 * @param sudokuValues The value of each square, in the same order as Sudoku. (0 for empty squares)
+	 * @throws SudokuException If a value can't be stored in a board. (below 0 or above 255)
+	 */
+	public void loadValues(int[] sudokuValues) throws SudokuException{
+		clear();
+		for(int i=0; i<SUDOKU_NUMBER_OF_SQUARES; i++) {
+			if(sudokuValues[i] < 0 || sudokuValues[i] > 255) {
+				throw new SudokuException("Value " + sudokuValues[i] + " at square " + i + " can't be stored in a SudokuBoard.");
+			}
+			if(sudokuValues[i] != 0) {
+				place(i, sudokuValues[i]);
+			}
+		}
+	}
+
+	/**
+	 * Empties every square.
+	 */
+	public void clear() {
+		for(int i=0; i<SUDOKU_NUMBER_OF_SQUARES; i++) {
+			squares[i] = 0;
+		}
+		for(int i=0; i<used.length; i++) {
+			used[i] = 0L;
+		}
+		emptySquares = SUDOKU_NUMBER_OF_SQUARES;
+	}
+
+	/**
+	 * Overwrites this board with the other, without allocating.
+	 * @param otherBoard A board of the same scale.
+	 */
+	public void copyFrom(SudokuBoard otherBoard) {
+		System.arraycopy(otherBoard.squares, 0, squares, 0, SUDOKU_NUMBER_OF_SQUARES);
+		System.arraycopy(otherBoard.used, 0, used, 0, used.length);
+		emptySquares = otherBoard.emptySquares;
+	}
+
+	public int valueAt(int position) {
+		return squares[position] & 0xFF;
+	}
+
+	public boolean isSquareEmpty(int position) {
+		return squares[position] == 0;
+	}
+
+	public int getEmptySquareCount() {
+		return emptySquares;
+	}
+
+	/**
+	 * @return A copy of the values of each square.
+	 */
+	public int[] getValues() {
+		return getValues(new int[SUDOKU_NUMBER_OF_SQUARES]);
+	}
+
+	public int[] getValues(int[] sudokuValues) {
+		for(int i=0; i<SUDOKU_NUMBER_OF_SQUARES; i++) {
+			sudokuValues[i] = squares[i] & 0xFF;
+		}
+		return sudokuValues;
+	}
+
+	/**
+	 * Sets an empty square to contain the value.
+	 * @param position The position in the sudoku, as defined by blockSquareIndex
+	 * @param value The value to insert to the square
+	 * @throws SudokuException If the square is not empty, or the value can't be stored in a board.
+	 */
+	public void setSquare(int position, int value) throws SudokuException{
+		if(value < 1 || value > 255) {
+			throw new SudokuException("Value " + value + " can't be stored in a SudokuBoard.");
+		}
+		if(squares[position] != 0) {
+			throw new SudokuException("Tried to set square " + position + " with " + value + ", but already contains " + valueAt(position));
+		}
+		place(position, value);
+	}
+
+	/**
+	 * Empties a square, as the last step of undoing setSquare(). The value must not be held elsewhere in its row,
+	 * column or block (which is the case when the board holds no conflicts).
+	 * @param position The position of the square to empty.
+	 */
+	public void clearSquare(int position) {
+		int value = squares[position] & 0xFF;
+		if(value == 0) {
+			return;
+		}
+		squares[position] = 0;
+		emptySquares++;
+		if(value <= SUDOKU_SIDE_LENGTH) {
+			removeUsed(geometry.rowUnit(geometry.rowOf(position)), value);
+			removeUsed(geometry.columnUnit(geometry.columnOf(position)), value);
+			removeUsed(geometry.blockUnit(geometry.blockOf(position)), value);
+		}
+	}
+
+	private void place(int position, int value) {
+		squares[position] = (byte)value;
+		emptySquares--;
+		if(value <= SUDOKU_SIDE_LENGTH) {
+			addUsed(geometry.rowUnit(geometry.rowOf(position)), value);
+			addUsed(geometry.columnUnit(geometry.columnOf(position)), value);
+			addUsed(geometry.blockUnit(geometry.blockOf(position)), value);
+		}
+	}
+
+	private void addUsed(int unit, int value) {
+		int bit = value - 1;
+		used[unit * words + (bit >>> 6)] |= 1L << bit;
+	}
+
+	private void removeUsed(int unit, int value) {
+		int bit = value - 1;
+		used[unit * words + (bit >>> 6)] &= ~(1L << bit);
+	}
+
+	/**
+	 * @return True if a square in the unit holds the value.
+	 */
+	public boolean unitContains(int unit, int value) {
+		int bit = value - 1;
+		if(bit < 0 || value > SUDOKU_SIDE_LENGTH) {
+			return false;
+		}
+		return (used[unit * words + (bit >>> 6)] & (1L << bit)) != 0;
+	}
+
+	public boolean rowContains(int row, int value) {
+		return unitContains(geometry.rowUnit(row), value);
+	}
+
+	public boolean columnContains(int column, int value) {
+		return unitContains(geometry.columnUnit(column), value);
+	}
+
+	public boolean blockContains(int block, int value) {
+		return unitContains(geometry.blockUnit(block), value);
+	}
+
+	/**
+	 * Checks the square, and relevant row and column to see if the square can hold the given value.
+	 * For checking the block as well, use squareAtPositionCanHold.
+	 * @return True if not immediately illegal
+	 */
+	public boolean squareAtPositionCanBe(int squarePosition, int value) {
+		return squares[squarePosition] == 0
+				&& !rowContains(geometry.rowOf(squarePosition), value)
+				&& !columnContains(geometry.columnOf(squarePosition), value);
+	}
+
+	/**
+	 * Checks the square, and its row, column and block to see if the square can hold the given value.
+	 * @return True if not immediately illegal
+	 */
+	public boolean squareAtPositionCanHold(int squarePosition, int value) {
+		return squareAtPositionCanBe(squarePosition, value) && !blockContains(geometry.blockOf(squarePosition), value);
+	}
+
+	/**
+	 * Fills the mask with the values the square can hold, by combining the masks of its row, column and block.
+	 * @param squarePosition The square to check.
+	 * @param mask A mask of at least SudokuBits.wordsFor(SUDOKU_SIDE_LENGTH) longs.
+	 * @return The number of values the square can hold. (0 if the square isn't empty)
+	 */
+	public int candidates(int squarePosition, long[] mask) {
+		if(squares[squarePosition] != 0) {
+			for(int w=0; w<words; w++) {
+				mask[w] = 0L;
+			}
+			return 0;
+		}
+		int row = geometry.rowUnit(geometry.rowOf(squarePosition)) * words;
+		int column = geometry.columnUnit(geometry.columnOf(squarePosition)) * words;
+		int block = geometry.blockUnit(geometry.blockOf(squarePosition)) * words;
+		int count = 0;
+		for(int w=0; w<words; w++) {
+			long all = w < words - 1 || (SUDOKU_SIDE_LENGTH & 63) == 0 ? -1L : (1L << (SUDOKU_SIDE_LENGTH & 63)) - 1;
+			mask[w] = all & ~(used[row + w] | used[column + w] | used[block + w]);
+			count += Long.bitCount(mask[w]);
+		}
+		return count;
+	}
+
+	/**
+	 * Checks each square of the board.
+	 * note: This will report the greatest code found.
+	 *
+	 * Result Codes are the same as Sudoku.validate():
+	 * 0: Puzzle is complete and without error.
+	 * 1: Puzzle is incomplete, but without any known error.
+	 * 2: Puzzle holds conflicting values.
+	 * 3: Puzzle holds values beyond the scope the of puzzle.
+	 * @return A code specifying describing the result, as specified in the description of this function.
+	 */
+	public int validate() {
+		int resultCode = emptySquares > 0 ? 1 : 0;
+		int value;
+		if(foundValues == null) {
+			foundValues = new long[words];
+		}
+		for(int unit=0; unit < geometry.NUMBER_OF_UNITS && resultCode < 3; unit++) {
+			SudokuBits.clear(foundValues);
+			for(int i=0; i<SUDOKU_SIDE_LENGTH; i++) {
+				value = valueAt(geometry.unitSquare(unit, i));
+				if(value > SUDOKU_SIDE_LENGTH) {
+					resultCode = 3;
+				}else if(value != 0) {
+					if(SudokuBits.contains(foundValues, value)) {
+						resultCode = Math.max(resultCode, 2);
+					}
+					SudokuBits.add(foundValues, value);
+				}
+			}
+		}
+		return resultCode;
+	}
+
+	/**
+	 * Compares the cells of another board to this one.
+	 * Result codes are the same as Sudoku.compare()
+	 * @param otherBoard The other board to compare to this one.
+	 * @return A code specifying describing the result.
+	 */
+	public int compare(SudokuBoard otherBoard) {
+		if(SUDOKU_NUMBER_OF_SQUARES != otherBoard.SUDOKU_NUMBER_OF_SQUARES) {
+			return 4;
+		}
+		boolean thisExistsInOtherPuzzle = true;
+		boolean otherPuzzleExistsInThis = true;
+		for(int i=0; i < SUDOKU_NUMBER_OF_SQUARES && (thisExistsInOtherPuzzle || otherPuzzleExistsInThis); i++) {
+			if(squares[i] == 0 && otherBoard.squares[i] != 0) {
+				otherPuzzleExistsInThis = false;
+			}else if(squares[i] != 0 && otherBoard.squares[i] == 0) {
+				thisExistsInOtherPuzzle = false;
+			}else if(squares[i] != otherBoard.squares[i]) {
+				otherPuzzleExistsInThis = false;
+				thisExistsInOtherPuzzle = false;
+			}
+		}
+		if(thisExistsInOtherPuzzle && otherPuzzleExistsInThis) {
+			return 0;
+		}else if(thisExistsInOtherPuzzle) {
+			return 1;
+		}else if(otherPuzzleExistsInThis) {
+			return 2;
+		}
+		return 3;
+	}
+
+	/**
+	 * @return A Sudoku holding the same values, for use with SudokuSolver.
+	 */
+	public Sudoku toSudoku() throws SudokuException{
+		return new Sudoku(getValues(), SUDOKU_SIDE_LENGTH);
+	}
+
+	/**
+	 * Prints out the whole board as a string using the SudokuIODecoder as a reference, in the same form as Sudoku.print().
+	 * @param decoderForIO class for managing the formatting and translating the integers to each their own character.
+	 */
+	public String print(SudokuIODecoder decoderForIO) {
+		StringBuilder sudokuString = new StringBuilder(SUDOKU_SIDE_LENGTH * (SUDOKU_SIDE_LENGTH * 2 + 2));
+		try {
+			print(decoderForIO, sudokuString);
+		}catch(IOException e) {
+			//StringBuilder doesn't throw
+		}
+		return sudokuString.toString();
+	}
+
+	/**
+	 * Writes the whole board, one row per line, in the same form as Sudoku.print().
+	 * @param out Where the board is written.
+	 * @throws IOException If out can't be written to.
+	 */
+	public void print(SudokuIODecoder decoderForIO, Appendable out) throws IOException{
+		boolean useDelimiter = decoderForIO.useDelimiter();
+		char delimiter = decoderForIO.getDelimiter();
+		for(int row=0; row < SUDOKU_SIDE_LENGTH; row++) {
+			if(useDelimiter) {
+				out.append(delimiter);
+			}
+			for(int column=0; column < SUDOKU_SIDE_LENGTH; column++) {
+				out.append(decoderForIO.printChar(valueAt(row * SUDOKU_SIDE_LENGTH + column)));
+				if(useDelimiter) {
+					out.append(delimiter);
+				}
+			}
+			out.append('\n');
+		}
+	}
+
+	/**
+	 * Writes the values of every square on one line, without delimiters or a new line, as Sudoku.printCompact() does.
+	 * @param out Where the board is written.
+	 * @throws IOException If out can't be written to.
+	 */
+	public void printCompact(SudokuIODecoder decoderForIO, Appendable out) throws IOException{
+		for(int square=0; square < SUDOKU_NUMBER_OF_SQUARES; square++) {
+			out.append(decoderForIO.printChar(valueAt(square)));
+		}
+	}
+}
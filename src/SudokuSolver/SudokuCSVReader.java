@@ -0,0 +1,164 @@
+/**
+ * Reads puzzles from a csv file, one per line, with the puzzle as the first value and an optional solution as the second.
+ * The file is read with NIO in large chunks and decoded byte by byte straight into int arrays, so no String is made for
+ * a line. This keeps reading cheap next to solving, even for files holding millions of puzzles.
+ *
+ * As in SudokuSolver.enterSudoku(), characters that aren't in the decoder are skipped. Only single byte (ASCII)
+ * characters are decoded. A line is only a puzzle if its first value holds exactly one value for every square, and its
+ * solution, if there is one, no more than that; anything else (ie: a header line) is reported as LINE_INVALID.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public class SudokuCSVReader implements Closeable {
+
+	private static final boolean DEBUG = false;
+
+	//results of readLine()
+	public static final int END_OF_FILE = -1;
+	public static final int LINE_INVALID = 0;
+	public static final int LINE_PUZZLE = 1;
+	public static final int LINE_PUZZLE_AND_SOLUTION = 2;
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final byte[] bytes; //backing array of the buffer
+	private final SudokuIODecoder decoder;
+	private final int numberOfSquares;
+	private int position;
+	private int limit;
+	private boolean endOfFile = false;
+	private long lineNumber = 0;
+
+	/**
+	 * @param puzzleCSV The file to read.
+	 * @param sudokuSideLength The side length of every puzzle in the file.
+	 * @param decoder The decoder for the puzzles in the file.
+	 * @throws IOException If the file can't be opened.
+	 */
+	public SudokuCSVReader(File puzzleCSV, int sudokuSideLength, SudokuIODecoder decoder) throws IOException{
+		channel = FileChannel.open(puzzleCSV.toPath(), StandardOpenOption.READ);
+		buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		bytes = buffer.array();
+		this.decoder = decoder;
+		numberOfSquares = sudokuSideLength * sudokuSideLength;
+	}
+
+	/**
+	 * Reads the next line of the file.
+	 * @param puzzle Filled with the values of the puzzle. Must hold at least sudokuSideLength^2 ints.
+	 * @param solution Filled with the values of the solution, when the line has one. May be null to skip solutions.
+	 * @return END_OF_FILE, LINE_INVALID, LINE_PUZZLE or LINE_PUZZLE_AND_SOLUTION.
+	 * @throws IOException If the file can't be read.
+	 */
+	public int readLine(int[] puzzle, int[] solution) throws IOException{
+		int puzzleCount;
+		int solutionCount = 0;
+
+		if(position == limit && !fill()) {
+			return END_OF_FILE;
+		}
+		lineNumber++;
+
+		puzzleCount = readField(puzzle);
+		if(position < limit && bytes[position] == ',') {
+			position++;
+			solutionCount = readField(solution);
+		}
+		skipLine();
+
+		if(DEBUG) {
+			System.out.println("[" + getClass() + ".readLine(); line " + lineNumber + ": " + puzzleCount + " values, " + solutionCount + " in solution]");
+		}
+		if(puzzleCount != numberOfSquares || solutionCount > numberOfSquares) {
+			return LINE_INVALID;
+		}else if(solution != null && solutionCount == numberOfSquares) {
+			return LINE_PUZZLE_AND_SOLUTION;
+		}
+		return LINE_PUZZLE;
+	}
+
+	/**
+	 * @return The line number of the line last read, starting at 1.
+	 */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Decodes values until the end of the field, leaving the position on the ',' or end of line that stopped it.
+	 * Values beyond the number of squares are counted, but not stored.
+	 * @param values Where the values go, or null to only skip the field.
+	 * @return The number of values decoded, including any beyond the number of squares.
+	 */
+	private int readField(int[] values) throws IOException{
+		int count = 0;
+		int value;
+		byte b;
+
+		while(position < limit || fill()) {
+			b = bytes[position];
+			if(b == ',' || b == '\n') {
+				break;
+			}
+			value = decoder.byteToInt(b);
+			if(value >= 0) {
+				if(values != null && count < numberOfSquares) {
+					values[count] = value;
+				}
+				count++;
+			}
+			position++;
+		}
+		return count;
+	}
+
+	/**
+	 * Skips past the end of the current line.
+	 */
+	private void skipLine() throws IOException{
+		while(position < limit || fill()) {
+			if(bytes[position++] == '\n') {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Reads the next chunk of the file into the buffer.
+	 * @return False once the file has no more bytes.
+	 */
+	private boolean fill() throws IOException{
+		int read = 0;
+		if(endOfFile) {
+			return false;
+		}
+		buffer.clear();
+		while(read == 0) {
+			read = channel.read(buffer);
+		}
+		if(read < 0) {
+			endOfFile = true;
+			position = limit = 0;
+			return false;
+		}
+		position = 0;
+		limit = buffer.position();
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException{
+		channel.close();
+	}
+}
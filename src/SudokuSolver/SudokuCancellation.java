@@ -0,0 +1,78 @@
+/**
+ * Lets solving be stopped from outside: by calling cancel() from any thread, or once a deadline passes.
+ * A token can be shared by any number of solvers (ie: every puzzle of one request), which look at it every so often as
+ * they work and stop with what they've found so far. (See SudokuSolver.setCancellation())
+ * A token can also be made under another, so it can be cancelled on its own (ie: by a search that has found what it
+ * needed) while still stopping whenever the one above it does.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.util.concurrent.TimeUnit;
+
+public class SudokuCancellation {
+
+	private volatile boolean cancelled;
+	private volatile boolean hasDeadline;
+	private volatile long deadline; //as System.nanoTime()
+	private final SudokuCancellation parent; //null for none
+
+	public SudokuCancellation(){
+		parent = null;
+	}
+
+	/**
+	 * Makes a token that's stopped whenever the given one is, as well as by its own cancel() and deadline.
+	 * @param parent The token above this one, or null for none.
+	 */
+	public SudokuCancellation(SudokuCancellation parent){
+		this.parent = parent;
+	}
+
+	/**
+	 * Makes a token whose deadline is the given time from now.
+	 */
+	public SudokuCancellation(long timeout, TimeUnit unit){
+		parent = null;
+		setDeadline(System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	/**
+	 * Stops every solver using this token, as soon as each of them next looks at it.
+	 */
+	public void cancel(){
+		cancelled = true;
+	}
+
+	/**
+	 * @return True if cancel() was called, on this token or the one above it.
+	 */
+	public boolean isCancelled(){
+		return cancelled || (parent != null && parent.isCancelled());
+	}
+
+	/**
+	 * @param deadline When the solvers using this token should stop, as a value of System.nanoTime().
+	 */
+	public void setDeadline(long deadline){
+		this.deadline = deadline;
+		hasDeadline = true;
+	}
+
+	/**
+	 * @return True if the token, or the one above it, has a deadline and it has passed.
+	 */
+	public boolean isPastDeadline(){
+		return (hasDeadline && System.nanoTime() - deadline >= 0) || (parent != null && parent.isPastDeadline());
+	}
+
+	/**
+	 * @return True if solving should stop, for either reason.
+	 */
+	public boolean shouldStop(){
+		return isCancelled() || isPastDeadline();
+	}
+}
@@ -0,0 +1,472 @@
+/**
+ * Maps a puzzle to the canonical representative of every puzzle it's equivalent to: the same puzzle with its values
+ * relabeled, its rows swapped within their bands, its bands swapped, its columns swapped within their stacks, its stacks
+ * swapped, or transposed, in any combination. Each of those has the same solutions, moved the same way, so a puzzle
+ * solved once can be looked up by its canonical form. (See SudokuSolutionCache)
+ * The representative is the one that's first when compared square by square in order, blanks (0) first, with the values
+ * relabeled in the order they're first met. It's found by building it a row at a time, only going on with the rows,
+ * column orders and labels that keep it first so far:
+ *  -The columns are kept as groups whose order hasn't mattered yet, within stacks, which are themselves kept as groups
+ *   of stacks that haven't differed yet. Each row sorts the columns of each group, blanks first, then labeled values,
+ *   then new ones, and splits the groups where they differ.
+ *  -A group whose columns (or stacks) hold new values is tried in each order, as the order picks their labels.
+ *  -Each row that could come next is tried, and only those giving the lowest row go on, unless it's already beaten.
+ * Puzzles with a lot of symmetry (ie: nearly empty ones) can take very long to settle, so the search gives up after
+ * a number of steps. (See setNodeLimit())
+ * The transform of the last puzzle is kept, so its solution can be mapped to canonical form and back.
+ * Not thread safe; every array it needs is made once, so one per thread can be reused for any number of puzzles.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+public class SudokuCanonicalizer {
+
+	public static final int DEFAULT_NODE_LIMIT = 100000;
+
+	public final int SUDOKU_BLOCK_LENGTH;
+	public final int SUDOKU_SIDE_LENGTH;
+	public final int SUDOKU_NUMBER_OF_SQUARES;
+
+	//key of a value that hasn't been labeled yet, after every label
+	private final int NEW_VALUE;
+	private int nodeLimit = DEFAULT_NODE_LIMIT;
+	private int nodes;
+
+	//the puzzle being canonicalized, transposed or not
+	private final int[] grid;
+	private boolean transposed;
+
+	//state of the search, by depth. Each row placed and each group split in order takes a level
+	private final int[][] columns; //by position in the canonical row, the column of the grid there
+	private final boolean[][] columnBreaks; //by position, if a new group of columns starts there
+	private final boolean[][] stackBreaks; //by stack position, if a new group of stacks starts there
+	private final int[][] rows; //by canonical row, the row of the grid placed there
+	private final boolean[][] rowUsed;
+	private final int[][] labels; //by value of the grid, its canonical value, or 0 if it hasn't been met
+	private final int[] nextLabel;
+	//scratch state, for trying rows
+	private final int[] trialColumns;
+	private final boolean[] trialColumnBreaks;
+	private final boolean[] trialStackBreaks;
+	private final int[] rowKeys; //by column, the key of each square of the row being refined (See key())
+
+	//lowest row of each candidate, by canonical row
+	private final int[][] candidateRows;
+	private final int[][] candidateStrings;
+
+	//best puzzle found so far, and how it was reached
+	private final int[] best;
+	private int bestRows; //rows of best that are set
+	private boolean bestRecorded; //if the transform below gives best
+	private boolean bestTransposed;
+	private final int[] bestRowOrder;
+	private final int[] bestColumnOrder;
+	private final int[] bestLabels;
+	private final int[] bestValues; //inverse of bestLabels
+
+	/**
+	 * @param sudokuSideLength The side length of the puzzles. It must be a square.
+	 * @throws SudokuException If the side length isn't a square.
+	 */
+	public SudokuCanonicalizer(int sudokuSideLength) throws SudokuException{
+		int blockLength = (int)Math.round(Math.sqrt(sudokuSideLength));
+		int depths;
+
+		if(blockLength * blockLength != sudokuSideLength) {
+			throw new SudokuException("Puzzles of side length " + sudokuSideLength + " can't be canonicalized, as it isn't a square.");
+		}
+		SUDOKU_BLOCK_LENGTH = blockLength;
+		SUDOKU_SIDE_LENGTH = sudokuSideLength;
+		SUDOKU_NUMBER_OF_SQUARES = sudokuSideLength * sudokuSideLength;
+		NEW_VALUE = sudokuSideLength + 1;
+
+		//a level for each row, and one for each split of a group, of which there can't be more than columns and stacks
+		depths = 2 * sudokuSideLength + blockLength + 2;
+		grid = new int[SUDOKU_NUMBER_OF_SQUARES];
+		columns = new int[depths][sudokuSideLength];
+		columnBreaks = new boolean[depths][sudokuSideLength];
+		stackBreaks = new boolean[depths][blockLength];
+		rows = new int[depths][sudokuSideLength];
+		rowUsed = new boolean[depths][sudokuSideLength];
+		labels = new int[depths][sudokuSideLength + 1];
+		nextLabel = new int[depths];
+		trialColumns = new int[sudokuSideLength];
+		trialColumnBreaks = new boolean[sudokuSideLength];
+		trialStackBreaks = new boolean[blockLength];
+		rowKeys = new int[sudokuSideLength];
+		candidateRows = new int[sudokuSideLength][sudokuSideLength];
+		candidateStrings = new int[sudokuSideLength][SUDOKU_NUMBER_OF_SQUARES];
+		best = new int[SUDOKU_NUMBER_OF_SQUARES];
+		bestRowOrder = new int[sudokuSideLength];
+		bestColumnOrder = new int[sudokuSideLength];
+		bestLabels = new int[sudokuSideLength + 1];
+		bestValues = new int[sudokuSideLength + 1];
+	}
+
+	/**
+	 * @param nodeLimit The most rows and splits tried for one puzzle before giving up on it.
+	 */
+	public void setNodeLimit(int nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	public int getNodeLimit() {
+		return nodeLimit;
+	}
+
+	/**
+	 * @return The rows and splits tried for the last puzzle.
+	 */
+	public int getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Finds the canonical form of a puzzle, and keeps the transform to it. (See toCanonical() and fromCanonical())
+	 * @param values The value of each square, as given to the Sudoku constructor. (0 for empty)
+	 * @param canonical Where the canonical form is written, in the same form.
+	 * @return True if it was found, or false if the node limit was reached first, in which case canonical is untouched.
+	 */
+	public boolean canonicalize(int[] values, int[] canonical){
+		nodes = 0;
+		bestRows = 0;
+		bestRecorded = false;
+		for(int transpose=0; transpose < 2 && nodes <= nodeLimit; transpose++) {
+			transposed = transpose == 1;
+			for(int row=0; row < SUDOKU_SIDE_LENGTH; row++) {
+				for(int column=0; column < SUDOKU_SIDE_LENGTH; column++) {
+					grid[row * SUDOKU_SIDE_LENGTH + column] = transposed ? values[column * SUDOKU_SIDE_LENGTH + row] : values[row * SUDOKU_SIDE_LENGTH + column];
+				}
+			}
+			for(int position=0; position < SUDOKU_SIDE_LENGTH; position++) {
+				columns[0][position] = position;
+				columnBreaks[0][position] = position % SUDOKU_BLOCK_LENGTH == 0;
+				rowUsed[0][position] = false;
+			}
+			for(int slot=0; slot < SUDOKU_BLOCK_LENGTH; slot++) {
+				stackBreaks[0][slot] = slot == 0;
+			}
+			for(int value=0; value <= SUDOKU_SIDE_LENGTH; value++) {
+				labels[0][value] = 0;
+			}
+			nextLabel[0] = 1;
+			search(0, 0);
+		}
+		if(nodes > nodeLimit) {
+			return false;
+		}
+		System.arraycopy(best, 0, canonical, 0, SUDOKU_NUMBER_OF_SQUARES);
+		return true;
+	}
+
+	/**
+	 * Moves any grid of the same size the way the last puzzle was moved to its canonical form. (ie: its solution)
+	 * @param values The value of each square, as given to the Sudoku constructor.
+	 * @param canonical Where the moved values are written.
+	 */
+	public void toCanonical(int[] values, int[] canonical){
+		for(int row=0; row < SUDOKU_SIDE_LENGTH; row++) {
+			for(int column=0; column < SUDOKU_SIDE_LENGTH; column++) {
+				canonical[row * SUDOKU_SIDE_LENGTH + column] = bestLabels[values[sourceSquare(row, column)]];
+			}
+		}
+	}
+
+	/**
+	 * Moves a grid in canonical form back the way the last puzzle would be, so the solution of its canonical form
+	 * becomes its own solution.
+	 * @param canonical The value of each square in canonical form.
+	 * @param values Where the values are written, as given to the Sudoku constructor.
+	 */
+	public void fromCanonical(int[] canonical, int[] values){
+		for(int row=0; row < SUDOKU_SIDE_LENGTH; row++) {
+			for(int column=0; column < SUDOKU_SIDE_LENGTH; column++) {
+				values[sourceSquare(row, column)] = bestValues[canonical[row * SUDOKU_SIDE_LENGTH + column]];
+			}
+		}
+	}
+
+	/**
+	 * @return The square of the puzzle that ends up at the row and column of its canonical form.
+	 */
+	private int sourceSquare(int row, int column){
+		int gridRow = bestRowOrder[row];
+		int gridColumn = bestColumnOrder[column];
+		return bestTransposed ? gridColumn * SUDOKU_SIDE_LENGTH + gridRow : gridRow * SUDOKU_SIDE_LENGTH + gridColumn;
+	}
+
+	/**
+	 * Tries each row that can go next, and goes on with those giving the lowest row.
+	 */
+	private void search(int depth, int level){
+		int candidates = 0;
+		int lowest = 0;
+		int band;
+		int comparison;
+
+		if(++nodes > nodeLimit) {
+			return;
+		}
+		if(level == SUDOKU_SIDE_LENGTH) {
+			if(!bestRecorded) {
+				record(depth);
+			}
+			return;
+		}
+
+		//a new band can start from any row left, otherwise the band goes on
+		band = level % SUDOKU_BLOCK_LENGTH == 0 ? -1 : rows[depth][level - 1] / SUDOKU_BLOCK_LENGTH;
+		for(int row=0; row < SUDOKU_SIDE_LENGTH; row++) {
+			if(rowUsed[depth][row] || (band >= 0 && row / SUDOKU_BLOCK_LENGTH != band)) {
+				continue;
+			}
+			System.arraycopy(columns[depth], 0, trialColumns, 0, SUDOKU_SIDE_LENGTH);
+			System.arraycopy(columnBreaks[depth], 0, trialColumnBreaks, 0, SUDOKU_SIDE_LENGTH);
+			System.arraycopy(stackBreaks[depth], 0, trialStackBreaks, 0, SUDOKU_BLOCK_LENGTH);
+			refine(trialColumns, trialColumnBreaks, trialStackBreaks, labels[depth], row);
+			writeRow(trialColumns, nextLabel[depth], candidateStrings[level], candidates * SUDOKU_SIDE_LENGTH);
+			if(candidates > 0 && compare(candidateStrings[level], candidates * SUDOKU_SIDE_LENGTH, candidateStrings[level], lowest * SUDOKU_SIDE_LENGTH) < 0) {
+				lowest = candidates;
+			}
+			candidateRows[level][candidates++] = row;
+		}
+
+		if(bestRows > level) {
+			comparison = compare(candidateStrings[level], lowest * SUDOKU_SIDE_LENGTH, best, level * SUDOKU_SIDE_LENGTH);
+			if(comparison > 0) {
+				return;
+			}
+		}else {
+			comparison = -1;
+		}
+		if(comparison < 0) {
+			System.arraycopy(candidateStrings[level], lowest * SUDOKU_SIDE_LENGTH, best, level * SUDOKU_SIDE_LENGTH, SUDOKU_SIDE_LENGTH);
+			bestRows = level + 1;
+			bestRecorded = false;
+		}
+
+		for(int i=0; i < candidates; i++) {
+			if(compare(candidateStrings[level], i * SUDOKU_SIDE_LENGTH, candidateStrings[level], lowest * SUDOKU_SIDE_LENGTH) != 0) {
+				continue;
+			}
+			copyState(depth, depth + 1);
+			refine(columns[depth + 1], columnBreaks[depth + 1], stackBreaks[depth + 1], labels[depth + 1], candidateRows[level][i]);
+			rows[depth + 1][level] = candidateRows[level][i];
+			rowUsed[depth + 1][candidateRows[level][i]] = true;
+			settle(depth + 1, level);
+			if(nodes > nodeLimit) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Splits the first group of stacks or columns whose order would pick the labels of new values in the row just
+	 * placed, trying each in turn first. Once there's none, labels the new values and goes on to the next row.
+	 */
+	private void settle(int depth, int level){
+		int row = rows[depth][level];
+		int[] order = columns[depth];
+		int end;
+
+		if(++nodes > nodeLimit) {
+			return;
+		}
+		for(int slot=0; slot < SUDOKU_BLOCK_LENGTH; slot = end) {
+			for(end = slot + 1; end < SUDOKU_BLOCK_LENGTH && !stackBreaks[depth][end]; end++);
+			if(end - slot > 1 && slotHasNewValue(depth, row, slot)) {
+				for(int first=slot; first < end; first++) {
+					copyState(depth, depth + 1);
+					moveSlot(columns[depth + 1], columnBreaks[depth + 1], first, slot);
+					stackBreaks[depth + 1][slot + 1] = true;
+					settle(depth + 1, level);
+					if(nodes > nodeLimit) {
+						return;
+					}
+				}
+				return;
+			}
+		}
+		for(int position=0; position < SUDOKU_SIDE_LENGTH; position = end) {
+			for(end = position + 1; end < SUDOKU_SIDE_LENGTH && !columnBreaks[depth][end]; end++);
+			if(end - position > 1 && key(labels[depth], row, order[position]) == NEW_VALUE) {
+				for(int first=position; first < end; first++) {
+					copyState(depth, depth + 1);
+					moveColumn(columns[depth + 1], first, position);
+					columnBreaks[depth + 1][position + 1] = true;
+					settle(depth + 1, level);
+					if(nodes > nodeLimit) {
+						return;
+					}
+				}
+				return;
+			}
+		}
+
+		for(int position=0; position < SUDOKU_SIDE_LENGTH; position++) {
+			int value = grid[row * SUDOKU_SIDE_LENGTH + order[position]];
+			if(value != 0 && labels[depth][value] == 0) {
+				labels[depth][value] = nextLabel[depth]++;
+			}
+		}
+		search(depth, level + 1);
+	}
+
+	/**
+	 * Sorts the columns of each group by their value in the row, then the stacks of each group by their values,
+	 * and splits the groups where they differ. Leaves the keys of the row in rowKeys.
+	 */
+	private void refine(int[] order, boolean[] breaks, boolean[] slotBreaks, int[] rowLabels, int row){
+		int end;
+
+		for(int column=0; column < SUDOKU_SIDE_LENGTH; column++) {
+			rowKeys[column] = key(rowLabels, row, column);
+		}
+		for(int position=0; position < SUDOKU_SIDE_LENGTH; position = end) {
+			for(end = position + 1; end < SUDOKU_SIDE_LENGTH && !breaks[end]; end++);
+			for(int i=position + 1; i < end; i++) {
+				int column = order[i];
+				int columnKey = rowKeys[column];
+				int j = i - 1;
+				for(; j >= position && rowKeys[order[j]] > columnKey; j--) {
+					order[j + 1] = order[j];
+				}
+				order[j + 1] = column;
+			}
+			for(int i=position + 1; i < end; i++) {
+				if(rowKeys[order[i]] != rowKeys[order[i - 1]]) {
+					breaks[i] = true;
+				}
+			}
+		}
+		for(int slot=0; slot < SUDOKU_BLOCK_LENGTH; slot = end) {
+			for(end = slot + 1; end < SUDOKU_BLOCK_LENGTH && !slotBreaks[end]; end++);
+			for(int i=slot + 1; i < end; i++) {
+				int j = i;
+				for(; j > slot && compareSlots(order, j - 1, j) > 0; j--) {
+					swapSlots(order, breaks, j - 1, j);
+				}
+			}
+			for(int i=slot + 1; i < end; i++) {
+				if(compareSlots(order, i - 1, i) != 0) {
+					slotBreaks[i] = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return What a square of the grid sorts by: 0 when empty, its label, or NEW_VALUE if it hasn't been labeled.
+	 */
+	private int key(int[] rowLabels, int row, int column){
+		int value = grid[row * SUDOKU_SIDE_LENGTH + column];
+		if(value == 0) {
+			return 0;
+		}
+		return rowLabels[value] != 0 ? rowLabels[value] : NEW_VALUE;
+	}
+
+	private int compareSlots(int[] order, int slot1, int slot2){
+		for(int i=0; i < SUDOKU_BLOCK_LENGTH; i++) {
+			int key1 = rowKeys[order[slot1 * SUDOKU_BLOCK_LENGTH + i]];
+			int key2 = rowKeys[order[slot2 * SUDOKU_BLOCK_LENGTH + i]];
+			if(key1 != key2) {
+				return key1 - key2;
+			}
+		}
+		return 0;
+	}
+
+	private boolean slotHasNewValue(int depth, int row, int slot){
+		for(int i=0; i < SUDOKU_BLOCK_LENGTH; i++) {
+			if(key(labels[depth], row, columns[depth][slot * SUDOKU_BLOCK_LENGTH + i]) == NEW_VALUE) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void swapSlots(int[] order, boolean[] breaks, int slot1, int slot2){
+		for(int i=0; i < SUDOKU_BLOCK_LENGTH; i++) {
+			int position1 = slot1 * SUDOKU_BLOCK_LENGTH + i;
+			int position2 = slot2 * SUDOKU_BLOCK_LENGTH + i;
+			int column = order[position1];
+			boolean columnBreak = breaks[position1];
+			order[position1] = order[position2];
+			breaks[position1] = breaks[position2];
+			order[position2] = column;
+			breaks[position2] = columnBreak;
+		}
+	}
+
+	/**
+	 * Moves a stack to the front of its group, keeping the order of the rest.
+	 */
+	private void moveSlot(int[] order, boolean[] breaks, int from, int to){
+		for(int slot=from; slot > to; slot--) {
+			swapSlots(order, breaks, slot - 1, slot);
+		}
+	}
+
+	/**
+	 * Moves a column to the front of its group, keeping the order of the rest.
+	 */
+	private void moveColumn(int[] order, int from, int to){
+		int column = order[from];
+		System.arraycopy(order, to, order, to + 1, from - to);
+		order[to] = column;
+	}
+
+	/**
+	 * Writes the row just refined as it would be in canonical form, with new values labeled in the order they're met.
+	 */
+	private void writeRow(int[] order, int firstNewLabel, int[] out, int offset){
+		int newLabel = firstNewLabel;
+		for(int position=0; position < SUDOKU_SIDE_LENGTH; position++) {
+			int columnKey = rowKeys[order[position]];
+			out[offset + position] = columnKey == NEW_VALUE ? newLabel++ : columnKey;
+		}
+	}
+
+	private int compare(int[] strings1, int offset1, int[] strings2, int offset2){
+		for(int i=0; i < SUDOKU_SIDE_LENGTH; i++) {
+			if(strings1[offset1 + i] != strings2[offset2 + i]) {
+				return strings1[offset1 + i] - strings2[offset2 + i];
+			}
+		}
+		return 0;
+	}
+
+	private void copyState(int from, int to){
+		System.arraycopy(columns[from], 0, columns[to], 0, SUDOKU_SIDE_LENGTH);
+		System.arraycopy(columnBreaks[from], 0, columnBreaks[to], 0, SUDOKU_SIDE_LENGTH);
+		System.arraycopy(stackBreaks[from], 0, stackBreaks[to], 0, SUDOKU_BLOCK_LENGTH);
+		System.arraycopy(rows[from], 0, rows[to], 0, SUDOKU_SIDE_LENGTH);
+		System.arraycopy(rowUsed[from], 0, rowUsed[to], 0, SUDOKU_SIDE_LENGTH);
+		System.arraycopy(labels[from], 0, labels[to], 0, SUDOKU_SIDE_LENGTH + 1);
+		nextLabel[to] = nextLabel[from];
+	}
+
+	/**
+	 * Keeps the transform that gives the best puzzle. Values the puzzle doesn't hold are labeled after the rest, in order.
+	 */
+	private void record(int depth){
+		int label = nextLabel[depth];
+
+		bestTransposed = transposed;
+		System.arraycopy(rows[depth], 0, bestRowOrder, 0, SUDOKU_SIDE_LENGTH);
+		System.arraycopy(columns[depth], 0, bestColumnOrder, 0, SUDOKU_SIDE_LENGTH);
+		System.arraycopy(labels[depth], 0, bestLabels, 0, SUDOKU_SIDE_LENGTH + 1);
+		for(int value=1; value <= SUDOKU_SIDE_LENGTH; value++) {
+			if(bestLabels[value] == 0) {
+				bestLabels[value] = label++;
+			}
+			bestValues[bestLabels[value]] = value;
+		}
+		bestValues[0] = 0;
+		bestRecorded = true;
+	}
+}
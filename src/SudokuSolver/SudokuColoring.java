@@ -0,0 +1,173 @@
+/**
+ * Chains the XOR conditions (strong links) of one value. Along a chain, the squares take turns holding the value, so
+ * coloring them alternately splits the chain into two colors, and one of the two holds the value in every square.
+ * If two squares of the same color share a row, column or block, that color can't hold the value anywhere.
+ * A square that shares a unit with a square of each color of a chain can't hold the value either. ("Simple coloring")
+ * Only the XORs held by the Sudoku are followed, so this finds nothing while the solver isn't making them.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.util.Arrays;
+
+public class SudokuColoring extends SudokuTechnique {
+
+	private static final boolean DEBUG = false;
+
+	//scratch, sized for the Sudoku last worked on
+	private int[] colors; //by square: 0 if uncolored, otherwise 2 * chain + 1 or 2 * chain + 2 for the two colors of the chain
+	private int[] chainSquares; //squares of the chain being colored, in the order they were reached
+	private int[] seen; //by color: the stamp of the last square sharing a unit with a square of that color
+	private int stamp;
+
+	public SudokuColoring(){
+		super("Simple coloring");
+	}
+
+	@Override
+	public boolean apply(Sudoku sudoku) throws SudokuException{
+		SudokuGeometry geometry = sudoku.getGeometry();
+		long[][] candidates = candidateTable(sudoku);
+		boolean changed = false;
+
+		prepare(geometry);
+		for(int value=1; value <= sudoku.SUDOKU_SIDE_LENGTH; value++) {
+			changed |= colorValue(sudoku, geometry, candidates, value);
+		}
+		return changed;
+	}
+
+	/**
+	 * Colors every chain of the value, excluding it from any color that sees itself, then from any square seeing both
+	 * colors of a chain.
+	 * @return True if the value was excluded from a square.
+	 */
+	private boolean colorValue(Sudoku sudoku, SudokuGeometry geometry, long[][] candidates, int value) {
+		int chains = 0;
+		int length;
+		int badColor;
+		boolean changed = false;
+
+		Arrays.fill(colors, 0);
+		for(int square=0; square < colors.length; square++) {
+			if(colors[square] != 0 || !SudokuBits.contains(candidates[square], value)) {
+				continue;
+			}
+			length = colorChain(sudoku, geometry, candidates, value, square, 2 * chains + 1);
+			if(length < 2) {
+				//no link through this square
+				colors[square] = 0;
+				continue;
+			}
+			chains++;
+
+			badColor = 0;
+			for(int i=0; i < length && badColor == 0; i++) {
+				for(int j=0; j < geometry.NUMBER_OF_PEERS; j++) {
+					if(colors[geometry.peer(chainSquares[i], j)] == colors[chainSquares[i]]) {
+						badColor = colors[chainSquares[i]];
+						break;
+					}
+				}
+			}
+			if(badColor != 0) {
+				for(int i=0; i < length; i++) {
+					if(colors[chainSquares[i]] == badColor && sudoku.exclude(chainSquares[i], value)) {
+						if(DEBUG) {
+							System.out.println("[" + getClass() + ".colorValue(); " + value + " excluded from square #" + chainSquares[i] + ", its color sees itself]");
+						}
+						changed = true;
+					}
+				}
+			}
+		}
+		if(chains == 0) {
+			return changed;
+		}
+
+		int color;
+		for(int square=0; square < colors.length; square++) {
+			if(!SudokuBits.contains(candidates[square], value)) {
+				continue;
+			}
+			stamp++;
+			for(int j=0; j < geometry.NUMBER_OF_PEERS; j++) {
+				color = colors[geometry.peer(square, j)];
+				//squares of its own chain are handled above
+				if(color == 0 || (colors[square] != 0 && (color - 1) / 2 == (colors[square] - 1) / 2)) {
+					continue;
+				}
+				seen[color] = stamp;
+				if(seen[opposite(color)] == stamp) {
+					if(sudoku.exclude(square, value)) {
+						if(DEBUG) {
+							System.out.println("[" + getClass() + ".colorValue(); " + value + " excluded from square #" + square + ", it sees both colors]");
+						}
+						changed = true;
+					}
+					break;
+				}
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Colors the squares linked to the given one, alternating colors along each link, into chainSquares.
+	 * @param color The color of the given square.
+	 * @return The number of squares in the chain, including the given one.
+	 */
+	private int colorChain(Sudoku sudoku, SudokuGeometry geometry, long[][] candidates, int value, int square, int color) {
+		int head = 0;
+		int tail = 0;
+		int current;
+		int other;
+
+		colors[square] = color;
+		chainSquares[tail++] = square;
+		while(head < tail) {
+			current = chainSquares[head++];
+			for(int k=0; k < 3; k++) {
+				other = sudoku.getLinkedSquare(unitOf(geometry, current, k), value, current);
+				//a link to a square that can't hold the value anymore is waiting for the solver to set the other
+				if(other >= 0 && colors[other] == 0 && SudokuBits.contains(candidates[other], value)) {
+					colors[other] = opposite(colors[current]);
+					chainSquares[tail++] = other;
+				}
+			}
+		}
+		return tail;
+	}
+
+	/**
+	 * @param k 0 for the row of the square, 1 for its column, 2 for its block.
+	 */
+	private static int unitOf(SudokuGeometry geometry, int square, int k) {
+		switch(k) {
+			case 0:
+				return geometry.rowUnit(geometry.rowOf(square));
+			case 1:
+				return geometry.columnUnit(geometry.columnOf(square));
+			default:
+				return geometry.blockUnit(geometry.blockOf(square));
+		}
+	}
+
+	private static int opposite(int color) {
+		return color % 2 == 1 ? color + 1 : color - 1;
+	}
+
+	private void prepare(SudokuGeometry geometry) {
+		if(colors != null && colors.length == geometry.SUDOKU_NUMBER_OF_SQUARES) {
+			return;
+		}
+		colors = new int[geometry.SUDOKU_NUMBER_OF_SQUARES];
+		chainSquares = new int[geometry.SUDOKU_NUMBER_OF_SQUARES];
+		//every chain holds at least two squares
+		seen = new int[geometry.SUDOKU_NUMBER_OF_SQUARES + 3];
+		stamp = 0;
+	}
+}
@@ -0,0 +1,424 @@
+/**
+ * Solves a square Sudoku of any scale as an exact cover problem, using Dancing Links (Knuth's Algorithm X).
+ *
+ * Each of the (n^2)^3 candidates (a value in a square) is a row in the matrix, covering 4 constraints:
+ * the square holds a value, and the row, column and block each hold the value once.
+ * The whole matrix is built once per solver, in flat int arrays, so no node objects are allocated.
+ * Givens are covered before each search and uncovered afterwards, so one solver can be reused for any number of puzzles
+ * of the same size.
+ *
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+public class SudokuDLXSolver {
+
+	private static final boolean DEBUG = false;
+
+	public final int SUDOKU_BLOCK_LENGTH;
+	public final int SUDOKU_SIDE_LENGTH;
+	public final int SUDOKU_NUMBER_OF_SQUARES;
+
+	private static final int ROOT = 0;
+
+	//nodes, starting with the root, then a header for each column, then 4 per candidate row
+	private int[] left;
+	private int[] right;
+	private int[] up;
+	private int[] down;
+	private int[] column; //column header of each node
+	private int[] candidate; //candidate row of each node (square * SUDOKU_SIDE_LENGTH + value - 1)
+	private int[] size; //count of nodes in each column, by header
+	private int[] firstNode; //first node of each candidate row
+
+	//search state, one entry per level
+	private int[] levelColumn;
+	private int[] levelChoice;
+	private int[] givenRows;
+	private int givenCount;
+
+	private int[] solution;
+	private long nodesVisited;
+	private long backtracks;
+
+	//stopping from outside, looked at every STOP_CHECK_INTERVAL nodes (See setCancellation() and setDeadline())
+	private static final int STOP_CHECK_INTERVAL = 1024;
+	private SudokuCancellation cancellation;
+	private boolean hasDeadline;
+	private long deadline;
+	private boolean stopped;
+
+	/**
+	 * Builds the exact cover matrix for a Sudoku with the given side length.
+	 * @param sudokuSideLength The side length of the Sudoku to solve (ie: 9 for a 9x9 Sudoku)
+	 * @throws SudokuException If the side length isn't a square.
+	 */
+	public SudokuDLXSolver(int sudokuSideLength) throws SudokuException{
+		SUDOKU_SIDE_LENGTH = sudokuSideLength;
+		SUDOKU_BLOCK_LENGTH = (int)Math.sqrt(SUDOKU_SIDE_LENGTH);
+		SUDOKU_NUMBER_OF_SQUARES = SUDOKU_SIDE_LENGTH*SUDOKU_SIDE_LENGTH;
+
+		if(SUDOKU_SIDE_LENGTH != SUDOKU_BLOCK_LENGTH*SUDOKU_BLOCK_LENGTH || SUDOKU_SIDE_LENGTH < 1) {
+			throw new SudokuException("Sudoku is not square, and does not apply to this implementation. (side length = " + SUDOKU_SIDE_LENGTH + ")");
+		}
+
+		buildMatrix();
+
+		levelColumn = new int[SUDOKU_NUMBER_OF_SQUARES];
+		levelChoice = new int[SUDOKU_NUMBER_OF_SQUARES];
+		givenRows = new int[SUDOKU_NUMBER_OF_SQUARES];
+		solution = new int[SUDOKU_NUMBER_OF_SQUARES];
+	}
+
+	private void buildMatrix(){
+		int columns = 4 * SUDOKU_NUMBER_OF_SQUARES;
+		int candidates = SUDOKU_NUMBER_OF_SQUARES * SUDOKU_SIDE_LENGTH;
+		int nodes = 1 + columns + 4 * candidates;
+
+		left = new int[nodes];
+		right = new int[nodes];
+		up = new int[nodes];
+		down = new int[nodes];
+		column = new int[nodes];
+		candidate = new int[nodes];
+		size = new int[1 + columns];
+		firstNode = new int[candidates];
+
+		//root and headers in a ring
+		for(int header=0; header <= columns; header++) {
+			left[header] = header == 0 ? columns : header - 1;
+			right[header] = header == columns ? 0 : header + 1;
+			up[header] = header;
+			down[header] = header;
+			column[header] = header;
+			candidate[header] = -1;
+		}
+
+		int node = columns + 1;
+		int row;
+		int col;
+		int block;
+		int[] constraints = new int[4];
+		for(int square=0; square < SUDOKU_NUMBER_OF_SQUARES; square++) {
+			row = square / SUDOKU_SIDE_LENGTH;
+			col = square % SUDOKU_SIDE_LENGTH;
+			block = (row / SUDOKU_BLOCK_LENGTH) * SUDOKU_BLOCK_LENGTH + col / SUDOKU_BLOCK_LENGTH;
+			for(int value=0; value < SUDOKU_SIDE_LENGTH; value++) {
+				constraints[0] = 1 + square;
+				constraints[1] = 1 + SUDOKU_NUMBER_OF_SQUARES + row * SUDOKU_SIDE_LENGTH + value;
+				constraints[2] = 1 + 2 * SUDOKU_NUMBER_OF_SQUARES + col * SUDOKU_SIDE_LENGTH + value;
+				constraints[3] = 1 + 3 * SUDOKU_NUMBER_OF_SQUARES + block * SUDOKU_SIDE_LENGTH + value;
+
+				firstNode[square * SUDOKU_SIDE_LENGTH + value] = node;
+				for(int i=0; i<4; i++) {
+					int header = constraints[i];
+					//row ring
+					left[node + i] = node + (i + 3) % 4;
+					right[node + i] = node + (i + 1) % 4;
+					//append to the bottom of the column
+					up[node + i] = up[header];
+					down[node + i] = header;
+					down[up[header]] = node + i;
+					up[header] = node + i;
+					column[node + i] = header;
+					candidate[node + i] = square * SUDOKU_SIDE_LENGTH + value;
+					size[header]++;
+				}
+				node += 4;
+			}
+		}
+	}
+
+	private void cover(int header){
+		right[left[header]] = right[header];
+		left[right[header]] = left[header];
+		for(int i = down[header]; i != header; i = down[i]) {
+			for(int j = right[i]; j != i; j = right[j]) {
+				up[down[j]] = up[j];
+				down[up[j]] = down[j];
+				size[column[j]]--;
+			}
+		}
+	}
+
+	private void uncover(int header){
+		for(int i = up[header]; i != header; i = up[i]) {
+			for(int j = left[i]; j != i; j = left[j]) {
+				size[column[j]]++;
+				up[down[j]] = j;
+				down[up[j]] = j;
+			}
+		}
+		right[left[header]] = header;
+		left[right[header]] = header;
+	}
+
+	/**
+	 * Covers the columns of every other node in the row of the given node.
+	 */
+	private void select(int node){
+		for(int j = right[node]; j != node; j = right[j]) {
+			cover(column[j]);
+		}
+	}
+
+	private void unselect(int node){
+		for(int j = left[node]; j != node; j = left[j]) {
+			uncover(column[j]);
+		}
+	}
+
+	private boolean isCovered(int header){
+		return right[left[header]] != header;
+	}
+
+	/**
+	 * @return The uncovered column with the fewest nodes, or ROOT if every column is covered.
+	 */
+	private int chooseColumn(){
+		int best = ROOT;
+		int bestSize = Integer.MAX_VALUE;
+		for(int header = right[ROOT]; header != ROOT && bestSize > 1; header = right[header]) {
+			if(size[header] < bestSize) {
+				bestSize = size[header];
+				best = header;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Covers the rows for each given value.
+	 * @return False if the givens conflict with each other or are out of scope. Whatever was covered is still covered.
+	 */
+	private boolean enterGivens(int[] values){
+		int value;
+		int node;
+		givenCount = 0;
+		for(int square=0; square < SUDOKU_NUMBER_OF_SQUARES; square++) {
+			value = values[square];
+			solution[square] = value;
+			if(value == 0) {
+				continue;
+			}
+			if(value < 0 || value > SUDOKU_SIDE_LENGTH) {
+				return false;
+			}
+			node = firstNode[square * SUDOKU_SIDE_LENGTH + value - 1];
+			for(int i=0; i<4; i++) {
+				if(isCovered(column[node + i])) {
+					return false;
+				}
+			}
+			cover(column[node]);
+			select(node);
+			givenRows[givenCount++] = node;
+		}
+		return true;
+	}
+
+	/**
+	 * Uncovers the givens in reverse order, returning the matrix to its original state.
+	 */
+	private void removeGivens(){
+		int node;
+		while(givenCount > 0) {
+			node = givenRows[--givenCount];
+			unselect(node);
+			uncover(column[node]);
+		}
+	}
+
+	/**
+	 * Runs Algorithm X on the matrix as it is, without recursion.
+	 * The first solution found is written to solution[].
+	 * @param limit Stops after this many solutions are found.
+	 * @return The number of solutions found, up to the limit.
+	 */
+	private long search(long limit){
+		long found = 0;
+		int level = 0;
+		int node;
+		int header;
+
+		if(right[ROOT] == ROOT) {
+			return 1;
+		}
+		header = chooseColumn();
+		cover(header);
+		levelColumn[0] = header;
+		levelChoice[0] = down[header];
+
+		while(level >= 0) {
+			node = levelChoice[level];
+			if(node == levelColumn[level]) {
+				//every row in this column has been tried
+				uncover(levelColumn[level]);
+				level--;
+				if(level >= 0) {
+					unselect(levelChoice[level]);
+					levelChoice[level] = down[levelChoice[level]];
+				}
+				continue;
+			}
+
+			select(node);
+			nodesVisited++;
+			if(right[ROOT] == ROOT) {
+				if(found == 0) {
+					for(int i=0; i<=level; i++) {
+						solution[candidate[levelChoice[i]] / SUDOKU_SIDE_LENGTH] = candidate[levelChoice[i]] % SUDOKU_SIDE_LENGTH + 1;
+					}
+				}
+				found++;
+				if(found >= limit) {
+					//unwind back to the givens
+					for(; level >= 0; level--) {
+						unselect(levelChoice[level]);
+						uncover(levelColumn[level]);
+					}
+					break;
+				}
+				unselect(node);
+				levelChoice[level] = down[node];
+				continue;
+			}
+
+			if((nodesVisited & (STOP_CHECK_INTERVAL - 1)) == 0 && shouldStop()) {
+				stopped = true;
+				for(; level >= 0; level--) {
+					unselect(levelChoice[level]);
+					uncover(levelColumn[level]);
+				}
+				break;
+			}
+
+			header = chooseColumn();
+			if(size[header] == 0) {
+				backtracks++;
+				unselect(node);
+				levelChoice[level] = down[node];
+				continue;
+			}
+			level++;
+			cover(header);
+			levelColumn[level] = header;
+			levelChoice[level] = down[header];
+		}
+
+		if(DEBUG) {
+			System.out.println("[" + getClass() + ".search(); found " + found + ", nodes " + nodesVisited + ", backtracks " + backtracks + "]");
+		}
+		return found;
+	}
+
+	/**
+	 * Solves the given values.
+	 * @param values The values of each square, as given to a Sudoku. (0 for empty squares)
+	 * @param solvedValues Filled with the solution, if one is found. Must hold SUDOKU_NUMBER_OF_SQUARES ints.
+	 * @return True if a solution was found.
+	 */
+	public boolean solve(int[] values, int[] solvedValues){
+		boolean solved = false;
+		stopped = false;
+		if(enterGivens(values)) {
+			solved = search(1) > 0;
+		}
+		removeGivens();
+		if(solved) {
+			System.arraycopy(solution, 0, solvedValues, 0, SUDOKU_NUMBER_OF_SQUARES);
+		}
+		return solved;
+	}
+
+	/**
+	 * Counts the solutions of the given values, stopping early once the limit is reached.
+	 * A limit of 2 is enough to tell if a puzzle has a unique solution.
+	 * @param values The values of each square, as given to a Sudoku. (0 for empty squares)
+	 * @param limit The max number of solutions to count.
+	 * @return The number of solutions, up to the limit. 0 if the givens conflict.
+	 */
+	public long countSolutions(int[] values, long limit){
+		long found = 0;
+		stopped = false;
+		if(enterGivens(values)) {
+			found = search(limit);
+		}
+		removeGivens();
+		return found;
+	}
+
+	/**
+	 * Solves a copy of the given Sudoku.
+	 * @param puzzle The puzzle to solve. It is not modified.
+	 * @return A solved Sudoku, or a copy of the puzzle if it has no solution.
+	 * @throws SudokuException If the puzzle is not the size this solver was built for.
+	 */
+	public Sudoku solve(Sudoku puzzle) throws SudokuException{
+		if(puzzle.SUDOKU_NUMBER_OF_SQUARES != SUDOKU_NUMBER_OF_SQUARES) {
+			throw new SudokuException("Puzzle of " + puzzle.SUDOKU_SIDE_LENGTH + "x" + puzzle.SUDOKU_SIDE_LENGTH
+					+ " given to a solver for " + SUDOKU_SIDE_LENGTH + "x" + SUDOKU_SIDE_LENGTH + ".");
+		}
+		int[] values = puzzle.getValues();
+		int[] solvedValues = new int[SUDOKU_NUMBER_OF_SQUARES];
+		if(solve(values, solvedValues)) {
+			return new Sudoku(solvedValues, SUDOKU_SIDE_LENGTH);
+		}
+		return new Sudoku(values, SUDOKU_SIDE_LENGTH);
+	}
+
+	/**
+	 * @return Number of rows tried across every search run by this solver.
+	 */
+	public long getNodesVisited() {
+		return nodesVisited;
+	}
+
+	/**
+	 * @return Number of times a search ran into a constraint that could no longer be covered.
+	 */
+	public long getBacktracks() {
+		return backtracks;
+	}
+
+	private boolean shouldStop(){
+		return (hasDeadline && System.nanoTime() - deadline >= 0) || (cancellation != null && cancellation.shouldStop());
+	}
+
+	/**
+	 * @param cancellation A token that stops the search once cancelled or past its deadline, or null for none.
+	 */
+	public void setCancellation(SudokuCancellation cancellation) {
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Stops any search still going at the deadline. The search only looks at the clock every so often, so it can go a
+	 * little past it.
+	 * @param deadline As a value of System.nanoTime().
+	 */
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
+		hasDeadline = true;
+	}
+
+	public void clearDeadline() {
+		hasDeadline = false;
+	}
+
+	/**
+	 * @return True if the last search was stopped by the deadline or cancellation before it finished. Whatever it
+	 *  returned only covers the part of the search done before then.
+	 */
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	public void resetTelemetry() {
+		nodesVisited = 0;
+		backtracks = 0;
+	}
+}
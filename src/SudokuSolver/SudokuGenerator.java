@@ -0,0 +1,478 @@
+/**
+ * Generates Sudoku puzzles with a unique solution, at any scale, for --generate.
+ *
+ * Each puzzle starts as a random filled grid: the blocks on the diagonal are filled with shuffled values (they share no
+ * row or column, so any fill is valid), the rest is completed by a SudokuDLXSolver, then the bands, stacks, and the rows
+ * and columns within them are shuffled. Clues are then removed in a random order, in groups that keep the pattern
+ * symmetric, as long as the puzzle keeps a unique solution and SudokuSolver doesn't need more than the target difficulty
+ * to finish it. Once every group has been tried, no clue can be removed without breaking one of those, so the puzzle is
+ * minimal for its pattern.
+ *
+ * Difficulty is rated by what SudokuSolver needs to finish the puzzle:
+ * DIFFICULTY_SINGLES: Every value is found by being the only place left for it in a block, row or column.
+ * DIFFICULTY_PAIRS: XOR conditions (a value with only two places left in a block, row or column) or the techniques of
+ * 	the solver (subsets, pointing pairs, X-wings, coloring) are needed.
+ * DIFFICULTY_SEARCH: Deduction halts, and the solver has to guess.
+ *
+ * Each puzzle is generated from its own seed, worked out from the seed of the generator and the index of the puzzle,
+ * so a batch holds the same puzzles whatever the number of threads it's generated on.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class SudokuGenerator {
+
+	private static final boolean DEBUG = false;
+
+	//difficulties, in the order SudokuSolver needs them
+	public static final int DIFFICULTY_ANY = -1; //skips rating, only keeps the solution unique
+	public static final int DIFFICULTY_SINGLES = 0;
+	public static final int DIFFICULTY_PAIRS = 1;
+	public static final int DIFFICULTY_SEARCH = 2;
+
+	//patterns clues are removed in
+	public static final int SYMMETRY_NONE = 0;
+	public static final int SYMMETRY_ROTATIONAL = 1; //half a turn around the center
+	public static final int SYMMETRY_MIRROR = 2; //left to right
+
+	//grids tried for one puzzle before settling for the closest difficulty
+	private static final int MAX_ATTEMPTS = 20;
+	//puzzles handed to a worker at once
+	private static final int CHUNK_SIZE = 16;
+	//chunks allowed in flight per thread, to keep the output in order without holding the whole batch
+	private static final int CHUNKS_PER_THREAD = 4;
+	//spreads consecutive puzzle indexes across the seed space
+	private static final long SEED_MIX = 0x9E3779B97F4A7C15L;
+
+	public final int SUDOKU_SIDE_LENGTH;
+
+	private final SudokuGeometry geometry;
+	private final long seed;
+	private int difficulty = DIFFICULTY_ANY;
+	private int symmetry = SYMMETRY_NONE;
+
+	private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>();
+
+	//totals of the last batch
+	private long[] difficultyCounts = new long[3];
+	private long puzzlesGenerated;
+	private long cluesGenerated;
+
+	/**
+	 * The state one thread needs to generate puzzles.
+	 */
+	private class Worker {
+		final Random random = new Random();
+		final SudokuDLXSolver dlxSolver;
+		final SudokuSolver solver = new SudokuSolver();
+		final SudokuIODecoder decoder = new SudokuIODecoder(SudokuIODecoder.TYPICAL9X9_ZEROBLANKS);
+		final int[] grid = new int[geometry.SUDOKU_NUMBER_OF_SQUARES];
+		final int[] filled = new int[geometry.SUDOKU_NUMBER_OF_SQUARES];
+		final int[] order = new int[geometry.SUDOKU_NUMBER_OF_SQUARES];
+		final int[] rowOrder = new int[SUDOKU_SIDE_LENGTH];
+		final int[] columnOrder = new int[SUDOKU_SIDE_LENGTH];
+		final int[] bandOrder = new int[geometry.SUDOKU_BLOCK_LENGTH];
+		final int[] lineOrder = new int[geometry.SUDOKU_BLOCK_LENGTH]; //lines within one band
+		final int[] orbit = new int[2];
+
+		Worker() throws SudokuException{
+			dlxSolver = new SudokuDLXSolver(SUDOKU_SIDE_LENGTH);
+		}
+	}
+
+	/**
+	 * The puzzles of one chunk, and their totals until merged.
+	 */
+	private static class Chunk {
+		long firstIndex;
+		int length;
+		long[] difficultyCounts = new long[3];
+		long clues;
+		StringBuilder output = new StringBuilder();
+	}
+
+	/**
+	 * @param sudokuSideLength The side length of the puzzles to generate.
+	 * @param seed The seed every puzzle is worked out from. The same seed gives the same puzzles.
+	 * @throws SudokuException If the side length isn't a square.
+	 */
+	public SudokuGenerator(int sudokuSideLength, long seed) throws SudokuException{
+		geometry = SudokuGeometry.forSideLength(sudokuSideLength);
+		SUDOKU_SIDE_LENGTH = sudokuSideLength;
+		this.seed = seed;
+	}
+
+	/**
+	 * @param difficulty DIFFICULTY_SINGLES, DIFFICULTY_PAIRS or DIFFICULTY_SEARCH to only keep puzzles rated as such,
+	 * or DIFFICULTY_ANY to skip rating.
+	 */
+	public void setDifficulty(int difficulty) {
+		this.difficulty = difficulty;
+	}
+
+	public int getDifficulty() {
+		return difficulty;
+	}
+
+	/**
+	 * @param symmetry SYMMETRY_NONE, SYMMETRY_ROTATIONAL or SYMMETRY_MIRROR.
+	 */
+	public void setSymmetry(int symmetry) {
+		this.symmetry = symmetry;
+	}
+
+	public int getSymmetry() {
+		return symmetry;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Generates one puzzle. The same index always gives the same puzzle for the seed and settings of this generator.
+	 * If no grid reaches the target difficulty within MAX_ATTEMPTS, the hardest puzzle found is kept.
+	 * @param index Which puzzle of the seed to generate.
+	 * @param puzzle Filled with the values of the puzzle. (0 for empty squares) Must hold SUDOKU_SIDE_LENGTH^2 ints.
+	 * @param solution Filled with the solution of the puzzle. Must hold SUDOKU_SIDE_LENGTH^2 ints.
+	 * @return The difficulty of the puzzle, or DIFFICULTY_ANY if it wasn't rated.
+	 */
+	public int generate(long index, int[] puzzle, int[] solution) {
+		Worker worker = getWorker();
+		int rating = DIFFICULTY_ANY;
+		int bestRating = DIFFICULTY_ANY;
+
+		worker.random.setSeed(seed ^ (index * SEED_MIX));
+		for(int attempt=0; attempt < MAX_ATTEMPTS; attempt++) {
+			fillGrid(worker);
+			System.arraycopy(worker.filled, 0, worker.grid, 0, worker.grid.length);
+			removeClues(worker);
+			if(difficulty != DIFFICULTY_ANY) {
+				rating = rate(worker, worker.grid);
+			}
+			if(DEBUG) {
+				System.out.println("[" + getClass() + ".generate(); puzzle " + index + ", attempt " + attempt + " rated " + rating + "]");
+			}
+			if(attempt == 0 || rating > bestRating) {
+				bestRating = rating;
+				System.arraycopy(worker.grid, 0, puzzle, 0, puzzle.length);
+				System.arraycopy(worker.filled, 0, solution, 0, solution.length);
+			}
+			if(rating >= difficulty) {
+				break;
+			}
+		}
+		return bestRating;
+	}
+
+	/**
+	 * Generates puzzles 0 to count-1 of the seed, writing each as a "puzzle,solution" line, in the form --csv-test reads.
+	 * The lines are written in order of index, whatever the number of threads.
+	 * @param count The number of puzzles to generate.
+	 * @param threads The number of worker threads.
+	 * @param decoder The decoder the puzzles are written with. Its blank is written for empty squares.
+	 * @param out Where the lines are written.
+	 * @throws IOException If out can't be written to, or a worker failed.
+	 */
+	public void generateBatch(long count, int threads, SudokuIODecoder decoder, Appendable out) throws IOException{
+		ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+		ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<Future<Chunk>>();
+		Chunk chunk;
+
+		Arrays.fill(difficultyCounts, 0);
+		puzzlesGenerated = 0;
+		cluesGenerated = 0;
+		try {
+			for(long first=0; first < count; first += CHUNK_SIZE) {
+				chunk = new Chunk();
+				chunk.firstIndex = first;
+				chunk.length = (int)Math.min(CHUNK_SIZE, count - first);
+				submit(pool, inFlight, chunk, decoder);
+				while(inFlight.size() >= Math.max(1, threads) * CHUNKS_PER_THREAD) {
+					merge(inFlight.poll(), out);
+				}
+			}
+			while(!inFlight.isEmpty()) {
+				merge(inFlight.poll(), out);
+			}
+		}finally {
+			pool.shutdown();
+		}
+	}
+
+	private void submit(ForkJoinPool pool, ArrayDeque<Future<Chunk>> inFlight, final Chunk chunk, final SudokuIODecoder decoder) {
+		inFlight.add(pool.submit(() -> {
+			int[] puzzle = new int[geometry.SUDOKU_NUMBER_OF_SQUARES];
+			int[] solution = new int[geometry.SUDOKU_NUMBER_OF_SQUARES];
+			int rating;
+			for(int i=0; i<chunk.length; i++) {
+				rating = generate(chunk.firstIndex + i, puzzle, solution);
+				if(rating != DIFFICULTY_ANY) {
+					chunk.difficultyCounts[rating]++;
+				}
+				for(int square=0; square < puzzle.length; square++) {
+					if(puzzle[square] != 0) {
+						chunk.clues++;
+					}
+					chunk.output.append(decoder.printChar(puzzle[square]));
+				}
+				chunk.output.append(',');
+				for(int square=0; square < solution.length; square++) {
+					chunk.output.append(decoder.printChar(solution[square]));
+				}
+				chunk.output.append('\n');
+			}
+			return chunk;
+		}));
+	}
+
+	/**
+	 * Waits for the chunk, then writes its lines and adds its totals.
+	 */
+	private void merge(Future<Chunk> future, Appendable out) throws IOException{
+		Chunk chunk;
+		try {
+			chunk = future.get();
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for puzzles to be generated.");
+		}catch(ExecutionException e) {
+			throw new IOException("A worker failed: " + e.getCause());
+		}
+		out.append(chunk.output);
+		for(int i=0; i<difficultyCounts.length; i++) {
+			difficultyCounts[i] += chunk.difficultyCounts[i];
+		}
+		puzzlesGenerated += chunk.length;
+		cluesGenerated += chunk.clues;
+	}
+
+	/**
+	 * @return Number of puzzles of the last batch rated DIFFICULTY_SINGLES, DIFFICULTY_PAIRS and DIFFICULTY_SEARCH.
+	 */
+	public long[] getDifficultyCounts() {
+		return difficultyCounts.clone();
+	}
+
+	public long getPuzzlesGenerated() {
+		return puzzlesGenerated;
+	}
+
+	/**
+	 * @return Number of clues across every puzzle of the last batch.
+	 */
+	public long getCluesGenerated() {
+		return cluesGenerated;
+	}
+
+	public static String getDifficultyName(int difficulty) {
+		switch(difficulty) {
+			case DIFFICULTY_SINGLES:
+				return "singles";
+			case DIFFICULTY_PAIRS:
+				return "pairs";
+			case DIFFICULTY_SEARCH:
+				return "search";
+			default:
+				return "any";
+		}
+	}
+
+	/**
+	 * Rates how much of SudokuSolver a puzzle needs, by solving it with less and less held back.
+	 * @param values The values of the puzzle. (0 for empty squares)
+	 * @return DIFFICULTY_SINGLES, DIFFICULTY_PAIRS or DIFFICULTY_SEARCH.
+	 */
+	public int rate(int[] values) {
+		return rate(getWorker(), values);
+	}
+
+	private int rate(Worker worker, int[] values) {
+		if(solvesDeductively(worker, values, false)) {
+			return DIFFICULTY_SINGLES;
+		}else if(solvesDeductively(worker, values, true)) {
+			return DIFFICULTY_PAIRS;
+		}
+		return DIFFICULTY_SEARCH;
+	}
+
+	private Worker getWorker() {
+		Worker worker = workers.get();
+		if(worker == null) {
+			try {
+				worker = new Worker();
+			}catch(SudokuException e) {
+				//the size was already checked by the geometry
+				throw new IllegalStateException(e.getMessage());
+			}
+			workers.set(worker);
+		}
+		return worker;
+	}
+
+	/**
+	 * Fills worker.filled with a random solved grid.
+	 */
+	private void fillGrid(Worker worker) {
+		int blockLength = geometry.SUDOKU_BLOCK_LENGTH;
+		int[] grid = worker.grid;
+		int[] order = worker.order;
+		int block;
+
+		Arrays.fill(grid, 0);
+		for(int i=0; i < blockLength; i++) {
+			block = i * blockLength + i;
+			shuffle(worker.random, order, SUDOKU_SIDE_LENGTH);
+			for(int position=0; position < SUDOKU_SIDE_LENGTH; position++) {
+				grid[geometry.blockSquare(block, position)] = order[position] + 1;
+			}
+		}
+		//the diagonal blocks can always be completed, so this always finds a solution
+		worker.dlxSolver.solve(grid, order);
+
+		//the solver always completes the same way, so the grid is shuffled in ways that keep it valid
+		shuffleLines(worker, worker.rowOrder);
+		shuffleLines(worker, worker.columnOrder);
+		boolean transpose = worker.random.nextBoolean();
+		for(int row=0; row < SUDOKU_SIDE_LENGTH; row++) {
+			for(int column=0; column < SUDOKU_SIDE_LENGTH; column++) {
+				if(transpose) {
+					worker.filled[row * SUDOKU_SIDE_LENGTH + column] = order[worker.columnOrder[column] * SUDOKU_SIDE_LENGTH + worker.rowOrder[row]];
+				}else {
+					worker.filled[row * SUDOKU_SIDE_LENGTH + column] = order[worker.rowOrder[row] * SUDOKU_SIDE_LENGTH + worker.columnOrder[column]];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fills lineOrder with a random order of rows (or columns) that keeps each band (or stack) together.
+	 */
+	private void shuffleLines(Worker worker, int[] lineOrder) {
+		int blockLength = geometry.SUDOKU_BLOCK_LENGTH;
+		shuffle(worker.random, worker.bandOrder, blockLength);
+		for(int band=0; band < blockLength; band++) {
+			shuffle(worker.random, worker.lineOrder, blockLength);
+			for(int line=0; line < blockLength; line++) {
+				lineOrder[band * blockLength + line] = worker.bandOrder[band] * blockLength + worker.lineOrder[line];
+			}
+		}
+	}
+
+	/**
+	 * Removes clues from worker.grid, in a random order of symmetric groups, while the puzzle stays unique and no harder
+	 * than the target difficulty.
+	 */
+	private void removeClues(Worker worker) {
+		int[] grid = worker.grid;
+		int[] order = worker.order;
+		int[] orbit = worker.orbit;
+		int orbitSize;
+
+		shuffle(worker.random, order, geometry.SUDOKU_NUMBER_OF_SQUARES);
+		for(int i=0; i < order.length; i++) {
+			if(grid[order[i]] == 0) {
+				continue;
+			}
+			orbitSize = orbit(order[i], orbit);
+			for(int j=0; j < orbitSize; j++) {
+				grid[orbit[j]] = 0;
+			}
+			if(!keepsRemoval(worker, grid)) {
+				for(int j=0; j < orbitSize; j++) {
+					grid[orbit[j]] = worker.filled[orbit[j]];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that the puzzle still has a unique solution, and is no harder than the target difficulty.
+	 * Deduction only places values that are forced, so a puzzle it finishes has a unique solution. Most removals are
+	 * settled that way, and the far slower count of solutions is only needed once deduction halts. Up to DIFFICULTY_PAIRS
+	 * it's never needed, as a puzzle that deduction halts on needs a search, which is too hard anyway.
+	 */
+	private boolean keepsRemoval(Worker worker, int[] grid) {
+		if(solvesDeductively(worker, grid, false)) {
+			return true;
+		}else if(difficulty == DIFFICULTY_SINGLES) {
+			return false;
+		}else if(difficulty == DIFFICULTY_PAIRS) {
+			return solvesDeductively(worker, grid, true);
+		}
+		return worker.dlxSolver.countSolutions(grid, 2) == 1;
+	}
+
+	/**
+	 * @param fullDeduction False to only let the solver place values that have a single place left in their block, row or
+	 *  column, without XOR conditions or techniques.
+	 * @return True if SudokuSolver finishes the puzzle without guessing.
+	 */
+	private boolean solvesDeductively(Worker worker, int[] values, boolean fullDeduction) {
+		SudokuSolver solver = worker.solver;
+		try {
+			solver.setXORsEnabled(fullDeduction);
+			solver.setTechniquesEnabled(fullDeduction);
+			solver.enterSudoku(values, SUDOKU_SIDE_LENGTH, worker.decoder);
+			solver.solveFull();
+			return solver.validate() == 0;
+		}catch(SudokuException e) {
+			//deduction ran into a contradiction, so it didn't finish
+			return false;
+		}
+	}
+
+	/**
+	 * Finds the squares that have to be emptied along with the given one to keep the pattern symmetric.
+	 * @param square The square being emptied.
+	 * @param orbit Filled with the square and its reflections.
+	 * @return The number of squares in the orbit.
+	 */
+	private int orbit(int square, int[] orbit) {
+		int reflection;
+		orbit[0] = square;
+		switch(symmetry) {
+			case SYMMETRY_ROTATIONAL:
+				reflection = geometry.SUDOKU_NUMBER_OF_SQUARES - 1 - square;
+				break;
+			case SYMMETRY_MIRROR:
+				reflection = geometry.rowOf(square) * SUDOKU_SIDE_LENGTH + SUDOKU_SIDE_LENGTH - 1 - geometry.columnOf(square);
+				break;
+			default:
+				return 1;
+		}
+		if(reflection == square) {
+			return 1;
+		}
+		orbit[1] = reflection;
+		return 2;
+	}
+
+	/**
+	 * Fills the first length entries of values with 0 to length-1, in a random order. (Fisher-Yates)
+	 */
+	private static void shuffle(Random random, int[] values, int length) {
+		int j;
+		int swap;
+		for(int i=0; i < length; i++) {
+			values[i] = i;
+		}
+		for(int i=length - 1; i > 0; i--) {
+			j = random.nextInt(i + 1);
+			swap = values[i];
+			values[i] = values[j];
+			values[j] = swap;
+		}
+	}
+}
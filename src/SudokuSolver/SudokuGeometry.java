@@ -0,0 +1,150 @@
+/**
+ * Lookup tables describing the layout of a Sudoku of one scale: which row, column and block each square belongs to,
+ * the squares of each row/column/block (units), and the peers of each square (squares sharing a unit with it).
+ * The tables are built once per scale and shared by every Sudoku of that scale. They are never modified after
+ * construction, so they are safe to share between threads.
+ *
+ * Units are numbered with the rows first (0 to side-1), then the columns (side to 2*side-1), then the blocks
+ * (2*side to 3*side-1). Blocks and the positions inside them are numbered as in Sudoku.blockSquareIndex().
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SudokuGeometry {
+
+	private static final ConcurrentHashMap<Integer, SudokuGeometry> geometries = new ConcurrentHashMap<Integer, SudokuGeometry>();
+
+	public final int SUDOKU_BLOCK_LENGTH;
+	public final int SUDOKU_SIDE_LENGTH;
+	public final int SUDOKU_NUMBER_OF_SQUARES;
+	public final int NUMBER_OF_UNITS;
+	public final int NUMBER_OF_PEERS;
+
+	private final int[] rowOf;
+	private final int[] columnOf;
+	private final int[] blockOf;
+	private final int[] unitSquares; //unit * SUDOKU_SIDE_LENGTH + i
+	private final int[] peers; //square * NUMBER_OF_PEERS + i
+
+	/**
+	 * Gets the shared geometry for a Sudoku with the given side length, building it the first time it's asked for.
+	 * @param sudokuSideLength The side length of the Sudoku (ie: 9 for a 9x9 Sudoku)
+	 * @return The geometry for that side length.
+	 * @throws SudokuException If the side length isn't a square.
+	 */
+	public static SudokuGeometry forSideLength(int sudokuSideLength) throws SudokuException{
+		SudokuGeometry geometry = geometries.get(sudokuSideLength);
+		if(geometry == null) {
+			int blockLength = (int)Math.sqrt(sudokuSideLength);
+			if(sudokuSideLength < 1 || blockLength*blockLength != sudokuSideLength) {
+				throw new SudokuException("Sudoku is not square, and does not apply to this implementation. (side length = " + sudokuSideLength + ")");
+			}
+			geometry = new SudokuGeometry(blockLength);
+			SudokuGeometry existing = geometries.putIfAbsent(sudokuSideLength, geometry);
+			if(existing != null) {
+				geometry = existing;
+			}
+		}
+		return geometry;
+	}
+
+	private SudokuGeometry(int blockLength){
+		SUDOKU_BLOCK_LENGTH = blockLength;
+		SUDOKU_SIDE_LENGTH = blockLength * blockLength;
+		SUDOKU_NUMBER_OF_SQUARES = SUDOKU_SIDE_LENGTH * SUDOKU_SIDE_LENGTH;
+		NUMBER_OF_UNITS = 3 * SUDOKU_SIDE_LENGTH;
+		NUMBER_OF_PEERS = 3 * (SUDOKU_SIDE_LENGTH - 1) - 2 * (SUDOKU_BLOCK_LENGTH - 1);
+
+		rowOf = new int[SUDOKU_NUMBER_OF_SQUARES];
+		columnOf = new int[SUDOKU_NUMBER_OF_SQUARES];
+		blockOf = new int[SUDOKU_NUMBER_OF_SQUARES];
+		unitSquares = new int[NUMBER_OF_UNITS * SUDOKU_SIDE_LENGTH];
+		peers = new int[SUDOKU_NUMBER_OF_SQUARES * NUMBER_OF_PEERS];
+
+		int square;
+		for(int row=0; row < SUDOKU_SIDE_LENGTH; row++) {
+			for(int column=0; column < SUDOKU_SIDE_LENGTH; column++) {
+				square = row * SUDOKU_SIDE_LENGTH + column;
+				rowOf[square] = row;
+				columnOf[square] = column;
+				blockOf[square] = (row / SUDOKU_BLOCK_LENGTH) * SUDOKU_BLOCK_LENGTH + column / SUDOKU_BLOCK_LENGTH;
+				unitSquares[row * SUDOKU_SIDE_LENGTH + column] = square;
+				unitSquares[(SUDOKU_SIDE_LENGTH + column) * SUDOKU_SIDE_LENGTH + row] = square;
+			}
+		}
+		for(int block=0; block < SUDOKU_SIDE_LENGTH; block++) {
+			for(int position=0; position < SUDOKU_SIDE_LENGTH; position++) {
+				square = (block / SUDOKU_BLOCK_LENGTH * SUDOKU_BLOCK_LENGTH + position / SUDOKU_BLOCK_LENGTH) * SUDOKU_SIDE_LENGTH
+						+ block % SUDOKU_BLOCK_LENGTH * SUDOKU_BLOCK_LENGTH + position % SUDOKU_BLOCK_LENGTH;
+				unitSquares[(2 * SUDOKU_SIDE_LENGTH + block) * SUDOKU_SIDE_LENGTH + position] = square;
+			}
+		}
+
+		int count;
+		for(square=0; square < SUDOKU_NUMBER_OF_SQUARES; square++) {
+			count = 0;
+			for(int other=0; other < SUDOKU_NUMBER_OF_SQUARES; other++) {
+				if(other != square && (rowOf[other] == rowOf[square] || columnOf[other] == columnOf[square] || blockOf[other] == blockOf[square])) {
+					peers[square * NUMBER_OF_PEERS + count++] = other;
+				}
+			}
+		}
+	}
+
+	public int rowOf(int square) {
+		return rowOf[square];
+	}
+
+	public int columnOf(int square) {
+		return columnOf[square];
+	}
+
+	public int blockOf(int square) {
+		return blockOf[square];
+	}
+
+	/**
+	 * Same as Sudoku.blockSquareIndex(), without the arithmetic.
+	 * @param block The block number.
+	 * @param position The position within the block.
+	 * @return The square at that position of the block.
+	 */
+	public int blockSquare(int block, int position) {
+		return unitSquares[(2 * SUDOKU_SIDE_LENGTH + block) * SUDOKU_SIDE_LENGTH + position];
+	}
+
+	public int rowUnit(int row) {
+		return row;
+	}
+
+	public int columnUnit(int column) {
+		return SUDOKU_SIDE_LENGTH + column;
+	}
+
+	public int blockUnit(int block) {
+		return 2 * SUDOKU_SIDE_LENGTH + block;
+	}
+
+	/**
+	 * @param unit The unit, numbered as described for this class.
+	 * @param position The position within the unit (from 0 to SUDOKU_SIDE_LENGTH-1)
+	 * @return The square at that position of the unit.
+	 */
+	public int unitSquare(int unit, int position) {
+		return unitSquares[unit * SUDOKU_SIDE_LENGTH + position];
+	}
+
+	/**
+	 * @param square The square to find peers for.
+	 * @param i Which peer (from 0 to NUMBER_OF_PEERS-1)
+	 * @return The i'th square sharing a row, column or block with the square, in ascending order.
+	 */
+	public int peer(int square, int i) {
+		return peers[square * NUMBER_OF_PEERS + i];
+	}
+}
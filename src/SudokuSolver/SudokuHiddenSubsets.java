@@ -0,0 +1,128 @@
+/**
+ * Finds groups of values in a row, column or block that only have as many places left between them as there are
+ * values. (ie: 3 and 7 can only go in the same two squares of a row, a "hidden pair") Those squares must hold those
+ * values, so every other value is excluded from them.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+public class SudokuHiddenSubsets extends SudokuTechnique {
+
+	private static final boolean DEBUG = false;
+
+	private final int size;
+
+	//scratch, sized for the Sudoku last worked on
+	private int sideLength;
+	private long[][] places; //positions in the unit (as values, from 1) each value can still go in, by value
+	private int[] values; //values of the unit that could be part of a subset
+	private int valueCount;
+	private long[][] unions; //places of the values picked so far, by depth
+	private long[] pickedValues;
+
+	/**
+	 * @param size The number of values in each group. (2 for pairs, 3 for triples...)
+	 */
+	public SudokuHiddenSubsets(int size){
+		super(size == 2 ? "Hidden pair" : size == 3 ? "Hidden triple" : "Hidden subset of " + size);
+		this.size = size;
+	}
+
+	@Override
+	public boolean apply(Sudoku sudoku) throws SudokuException{
+		SudokuGeometry geometry = sudoku.getGeometry();
+		//the table may hold values excluded by this pass, which only makes a subset harder to find
+		long[][] candidates = candidateTable(sudoku);
+		long[] mask;
+		boolean changed = false;
+		int count;
+
+		prepare(sudoku.SUDOKU_SIDE_LENGTH);
+		for(int unit=0; unit < geometry.NUMBER_OF_UNITS; unit++) {
+			for(int value=0; value < sideLength; value++) {
+				SudokuBits.clear(places[value]);
+			}
+			for(int i=0; i < sideLength; i++) {
+				mask = candidates[geometry.unitSquare(unit, i)];
+				for(int value=SudokuBits.first(mask); value > 0; value=SudokuBits.next(mask, value)) {
+					SudokuBits.add(places[value - 1], i + 1);
+				}
+			}
+			valueCount = 0;
+			for(int value=1; value <= sideLength; value++) {
+				count = SudokuBits.count(places[value - 1]);
+				if(count >= 2 && count <= size) {
+					values[valueCount++] = value;
+				}
+			}
+			if(valueCount >= size) {
+				changed |= findSubsets(sudoku, geometry, candidates, unit, 0, 0);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Picks the value for the given depth from those after the last one picked, and goes on until size values are picked.
+	 * @return True if a value was excluded.
+	 */
+	private boolean findSubsets(Sudoku sudoku, SudokuGeometry geometry, long[][] candidates, int unit, int depth, int start) {
+		boolean changed = false;
+		for(int i=start; i <= valueCount - (size - depth); i++) {
+			for(int word=0; word < unions[depth + 1].length; word++) {
+				unions[depth + 1][word] = unions[depth][word] | places[values[i] - 1][word];
+			}
+			if(SudokuBits.count(unions[depth + 1]) > size) {
+				continue;
+			}
+			SudokuBits.add(pickedValues, values[i]);
+			if(depth + 1 < size) {
+				changed |= findSubsets(sudoku, geometry, candidates, unit, depth + 1, i + 1);
+			}else {
+				changed |= excludeOthers(sudoku, geometry, candidates, unit, unions[size]);
+			}
+			SudokuBits.remove(pickedValues, values[i]);
+		}
+		return changed;
+	}
+
+	/**
+	 * Excludes every value that isn't in the subset from the squares the subset has to go in.
+	 */
+	private boolean excludeOthers(Sudoku sudoku, SudokuGeometry geometry, long[][] candidates, int unit, long[] positions) {
+		boolean changed = false;
+		int square;
+		for(int position=SudokuBits.first(positions); position > 0; position=SudokuBits.next(positions, position)) {
+			square = geometry.unitSquare(unit, position - 1);
+			for(int value=SudokuBits.first(candidates[square]); value > 0; value=SudokuBits.next(candidates[square], value)) {
+				if(!SudokuBits.contains(pickedValues, value) && sudoku.exclude(square, value)) {
+					if(DEBUG) {
+						System.out.println("[" + getClass() + ".excludeOthers(); " + value + " excluded from square #" + square + " in unit " + unit + "]");
+					}
+					changed = true;
+				}
+			}
+		}
+		return changed;
+	}
+
+	private void prepare(int sideLength) {
+		if(places != null && this.sideLength == sideLength) {
+			return;
+		}
+		this.sideLength = sideLength;
+		places = new long[sideLength][];
+		for(int i=0; i < sideLength; i++) {
+			places[i] = SudokuBits.newMask(sideLength);
+		}
+		values = new int[sideLength];
+		unions = new long[size + 1][];
+		for(int i=0; i <= size; i++) {
+			unions[i] = SudokuBits.newMask(sideLength);
+		}
+		pickedValues = SudokuBits.newMask(sideLength);
+	}
+}
@@ -0,0 +1,135 @@
+/**
+ * Counts recorded values (ie: solve times in nanoseconds) in buckets whose width grows with the value, the way
+ * HdrHistogram does: every power of two is split into SUB_BUCKETS buckets, so a value is known to within about 3% of
+ * itself whatever its size. Recording is a few shifts and an increment, with nothing allocated, and two histograms
+ * can be added together, so each thread can keep its own and they're merged once a batch is done.
+ * Not thread safe.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.util.Arrays;
+
+public class SudokuHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	//values below 2 * SUB_BUCKETS get a bucket each, then each power of two up to 2^62 gets SUB_BUCKETS of them
+	private static final int NUMBER_OF_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final long[] counts = new long[NUMBER_OF_BUCKETS];
+	private long count;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max;
+
+	/**
+	 * Records a value. Negative values are recorded as 0.
+	 */
+	public void record(long value){
+		if(value < 0) {
+			value = 0;
+		}
+		counts[bucketOf(value)]++;
+		count++;
+		sum += value;
+		if(value < min) {
+			min = value;
+		}
+		if(value > max) {
+			max = value;
+		}
+	}
+
+	/**
+	 * Adds the values recorded by another histogram to this one.
+	 */
+	public void add(SudokuHistogram other){
+		for(int i=0; i < NUMBER_OF_BUCKETS; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	public void reset(){
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	private static int bucketOf(long value){
+		if(value < 2 * SUB_BUCKETS) {
+			return (int)value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int)(value >>> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * @return The highest value that falls in the bucket.
+	 */
+	private static long highestIn(int bucket){
+		if(bucket < 2 * SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * @param percentile From 0 to 100.
+	 * @return A value at least as high as that percentage of the values recorded, and no more than about 3% above the
+	 *  value actually found there. 0 if nothing was recorded.
+	 */
+	public long getValueAtPercentile(double percentile){
+		long target;
+		long seen = 0;
+
+		if(count == 0) {
+			return 0;
+		}
+		target = Math.max(1, (long)Math.ceil(count * Math.min(percentile, 100.0) / 100.0));
+		for(int i=0; i < NUMBER_OF_BUCKETS; i++) {
+			seen += counts[i];
+			if(seen >= target) {
+				return Math.max(min, Math.min(max, highestIn(i)));
+			}
+		}
+		return max;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return The sum of every value recorded.
+	 */
+	public long getSum() {
+		return sum;
+	}
+
+	/**
+	 * @return The lowest value recorded, or 0 if there are none.
+	 */
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return count == 0 ? 0 : (double)sum / count;
+	}
+}
@@ -1,8 +1,9 @@
 /**
  * Enumerates the Sudoku numbers for two-way conversion from characters to integers, for use in the SudokuSolver, then back to characters for printing.
+ * Characters are decoded through a table built from the reference, so decoding doesn't search the reference.
  * @author drbob132
- * @version 0.1
- * @date 04/12/2018
+ * @version 0.2
+ * @date 10/18/2026
 */
 
 package SudokuSolver;
@@ -13,9 +14,21 @@ public class SudokuIODecoder {
 	public static final String TYPICAL9X9_SPACEBLANKS = " 123456789";
 	public static final String TYPICAL16X16_SPACEBLANKS_STARTATZERO = " 0123456789ABCDEF";
 	public static final String TYPICAL16X16_SPACEBLANKS_STARTATONE = " 123456789ABCDEFG";
+	public static final String TYPICAL16X16_ZEROBLANKS_STARTATONE = "0123456789ABCDEFG";
+	public static final String TYPICAL25X25_SPACEBLANKS_STARTATONE = " 123456789ABCDEFGHIJKLMNOP";
+	public static final String TYPICAL25X25_ZEROBLANKS_STARTATONE = "0123456789ABCDEFGHIJKLMNOP";
+	//the encodings detect() picks from, in order of preference when a sample fits more than one equally well
+	private static final String[] TYPICAL_ENCODINGS = {TYPICAL9X9_ZEROBLANKS, TYPICAL9X9_SPACEBLANKS, 
+			TYPICAL16X16_SPACEBLANKS_STARTATONE, TYPICAL16X16_ZEROBLANKS_STARTATONE, TYPICAL16X16_SPACEBLANKS_STARTATZERO, 
+			TYPICAL25X25_SPACEBLANKS_STARTATONE, TYPICAL25X25_ZEROBLANKS_STARTATONE};
+	//the table always covers ASCII, so bytes can be looked up without a bounds check
+	private static final int MIN_TABLE_SIZE = 128;
+	
 	private char delimiter;
 	private String index;
 	private boolean useDelimiter;
+	private int[] charValues; //value of each character up to the largest one in the index, or -1 when it isn't in the index
+	private char[] valueChars; //character of each value, for printing
 	
 	/**
 	 * Initializes a Decoder/encoder module for converting between integers used in SudokuSolver and characters used to represent those integers.
@@ -30,18 +43,81 @@ public class SudokuIODecoder {
 		index = reference;
 		this.delimiter = delimiter;
 		useDelimiter = printDelimiter;
+		buildCharValues();
 	}
 	
 	public SudokuIODecoder(String reference, boolean printDelimeter){
 		index = reference;
 		delimiter = '\0';
 		useDelimiter = printDelimeter;
+		buildCharValues();
 	}
 	
 	public SudokuIODecoder(String reference){
 		index = reference;
 		delimiter = '|';
 		useDelimiter = true;
+		buildCharValues();
+	}
+	
+	/**
+	 * Works out the value of each character once, so decoding is a single lookup instead of a search of the index.
+	 * The table only reaches the largest character in the index, anything past it is invalid.
+	 */
+	private void buildCharValues() {
+		valueChars = index.toCharArray();
+		int tableSize = MIN_TABLE_SIZE;
+		for(int i=0; i < index.length(); i++) {
+			tableSize = Math.max(tableSize, index.charAt(i) + 1);
+		}
+		charValues = new int[tableSize];
+		for(int i=0; i < charValues.length; i++) {
+			charValues[i] = -1;
+		}
+		//only the first occurrence counts. A new line never counts, so puzzles can span lines.
+		for(int i=index.length() - 1; i >= 0; i--) {
+			if(index.charAt(i) != '\n') {
+				charValues[index.charAt(i)] = i;
+			}
+		}
+	}
+	
+	/**
+	 * Picks the typical encoding that best fits a sample of a puzzle, for when the format isn't given.
+	 * An encoding fits better when the number of characters it can decode is a multiple of the number of squares
+	 * (ie: a whole puzzle, without counting separators), then when it decodes more characters. 
+	 * @param sample Text holding one or more puzzles, or the start of them.
+	 * @param sudokuSideLength The side length of the puzzles.
+	 * @return A decoder for the encoding, or null if no typical encoding of that side length decodes any of the sample.
+	 */
+	public static SudokuIODecoder detect(CharSequence sample, int sudokuSideLength) {
+		int numberOfSquares = sudokuSideLength * sudokuSideLength;
+		SudokuIODecoder best = null;
+		boolean bestIsWhole = false;
+		int bestCount = 0;
+		SudokuIODecoder candidate;
+		boolean whole;
+		int count;
+		
+		for(String encoding : TYPICAL_ENCODINGS) {
+			if(encoding.length() - 1 != sudokuSideLength) {
+				continue;
+			}
+			candidate = new SudokuIODecoder(encoding);
+			count = 0;
+			for(int i=0; i < sample.length(); i++) {
+				if(candidate.charIsValid(sample.charAt(i))) {
+					count++;
+				}
+			}
+			whole = count > 0 && count % numberOfSquares == 0;
+			if(count > 0 && (best == null || (whole && !bestIsWhole) || (whole == bestIsWhole && count > bestCount))) {
+				best = candidate;
+				bestIsWhole = whole;
+				bestCount = count;
+			}
+		}
+		return best;
 	}
 	
 	public char getDelimiter() {
@@ -62,36 +138,80 @@ public class SudokuIODecoder {
 		return symbol;
 	}
 	
+	/**
+	 * Same as intToChar(), but gives '*' for values it can't print instead of throwing, for printing whole puzzles.
+	 */
+	public char printChar(int x) {
+		return x >= 0 && x < valueChars.length ? valueChars[x] : '*';
+	}
+	
+	/**
+	 * Same as printChar(), as a single byte for ASCII output. Characters that aren't ASCII are printed as '*'.
+	 */
+	public byte printByte(int x) {
+		char symbol = printChar(x);
+		return symbol < 128 ? (byte)symbol : (byte)'*';
+	}
+	
 	public int charToInt(char x) throws SudokuException{
-		boolean found = false;
-		int i;
-		int value = 0;
-		
-		for(i=0; i < index.length() && !found; i++) {
-			if(x == index.charAt(i)) {
-				found = true;
-				value = i;
-			}
-		}
-		if(!found) {
+		if(!charIsValid(x)) {
 			throw new SudokuException("Character '" + x + "' not found in reference index.");
 		}
-		return value;
+		return charValues[x];
 	}
 	
-	public boolean charIsValid(char x) {
-		boolean found = false;
-		int i;
-		
-		if(x == '\n') {
-			return false;
+	/**
+	 * Decodes a byte of ASCII text, for readers working on raw bytes. (See SudokuCSVReader)
+	 * @param x The byte, as read from the file.
+	 * @return The value of the character, or -1 if it isn't in the index (or isn't ASCII).
+	 */
+	public int byteToInt(byte x) {
+		return x < 0 ? -1 : charValues[x];
+	}
+	
+	/**
+	 * Decodes the characters of the text into values, skipping any that aren't in the index. (as SudokuSolver.enterSudoku() does)
+	 * @param text The text to decode.
+	 * @param values Where the values go.
+	 * @param numberOfValues The max number of values to decode, usually the number of squares.
+	 * @return The number of values decoded. Less than numberOfValues if the text ran out.
+	 */
+	public int decode(CharSequence text, int[] values, int numberOfValues) {
+		int count = 0;
+		int value;
+		char x;
+		for(int i=0; i < text.length() && count < numberOfValues; i++) {
+			x = text.charAt(i);
+			value = x < charValues.length ? charValues[x] : -1;
+			if(value >= 0) {
+				values[count++] = value;
+			}
 		}
-		
-		for(i=0; i < index.length() && !found; i++) {
-			if(x == index.charAt(i)) {
-				found = true;
+		return count;
+	}
+	
+	/**
+	 * Decodes a slice of ASCII text into values, skipping any character that isn't in the index.
+	 * @param bytes The text.
+	 * @param offset Where the slice starts.
+	 * @param length The length of the slice.
+	 * @param values Where the values go.
+	 * @param numberOfValues The max number of values to decode, usually the number of squares.
+	 * @return The number of values decoded. Less than numberOfValues if the slice ran out.
+	 */
+	public int decode(byte[] bytes, int offset, int length, int[] values, int numberOfValues) {
+		int count = 0;
+		int value;
+		for(int i=offset; i < offset + length && count < numberOfValues; i++) {
+			value = byteToInt(bytes[i]);
+			if(value >= 0) {
+				values[count++] = value;
 			}
 		}
-		return found;
+		return count;
+	}
+	
+	public boolean charIsValid(char x) {
+		return x < charValues.length && charValues[x] >= 0;
 	}
 }
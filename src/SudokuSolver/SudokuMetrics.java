@@ -0,0 +1,530 @@
+/**
+ * Counts what a SudokuSolver and its Sudoku do, for finding out which puzzles take the slow path through the solver,
+ * and why: the squares set by each rule, XOR conditions made and satisfied, squares checked for a value, the time spent
+ * in each phase of solveStep() and in each technique, and a histogram of solve times for each path a puzzle can take.
+ * Handed to a solver with SudokuSolver.setMetrics(), which shares it with its Sudoku. A solver without one only pays
+ * for a null check in the places it would count.
+ * The counts add up over every puzzle solved, until reset. Not thread safe: each solver needs its own, and they can be
+ * added together once they're done. (See add())
+ * Written out as JSON or in the Prometheus text format.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+public class SudokuMetrics {
+
+	//what set a square
+	public static final int PLACED_HIDDEN_SINGLE = 0; //the only place left for a value in a row, column or block
+	public static final int PLACED_XOR = 1; //the other square of an XOR condition couldn't hold its value anymore
+	public static final int PLACED_COMPLETION = 2; //the last empty square of a row, column or block
+	public static final int PLACED_GUESS = 3; //a guess of the search
+	public static final int PLACED_OTHER = 4; //a technique (ie: naked singles), or a call from outside the solver
+	private static final String[] CAUSE_NAMES = {"hidden_single", "xor", "completion", "guess", "other"};
+
+	//phases of SudokuSolver.solveStep()
+	public static final int PHASE_START = 0; //queueing every pair
+	public static final int PHASE_DEDUCE = 1; //working through the queue
+	public static final int PHASE_TECHNIQUES = 2;
+	public static final int PHASE_SEARCH = 3; //making guesses, and undoing them (deducing from them counts as PHASE_DEDUCE)
+	public static final int PHASE_DANCING_LINKS = 4; //the whole solve, with the Dancing Links engine
+	private static final String[] PHASE_NAMES = {"start", "deduce", "techniques", "search", "dancing_links"};
+
+	//the furthest a puzzle had to go through the solver, cheapest first
+	public static final int PATH_SINGLES = 0; //only values with a single place left
+	public static final int PATH_XORS = 1; //XOR conditions were made
+	public static final int PATH_TECHNIQUES = 2; //a technique found something
+	public static final int PATH_SEARCH = 3; //guesses were made
+	public static final int PATH_DANCING_LINKS = 4;
+	public static final int PATH_INVALID = 5; //found to be invalid
+	private static final String[] PATH_NAMES = {"singles", "xors", "techniques", "search", "dancing_links", "invalid"};
+
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+	//counted by Sudoku and its squares, rows, columns and blocks, so left open to the package
+	long squaresSet;
+	final long[] placed = new long[CAUSE_NAMES.length]; //by cause, except PLACED_OTHER which is what's left of squaresSet
+	long candidateChecks; //SudokuSquare.canBe() and Sudoku.squareAtPositionCanBe()
+	long xorsCreated;
+	long xorsSatisfied;
+	long unitsCompleted;
+	long changesUndone;
+
+	//counted by SudokuSolver
+	private long pairsChecked;
+	private long nodesVisited;
+	private long backtracks;
+	private final long[] phaseNanos = new long[PHASE_NAMES.length];
+	private String[] techniqueNames = new String[0];
+	private long[] techniqueCalls = new long[0];
+	private long[] techniqueFinds = new long[0];
+	private long[] techniqueNanos = new long[0];
+	private final SudokuHistogram solveTimes = new SudokuHistogram();
+	private final SudokuHistogram[] pathSolveTimes = new SudokuHistogram[PATH_NAMES.length];
+	private final long[] pathUnsolved = new long[PATH_NAMES.length];
+	private final long[] pathStopped = new long[PATH_NAMES.length]; //by time limit or cancellation, counted with the unsolved
+
+	public SudokuMetrics(){
+		for(int i=0; i < pathSolveTimes.length; i++) {
+			pathSolveTimes[i] = new SudokuHistogram();
+		}
+	}
+
+	/**
+	 * Counts a square set by the solver itself. (Squares set by XORs and completions are counted by the Sudoku)
+	 * @param cause One of the PLACED_ constants.
+	 */
+	void recordPlaced(int cause){
+		placed[cause]++;
+	}
+
+	/**
+	 * @param phase One of the PHASE_ constants.
+	 */
+	void recordPhase(int phase, long nanos){
+		phaseNanos[phase] += nanos;
+	}
+
+	/**
+	 * Counts a technique being tried.
+	 * @param index Where the technique is in the solver's list.
+	 * @param found True if it found something.
+	 */
+	void recordTechnique(int index, String name, boolean found, long nanos){
+		if(index >= techniqueNames.length) {
+			growTechniques(index + 1);
+		}
+		techniqueNames[index] = name;
+		techniqueCalls[index]++;
+		if(found) {
+			techniqueFinds[index]++;
+		}
+		techniqueNanos[index] += nanos;
+	}
+
+	private void growTechniques(int length){
+		techniqueNames = Arrays.copyOf(techniqueNames, length);
+		techniqueCalls = Arrays.copyOf(techniqueCalls, length);
+		techniqueFinds = Arrays.copyOf(techniqueFinds, length);
+		techniqueNanos = Arrays.copyOf(techniqueNanos, length);
+	}
+
+	/**
+	 * Counts a puzzle the solver is finished with.
+	 * @param path One of the PATH_ constants.
+	 * @param solved True if the puzzle was completed.
+	 * @param stopped True if the solver was stopped before it finished.
+	 * @param nanos Time spent solving it.
+	 */
+	void recordPuzzle(int path, boolean solved, boolean stopped, long nanos, int iterations, long nodes, long backtracks){
+		solveTimes.record(nanos);
+		pathSolveTimes[path].record(nanos);
+		if(!solved) {
+			pathUnsolved[path]++;
+		}
+		if(stopped) {
+			pathStopped[path]++;
+		}
+		pairsChecked += iterations;
+		nodesVisited += nodes;
+		this.backtracks += backtracks;
+	}
+
+	/**
+	 * Adds the counts of another SudokuMetrics to these. (ie: to merge the metrics kept by each thread of a batch)
+	 */
+	public void add(SudokuMetrics other){
+		squaresSet += other.squaresSet;
+		for(int i=0; i < placed.length; i++) {
+			placed[i] += other.placed[i];
+		}
+		candidateChecks += other.candidateChecks;
+		xorsCreated += other.xorsCreated;
+		xorsSatisfied += other.xorsSatisfied;
+		unitsCompleted += other.unitsCompleted;
+		changesUndone += other.changesUndone;
+		pairsChecked += other.pairsChecked;
+		nodesVisited += other.nodesVisited;
+		backtracks += other.backtracks;
+		for(int i=0; i < phaseNanos.length; i++) {
+			phaseNanos[i] += other.phaseNanos[i];
+		}
+		if(other.techniqueNames.length > techniqueNames.length) {
+			growTechniques(other.techniqueNames.length);
+		}
+		for(int i=0; i < other.techniqueNames.length; i++) {
+			if(other.techniqueNames[i] != null) {
+				techniqueNames[i] = other.techniqueNames[i];
+			}
+			techniqueCalls[i] += other.techniqueCalls[i];
+			techniqueFinds[i] += other.techniqueFinds[i];
+			techniqueNanos[i] += other.techniqueNanos[i];
+		}
+		solveTimes.add(other.solveTimes);
+		for(int i=0; i < pathSolveTimes.length; i++) {
+			pathSolveTimes[i].add(other.pathSolveTimes[i]);
+			pathUnsolved[i] += other.pathUnsolved[i];
+			pathStopped[i] += other.pathStopped[i];
+		}
+	}
+
+	public void reset(){
+		squaresSet = 0;
+		Arrays.fill(placed, 0);
+		candidateChecks = 0;
+		xorsCreated = 0;
+		xorsSatisfied = 0;
+		unitsCompleted = 0;
+		changesUndone = 0;
+		pairsChecked = 0;
+		nodesVisited = 0;
+		backtracks = 0;
+		Arrays.fill(phaseNanos, 0);
+		Arrays.fill(techniqueCalls, 0);
+		Arrays.fill(techniqueFinds, 0);
+		Arrays.fill(techniqueNanos, 0);
+		solveTimes.reset();
+		for(int i=0; i < pathSolveTimes.length; i++) {
+			pathSolveTimes[i].reset();
+		}
+		Arrays.fill(pathUnsolved, 0);
+		Arrays.fill(pathStopped, 0);
+	}
+
+	/**
+	 * @return The number of squares set, whatever set them.
+	 */
+	public long getSquaresSet() {
+		return squaresSet;
+	}
+
+	/**
+	 * @param cause One of the PLACED_ constants.
+	 * @return The number of squares set for that reason.
+	 */
+	public long getSquaresPlaced(int cause) {
+		if(cause != PLACED_OTHER) {
+			return placed[cause];
+		}
+		long other = squaresSet;
+		for(int i=0; i < placed.length; i++) {
+			if(i != PLACED_OTHER) {
+				other -= placed[i];
+			}
+		}
+		return other;
+	}
+
+	/**
+	 * @return The number of times a square was checked for a value it could hold.
+	 */
+	public long getCandidateChecks() {
+		return candidateChecks;
+	}
+
+	public long getXORsCreated() {
+		return xorsCreated;
+	}
+
+	/**
+	 * @return The number of XOR conditions dropped because their value was found.
+	 */
+	public long getXORsSatisfied() {
+		return xorsSatisfied;
+	}
+
+	/**
+	 * @return The number of rows, columns and blocks completed.
+	 */
+	public long getUnitsCompleted() {
+		return unitsCompleted;
+	}
+
+	/**
+	 * @return The number of changes taken back by Sudoku.undoTo(), by the search going back on a guess.
+	 */
+	public long getChangesUndone() {
+		return changesUndone;
+	}
+
+	/**
+	 * @return The number of (unit, value) pairs checked. (See SudokuSolver.getIterations())
+	 */
+	public long getPairsChecked() {
+		return pairsChecked;
+	}
+
+	public long getNodesVisited() {
+		return nodesVisited;
+	}
+
+	public long getBacktracks() {
+		return backtracks;
+	}
+
+	/**
+	 * @param phase One of the PHASE_ constants.
+	 */
+	public long getPhaseNanos(int phase) {
+		return phaseNanos[phase];
+	}
+
+	/**
+	 * @return The number of techniques counted, as numbered in the solver's list.
+	 */
+	public int getTechniqueCount() {
+		return techniqueNames.length;
+	}
+
+	/**
+	 * @return The name of the technique, or null if it was never tried.
+	 */
+	public String getTechniqueName(int index) {
+		return techniqueNames[index];
+	}
+
+	public long getTechniqueCalls(int index) {
+		return techniqueCalls[index];
+	}
+
+	/**
+	 * @return The number of times the technique found something.
+	 */
+	public long getTechniqueFinds(int index) {
+		return techniqueFinds[index];
+	}
+
+	public long getTechniqueNanos(int index) {
+		return techniqueNanos[index];
+	}
+
+	/**
+	 * @return The solve times of every puzzle, in nanoseconds.
+	 */
+	public SudokuHistogram getSolveTimes() {
+		return solveTimes;
+	}
+
+	/**
+	 * @param path One of the PATH_ constants.
+	 * @return The solve times of the puzzles that took that path, in nanoseconds.
+	 */
+	public SudokuHistogram getSolveTimes(int path) {
+		return pathSolveTimes[path];
+	}
+
+	/**
+	 * @return The number of puzzles that took the path and were left incomplete.
+	 */
+	public long getUnsolved(int path) {
+		return pathUnsolved[path];
+	}
+
+	/**
+	 * @return The number of puzzles on the path that the solver was stopped on, by its time limit or cancellation.
+	 */
+	public long getStopped(int path) {
+		return pathStopped[path];
+	}
+
+	public static String getCauseName(int cause) {
+		return CAUSE_NAMES[cause];
+	}
+
+	public static String getPhaseName(int phase) {
+		return PHASE_NAMES[phase];
+	}
+
+	public static String getPathName(int path) {
+		return PATH_NAMES[path];
+	}
+
+	/**
+	 * Writes every count as a JSON object. Times are in nanoseconds.
+	 */
+	public void writeJSON(Appendable out) throws IOException{
+		out.append("{\n");
+		out.append("  \"squares_set\": ").append(Long.toString(squaresSet)).append(",\n");
+		out.append("  \"squares_placed\": {");
+		for(int i=0; i < CAUSE_NAMES.length; i++) {
+			out.append(i > 0 ? ", " : "").append('"').append(CAUSE_NAMES[i]).append("\": ").append(Long.toString(getSquaresPlaced(i)));
+		}
+		out.append("},\n");
+		out.append("  \"candidate_checks\": ").append(Long.toString(candidateChecks)).append(",\n");
+		out.append("  \"xors_created\": ").append(Long.toString(xorsCreated)).append(",\n");
+		out.append("  \"xors_satisfied\": ").append(Long.toString(xorsSatisfied)).append(",\n");
+		out.append("  \"units_completed\": ").append(Long.toString(unitsCompleted)).append(",\n");
+		out.append("  \"changes_undone\": ").append(Long.toString(changesUndone)).append(",\n");
+		out.append("  \"pairs_checked\": ").append(Long.toString(pairsChecked)).append(",\n");
+		out.append("  \"nodes_visited\": ").append(Long.toString(nodesVisited)).append(",\n");
+		out.append("  \"backtracks\": ").append(Long.toString(backtracks)).append(",\n");
+		out.append("  \"phase_nanos\": {");
+		for(int i=0; i < PHASE_NAMES.length; i++) {
+			out.append(i > 0 ? ", " : "").append('"').append(PHASE_NAMES[i]).append("\": ").append(Long.toString(phaseNanos[i]));
+		}
+		out.append("},\n");
+		out.append("  \"techniques\": [");
+		for(int i=0, written=0; i < techniqueNames.length; i++) {
+			if(techniqueNames[i] == null) {
+				continue;
+			}
+			out.append(written++ > 0 ? "," : "").append("\n    {\"name\": ");
+			appendJSONString(out, techniqueNames[i]);
+			out.append(", \"calls\": ").append(Long.toString(techniqueCalls[i]));
+			out.append(", \"finds\": ").append(Long.toString(techniqueFinds[i]));
+			out.append(", \"nanos\": ").append(Long.toString(techniqueNanos[i])).append('}');
+		}
+		out.append("\n  ],\n");
+		out.append("  \"solve_nanos\": ");
+		writeJSON(solveTimes, out);
+		out.append(",\n  \"paths\": {");
+		for(int i=0; i < PATH_NAMES.length; i++) {
+			out.append(i > 0 ? "," : "").append("\n    \"").append(PATH_NAMES[i]).append("\": {\"puzzles\": ");
+			out.append(Long.toString(pathSolveTimes[i].getCount()));
+			out.append(", \"unsolved\": ").append(Long.toString(pathUnsolved[i]));
+			out.append(", \"stopped\": ").append(Long.toString(pathStopped[i]));
+			out.append(", \"solve_nanos\": ");
+			writeJSON(pathSolveTimes[i], out);
+			out.append('}');
+		}
+		out.append("\n  }\n}\n");
+	}
+
+	private static void writeJSON(SudokuHistogram histogram, Appendable out) throws IOException{
+		out.append("{\"count\": ").append(Long.toString(histogram.getCount()));
+		out.append(", \"min\": ").append(Long.toString(histogram.getMin()));
+		out.append(", \"mean\": ").append(String.format(Locale.ROOT, "%.1f", histogram.getMean()));
+		for(double percentile : PERCENTILES) {
+			out.append(", \"p").append(formatPercentile(percentile).replace('.', '_')).append("\": ");
+			out.append(Long.toString(histogram.getValueAtPercentile(percentile)));
+		}
+		out.append(", \"max\": ").append(Long.toString(histogram.getMax())).append('}');
+	}
+
+	private static void appendJSONString(Appendable out, String text) throws IOException{
+		char c;
+		out.append('"');
+		for(int i=0; i < text.length(); i++) {
+			c = text.charAt(i);
+			if(c == '"' || c == '\\') {
+				out.append('\\').append(c);
+			}else if(c < 0x20) {
+				out.append(String.format("\\u%04x", (int)c));
+			}else {
+				out.append(c);
+			}
+		}
+		out.append('"');
+	}
+
+	/**
+	 * Writes every count in the Prometheus text exposition format, with times in seconds. The solve times are written
+	 * as summaries, with a quantile for each percentile kept.
+	 */
+	public void writePrometheus(Appendable out) throws IOException{
+		writeHeader(out, "sudoku_squares_set_total", "counter", "Squares set, by what set them.");
+		for(int i=0; i < CAUSE_NAMES.length; i++) {
+			out.append("sudoku_squares_set_total{cause=\"").append(CAUSE_NAMES[i]).append("\"} ").append(Long.toString(getSquaresPlaced(i))).append('\n');
+		}
+		writeCounter(out, "sudoku_candidate_checks_total", "Squares checked for a value they could hold.", candidateChecks);
+		writeCounter(out, "sudoku_xors_created_total", "XOR conditions made.", xorsCreated);
+		writeCounter(out, "sudoku_xors_satisfied_total", "XOR conditions dropped once their value was found.", xorsSatisfied);
+		writeCounter(out, "sudoku_units_completed_total", "Rows, columns and blocks completed.", unitsCompleted);
+		writeCounter(out, "sudoku_changes_undone_total", "Changes taken back by the search.", changesUndone);
+		writeCounter(out, "sudoku_pairs_checked_total", "(unit, value) pairs checked by the deductive loop.", pairsChecked);
+		writeCounter(out, "sudoku_search_nodes_total", "Guesses made by the search.", nodesVisited);
+		writeCounter(out, "sudoku_search_backtracks_total", "Guesses the search went back on.", backtracks);
+
+		writeHeader(out, "sudoku_phase_seconds_total", "counter", "Time spent in each phase of the solver.");
+		for(int i=0; i < PHASE_NAMES.length; i++) {
+			out.append("sudoku_phase_seconds_total{phase=\"").append(PHASE_NAMES[i]).append("\"} ").append(formatSeconds(phaseNanos[i])).append('\n');
+		}
+
+		writeHeader(out, "sudoku_technique_calls_total", "counter", "Times each technique was tried.");
+		writeTechniques(out, "sudoku_technique_calls_total", techniqueCalls, false);
+		writeHeader(out, "sudoku_technique_finds_total", "counter", "Times each technique found something.");
+		writeTechniques(out, "sudoku_technique_finds_total", techniqueFinds, false);
+		writeHeader(out, "sudoku_technique_seconds_total", "counter", "Time spent in each technique.");
+		writeTechniques(out, "sudoku_technique_seconds_total", techniqueNanos, true);
+
+		writeHeader(out, "sudoku_puzzles_unsolved_total", "counter", "Puzzles left incomplete, by the furthest path they took through the solver.");
+		for(int i=0; i < PATH_NAMES.length; i++) {
+			out.append("sudoku_puzzles_unsolved_total{path=\"").append(PATH_NAMES[i]).append("\"} ").append(Long.toString(pathUnsolved[i])).append('\n');
+		}
+		writeHeader(out, "sudoku_puzzles_stopped_total", "counter", "Puzzles the solver was stopped on by its time limit or cancellation, by the furthest path they took.");
+		for(int i=0; i < PATH_NAMES.length; i++) {
+			out.append("sudoku_puzzles_stopped_total{path=\"").append(PATH_NAMES[i]).append("\"} ").append(Long.toString(pathStopped[i])).append('\n');
+		}
+		writeHeader(out, "sudoku_solve_seconds", "summary", "Time spent solving each puzzle, by the furthest path it took through the solver.");
+		for(int i=0; i < PATH_NAMES.length; i++) {
+			writeSummary(out, "sudoku_solve_seconds", "path=\"" + PATH_NAMES[i] + "\",", pathSolveTimes[i]);
+		}
+	}
+
+	static void writeHeader(Appendable out, String name, String type, String help) throws IOException{
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	static void writeCounter(Appendable out, String name, String help, long value) throws IOException{
+		writeHeader(out, name, "counter", help);
+		out.append(name).append(' ').append(Long.toString(value)).append('\n');
+	}
+
+	private void writeTechniques(Appendable out, String name, long[] values, boolean nanos) throws IOException{
+		for(int i=0; i < techniqueNames.length; i++) {
+			if(techniqueNames[i] == null) {
+				continue;
+			}
+			out.append(name).append("{technique=\"");
+			appendLabelValue(out, techniqueNames[i]);
+			out.append("\"} ").append(nanos ? formatSeconds(values[i]) : Long.toString(values[i])).append('\n');
+		}
+	}
+
+	/**
+	 * @param labels Labels to put before the quantile, each followed by a comma.
+	 */
+	private static void writeSummary(Appendable out, String name, String labels, SudokuHistogram histogram) throws IOException{
+		for(double percentile : PERCENTILES) {
+			out.append(name).append('{').append(labels).append("quantile=\"").append(formatPercentile(percentile / 100)).append("\"} ");
+			out.append(formatSeconds(histogram.getValueAtPercentile(percentile))).append('\n');
+		}
+		labels = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+		out.append(name).append("_sum").append(labels).append(' ').append(formatSeconds(histogram.getSum())).append('\n');
+		out.append(name).append("_count").append(labels).append(' ').append(Long.toString(histogram.getCount())).append('\n');
+	}
+
+	private static void appendLabelValue(Appendable out, String text) throws IOException{
+		char c;
+		for(int i=0; i < text.length(); i++) {
+			c = text.charAt(i);
+			if(c == '"' || c == '\\') {
+				out.append('\\').append(c);
+			}else if(c == '\n') {
+				out.append("\\n");
+			}else {
+				out.append(c);
+			}
+		}
+	}
+
+	private static String formatSeconds(long nanos) {
+		return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+	}
+
+	/**
+	 * @return The number without any trailing zeros. (ie: "50", "99.9", "0.999")
+	 */
+	private static String formatPercentile(double percentile) {
+		String text = String.format(Locale.ROOT, "%.4f", percentile);
+		text = text.replaceAll("0+$", "");
+		return text.endsWith(".") ? text.substring(0, text.length() - 1) : text;
+	}
+}
@@ -0,0 +1,52 @@
+/**
+ * Sets every empty square that has a single value left. (A "naked single")
+ * The block by block search only spots a value with a single place left in a block, which isn't the same thing.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+public class SudokuNakedSingles extends SudokuTechnique {
+
+	private static final boolean DEBUG = false;
+
+	private long[] mask;
+
+	public SudokuNakedSingles(){
+		super("Naked single");
+	}
+
+	@Override
+	public boolean isCheap() {
+		//a single look at the candidates of each square
+		return true;
+	}
+
+	@Override
+	public boolean apply(Sudoku sudoku) throws SudokuException{
+		boolean changed = false;
+		int count;
+
+		if(mask == null || mask.length != SudokuBits.wordsFor(sudoku.SUDOKU_SIDE_LENGTH)) {
+			mask = SudokuBits.newMask(sudoku.SUDOKU_SIDE_LENGTH);
+		}
+		for(int position=0; position < sudoku.SUDOKU_NUMBER_OF_SQUARES; position++) {
+			if(sudoku.isSquareEmpty(position)) {
+				//worked out again for each square, as setting one can take the last value from another
+				count = sudoku.candidates(position, mask);
+				if(count == 1) {
+					if(DEBUG) {
+						System.out.println("[" + getClass() + ".apply(); square #" + position + " can only be " + SudokuBits.first(mask) + "]");
+					}
+					sudoku.setSquare(position, SudokuBits.first(mask));
+					changed = true;
+				}else if(count == 0) {
+					throw new SudokuException("Puzzle Invalid. No value is left for square #" + position + ".");
+				}
+			}
+		}
+		return changed;
+	}
+}
@@ -0,0 +1,128 @@
+/**
+ * Finds groups of squares in a row, column or block that only have as many values left between them as there are
+ * squares. (ie: two squares that can only be 3 or 7, a "naked pair") Those values must go in those squares, so they
+ * are excluded from the other squares of the row, column or block.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+public class SudokuNakedSubsets extends SudokuTechnique {
+
+	private static final boolean DEBUG = false;
+
+	private final int size;
+
+	//scratch, sized for the Sudoku last worked on
+	private int sideLength;
+	private int[] squares; //empty squares of the unit that could be part of a subset
+	private long[][] masks; //values left in each of those squares (rows of the candidate table)
+	private int squareCount;
+	private long[][] unions; //values left in the squares picked so far, by depth
+	private int[] picked;
+
+	/**
+	 * @param size The number of squares in each group. (2 for pairs, 3 for triples...)
+	 */
+	public SudokuNakedSubsets(int size){
+		super(size == 2 ? "Naked pair" : size == 3 ? "Naked triple" : "Naked subset of " + size);
+		this.size = size;
+	}
+
+	@Override
+	public boolean apply(Sudoku sudoku) throws SudokuException{
+		SudokuGeometry geometry = sudoku.getGeometry();
+		//the table may hold values excluded by this pass, which only makes a subset harder to find
+		long[][] candidates = candidateTable(sudoku);
+		boolean changed = false;
+		int square;
+		int count;
+
+		prepare(sudoku.SUDOKU_SIDE_LENGTH);
+		for(int unit=0; unit < geometry.NUMBER_OF_UNITS; unit++) {
+			squareCount = 0;
+			for(int i=0; i < sideLength; i++) {
+				square = geometry.unitSquare(unit, i);
+				count = SudokuBits.count(candidates[square]);
+				if(count >= 2 && count <= size) {
+					masks[squareCount] = candidates[square];
+					squares[squareCount++] = square;
+				}
+			}
+			if(squareCount >= size) {
+				changed |= findSubsets(sudoku, geometry, candidates, unit, 0, 0);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Picks the square for the given depth from those after the last one picked, and goes on until size squares are picked.
+	 * @return True if a value was excluded.
+	 */
+	private boolean findSubsets(Sudoku sudoku, SudokuGeometry geometry, long[][] candidates, int unit, int depth, int start) {
+		boolean changed = false;
+		for(int i=start; i <= squareCount - (size - depth); i++) {
+			for(int word=0; word < unions[depth + 1].length; word++) {
+				unions[depth + 1][word] = unions[depth][word] | masks[i][word];
+			}
+			if(SudokuBits.count(unions[depth + 1]) > size) {
+				continue;
+			}
+			picked[depth] = squares[i];
+			if(depth + 1 < size) {
+				changed |= findSubsets(sudoku, geometry, candidates, unit, depth + 1, i + 1);
+			}else {
+				changed |= excludeFromRest(sudoku, geometry, candidates, unit, unions[size]);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Excludes the values of a subset from every square of the unit that isn't in it.
+	 */
+	private boolean excludeFromRest(Sudoku sudoku, SudokuGeometry geometry, long[][] candidates, int unit, long[] values) {
+		boolean changed = false;
+		int square;
+		for(int i=0; i < sideLength; i++) {
+			square = geometry.unitSquare(unit, i);
+			if(sudoku.isSquareEmpty(square) && !isPicked(square)) {
+				for(int value=SudokuBits.first(values); value > 0; value=SudokuBits.next(values, value)) {
+					if(SudokuBits.contains(candidates[square], value) && sudoku.exclude(square, value)) {
+						if(DEBUG) {
+							System.out.println("[" + getClass() + ".excludeFromRest(); " + value + " excluded from square #" + square + " in unit " + unit + "]");
+						}
+						changed = true;
+					}
+				}
+			}
+		}
+		return changed;
+	}
+
+	private boolean isPicked(int square) {
+		for(int i=0; i < size; i++) {
+			if(picked[i] == square) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void prepare(int sideLength) {
+		if(squares != null && this.sideLength == sideLength) {
+			return;
+		}
+		this.sideLength = sideLength;
+		squares = new int[sideLength];
+		masks = new long[sideLength][];
+		unions = new long[size + 1][];
+		for(int i=0; i <= size; i++) {
+			unions[i] = SudokuBits.newMask(sideLength);
+		}
+		picked = new int[size];
+	}
+}
@@ -0,0 +1,310 @@
+/**
+ * Solves batches of puzzles packed into bytes, the form they come in from a pipeline rather than from a file.
+ * A batch holds any number of puzzles of one side length, back to back, one byte per square in the order given to the
+ * Sudoku constructor: 0 for an empty square, or its value from 1 to the side length. Solutions are written back in the
+ * same form, and a status code for each puzzle (See STATUS_INVALID and SudokuSolver.validate()).
+ * Each thread keeps one SudokuSolver and its arrays, which are reused for every puzzle it's handed, so once warmed up,
+ * a puzzle is entered, solved and written out without allocating anything. (Only contradictions do, for the exception
+ * that reports them: a puzzle found to be invalid, or a wrong guess when searching) With a SudokuSolutionCache, each
+ * lookup also makes its key, and each new result its entry.
+ * Batches are split into chunks that are handed to a work-stealing pool when solving on several threads, like
+ * SudokuBatchRunner. The pool lives as long as this object, so its threads keep their solvers; call shutdown() once done.
+ * One batch is solved at a time, so solve() shouldn't be called from several threads at once.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class SudokuPackedBatch {
+
+	/**
+	 * Status of a puzzle that couldn't be entered: it holds a value beyond the side length. Every other status is the
+	 * code given by SudokuSolver.validate() once the puzzle was attempted.
+	 */
+	public static final byte STATUS_INVALID = -1;
+
+	//puzzles handed to a worker at once
+	private static final int CHUNK_SIZE = 64;
+
+	public final int SUDOKU_SIDE_LENGTH;
+	public final int SUDOKU_NUMBER_OF_SQUARES;
+
+	private final int threads;
+	private ForkJoinPool pool; //only made when solving on several threads
+	private boolean searchEnabled = false;
+	private int engine = SudokuSolver.ENGINE_DEDUCTIVE;
+	private int maxIterations = SudokuSolver.DEFAULT_MAX_ITERATIONS;
+	private long timeLimitNanos = 0;
+	private SudokuCancellation cancellation;
+	private SudokuMetrics metrics; //null unless asked for
+	private SudokuSolutionCache cache; //null unless asked for
+	private final ArrayList<Workspace> workspaces = new ArrayList<Workspace>(); //every thread's, to merge their metrics
+
+	private final ThreadLocal<Workspace> threadWorkspace = new ThreadLocal<Workspace>();
+
+	/**
+	 * What a thread needs to solve puzzles, reused for each of them.
+	 */
+	private static class Workspace {
+		final SudokuSolver solver = new SudokuSolver();
+		final int[] values;
+		SudokuMetrics metrics; //null unless asked for
+
+		Workspace(int numberOfSquares){
+			values = new int[numberOfSquares];
+		}
+	}
+
+	/**
+	 * @param sudokuSideLength The side length of every puzzle in a batch.
+	 * @param threads The number of threads to solve each batch on. With 1, batches are solved on the calling thread.
+	 */
+	public SudokuPackedBatch(int sudokuSideLength, int threads){
+		SUDOKU_SIDE_LENGTH = sudokuSideLength;
+		SUDOKU_NUMBER_OF_SQUARES = sudokuSideLength * sudokuSideLength;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Solves the batch on the calling thread.
+	 * @param sudokuSideLength The side length of every puzzle in a batch.
+	 */
+	public SudokuPackedBatch(int sudokuSideLength){
+		this(sudokuSideLength, 1);
+	}
+
+	public void setSearchEnabled(boolean searchEnabled) {
+		this.searchEnabled = searchEnabled;
+	}
+
+	public void setEngine(int engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * @param maxIterations The max iterations of each pass of the solvers. (See SudokuSolver.setMaxIterations())
+	 */
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * @param timeLimitNanos The time limit of each puzzle, or 0 for none. (See SudokuSolver.setTimeLimit())
+	 */
+	public void setTimeLimit(long timeLimitNanos) {
+		this.timeLimitNanos = timeLimitNanos;
+	}
+
+	/**
+	 * @param cancellation A token every solver checks, so the rest of a batch can be stopped, or null for none. Puzzles
+	 *  it stops get status SudokuSolver.VALIDATE_STOPPED. (See SudokuSolver.setCancellation())
+	 */
+	public void setCancellation(SudokuCancellation cancellation) {
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * @param metrics Where the counts of every solver are added once each batch is done, or null to not count. Each
+	 *  thread counts into its own SudokuMetrics in the meantime. (See SudokuSolver.setMetrics())
+	 */
+	public void setMetrics(SudokuMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @param cache Where puzzles are looked up before being solved, and remembered once solved, or null to solve every
+	 *  puzzle. It must be for the same side length, and can be shared with other batches. (See SudokuSolutionCache)
+	 * @throws IllegalArgumentException If the cache is for another side length.
+	 */
+	public void setCache(SudokuSolutionCache cache) {
+		if(cache != null && cache.SUDOKU_SIDE_LENGTH != SUDOKU_SIDE_LENGTH) {
+			throw new IllegalArgumentException("The cache is for puzzles of side length " + cache.SUDOKU_SIDE_LENGTH + ", not " + SUDOKU_SIDE_LENGTH + ".");
+		}
+		this.cache = cache;
+	}
+
+	/**
+	 * Solves count puzzles packed in an array. (See solve(ByteBuffer, ByteBuffer, ByteBuffer, int))
+	 * @param puzzles count * SUDOKU_NUMBER_OF_SQUARES bytes from puzzlesOffset, one per square.
+	 * @param solutions Where each puzzle is written once attempted, in the same form and from solutionsOffset. May be
+	 *  the puzzles array, to solve them in place.
+	 * @param statuses Where the status of each puzzle is written, one byte each from statusesOffset.
+	 * @return The number of puzzles solved.
+	 */
+	public int solve(byte[] puzzles, int puzzlesOffset, byte[] solutions, int solutionsOffset, byte[] statuses, int statusesOffset, int count){
+		int batchSize = count * SUDOKU_NUMBER_OF_SQUARES;
+		return solve(ByteBuffer.wrap(puzzles, puzzlesOffset, batchSize), ByteBuffer.wrap(solutions, solutionsOffset, batchSize),
+				ByteBuffer.wrap(statuses, statusesOffset, count), count);
+	}
+
+	/**
+	 * Solves count puzzles packed in a buffer, which may be direct. Each is read from the position of the buffer onwards,
+	 * and written from the position of the others, which are left where they were.
+	 * Every puzzle is written back as far as it got, so one that isn't solved still holds whatever was deduced.
+	 * @param puzzles count * SUDOKU_NUMBER_OF_SQUARES bytes, one per square.
+	 * @param solutions Where each puzzle is written once attempted, in the same form. May be the puzzles buffer.
+	 * @param statuses Where the status of each puzzle is written, one byte each: STATUS_INVALID, or the code of
+	 *  SudokuSolver.validate(), so 0 for solved.
+	 * @param count The number of puzzles in the batch.
+	 * @return The number of puzzles solved.
+	 * @throws IllegalArgumentException If a buffer is too small for the batch.
+	 */
+	public int solve(ByteBuffer puzzles, ByteBuffer solutions, ByteBuffer statuses, int count){
+		int solved = 0;
+
+		if(puzzles.remaining() < (long)count * SUDOKU_NUMBER_OF_SQUARES || solutions.remaining() < (long)count * SUDOKU_NUMBER_OF_SQUARES
+				|| statuses.remaining() < count) {
+			throw new IllegalArgumentException("The buffers are too small for " + count + " puzzles of " + SUDOKU_NUMBER_OF_SQUARES + " squares.");
+		}
+		if(threads == 1 || count <= CHUNK_SIZE) {
+			solved = solveRange(puzzles, solutions, statuses, 0, count);
+		}else {
+			solved = solveChunks(puzzles, solutions, statuses, count);
+		}
+		mergeMetrics();
+		return solved;
+	}
+
+	private int solveChunks(ByteBuffer puzzles, ByteBuffer solutions, ByteBuffer statuses, int count){
+		ArrayList<Future<Integer>> chunks = new ArrayList<Future<Integer>>();
+		int solved = 0;
+
+		if(pool == null) {
+			pool = new ForkJoinPool(threads);
+		}
+		for(int first=0; first < count; first += CHUNK_SIZE) {
+			final int chunkFirst = first;
+			final int chunkCount = Math.min(CHUNK_SIZE, count - first);
+			//duplicates keep each chunk to its own buffer position
+			final ByteBuffer chunkPuzzles = puzzles.duplicate();
+			final ByteBuffer chunkSolutions = solutions.duplicate();
+			final ByteBuffer chunkStatuses = statuses.duplicate();
+			chunks.add(pool.submit(() -> solveRange(chunkPuzzles, chunkSolutions, chunkStatuses, chunkFirst, chunkCount)));
+		}
+		try {
+			for(Future<Integer> chunk : chunks) {
+				solved += chunk.get();
+			}
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for puzzles to be solved.");
+		}catch(ExecutionException e) {
+			throw new IllegalStateException("A worker failed: " + e.getCause());
+		}
+		return solved;
+	}
+
+	/**
+	 * Solves puzzles first to first + count - 1 of the batch with this thread's solver.
+	 * @return The number of puzzles solved.
+	 */
+	private int solveRange(ByteBuffer puzzles, ByteBuffer solutions, ByteBuffer statuses, int first, int count){
+		Workspace workspace = workspace();
+		SudokuSolver solver = workspace.solver;
+		int[] values = workspace.values;
+		int solved = 0;
+
+		for(int i=first; i < first + count; i++) {
+			int puzzleStart = puzzles.position() + i * SUDOKU_NUMBER_OF_SQUARES;
+			int solutionStart = solutions.position() + i * SUDOKU_NUMBER_OF_SQUARES;
+			int status = STATUS_INVALID;
+			boolean inRange = true;
+
+			for(int square=0; square < SUDOKU_NUMBER_OF_SQUARES; square++) {
+				values[square] = puzzles.get(puzzleStart + square) & 0xFF;
+				inRange &= values[square] <= SUDOKU_SIDE_LENGTH;
+			}
+			if(inRange && cache != null) {
+				try {
+					status = cache.solve(solver, values, values);
+				}catch(SudokuException e) {
+					//the values were checked, so it can be entered
+				}
+			}else if(inRange) {
+				try {
+					solver.enterSudoku(values, SUDOKU_SIDE_LENGTH, null);
+					try {
+						solver.solveFull();
+					}catch(SudokuException e) {
+						//invalid puzzles keep whatever was found, and validate() says what's wrong with it
+					}
+					status = solver.validate();
+					solver.getValues(values);
+				}catch(SudokuException e) {
+					//the values were checked, so it can be entered
+				}
+			}
+			for(int square=0; square < SUDOKU_NUMBER_OF_SQUARES; square++) {
+				solutions.put(solutionStart + square, (byte)values[square]);
+			}
+			statuses.put(statuses.position() + i, (byte)status);
+			if(status == 0) {
+				solved++;
+			}
+		}
+		return solved;
+	}
+
+	/**
+	 * @return This thread's workspace, made the first time it solves a puzzle. Its solver is set up anew for each
+	 *  batch, as the settings may have changed since.
+	 */
+	private Workspace workspace(){
+		Workspace workspace = threadWorkspace.get();
+
+		if(workspace == null) {
+			workspace = new Workspace(SUDOKU_NUMBER_OF_SQUARES);
+			threadWorkspace.set(workspace);
+			synchronized(workspaces) {
+				workspaces.add(workspace);
+			}
+		}
+		if(metrics != null && workspace.metrics == null) {
+			workspace.metrics = new SudokuMetrics();
+		}
+		workspace.solver.setSearchEnabled(searchEnabled);
+		workspace.solver.setEngine(engine);
+		workspace.solver.setMaxIterations(maxIterations);
+		workspace.solver.setTimeLimit(timeLimitNanos, TimeUnit.NANOSECONDS);
+		workspace.solver.setCancellation(cancellation);
+		workspace.solver.setMetrics(metrics != null ? workspace.metrics : null);
+		return workspace;
+	}
+
+	/**
+	 * Adds the counts of every thread to the metrics, once a batch is done.
+	 */
+	private void mergeMetrics(){
+		if(metrics == null) {
+			return;
+		}
+		synchronized(workspaces) {
+			for(Workspace workspace : workspaces) {
+				if(workspace.metrics != null) {
+					metrics.add(workspace.metrics);
+					workspace.metrics.reset();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops the threads solving on several threads, once they're done. Batches can still be solved afterwards, with a
+	 * new pool.
+	 */
+	public void shutdown(){
+		if(pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+}
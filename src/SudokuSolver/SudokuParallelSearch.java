@@ -0,0 +1,313 @@
+/**
+ * Searches a Sudoku on several threads, either for one solution or to count them.
+ * The first few levels of the search are split by hand: each task picks the empty square with the fewest values it can
+ * hold, and forks a task for each of those values on its own copy of the board. Past the split depth, each subtree is
+ * handed to a SudokuDLXSolver kept by the worker thread. Idle threads steal the subtrees not started yet.
+ * The tasks of a search share a cancellation token. When solving, the first task to find a solution cancels it, so
+ * its siblings stop as soon as they next look. When counting, it's cancelled once the limit is reached.
+ * One search runs at a time; a thread starting another waits for it. The same goes for reading what the last one found, so
+ * a thread sharing the search should read it in a block synchronized on the search to be sure it's its own.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SudokuParallelSearch {
+
+	private static final boolean DEBUG = false;
+
+	//subtrees are split until there are about this many per thread, so idle threads have work to steal
+	private static final int TASKS_PER_THREAD = 8;
+
+	public final int SUDOKU_SIDE_LENGTH;
+
+	private final SudokuGeometry geometry;
+	private final ForkJoinPool pool;
+	private final int threads;
+	private final int splitDepth;
+	private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>();
+	private final SudokuBoard root; //loaded with the values of each search, as only one runs at a time
+
+	//state of the search running, reset by each one
+	private final AtomicLong solutionsFound = new AtomicLong();
+	private final AtomicLong nodesVisited = new AtomicLong();
+	private final AtomicLong backtracks = new AtomicLong();
+	private long limit;
+	private boolean counting; //false when solving
+	private int[] solution; //written by the task that finds the first solution, when solving
+	private SudokuCancellation searchCancellation; //under the one given, cancelled once the search has what it needs
+	private boolean stopped;
+
+	/**
+	 * What a worker thread needs to search a subtree, reused for each of them.
+	 */
+	private static final class Worker {
+		final SudokuDLXSolver solver;
+		final int[] values;
+		final int[] solvedValues;
+
+		Worker(int sudokuSideLength) throws SudokuException{
+			solver = new SudokuDLXSolver(sudokuSideLength);
+			values = new int[sudokuSideLength * sudokuSideLength];
+			solvedValues = new int[sudokuSideLength * sudokuSideLength];
+		}
+	}
+
+	/**
+	 * @param sudokuSideLength The side length of the puzzles to search.
+	 * @param threads The number of worker threads.
+	 * @throws SudokuException If the side length isn't a square.
+	 */
+	public SudokuParallelSearch(int sudokuSideLength, int threads) throws SudokuException{
+		geometry = SudokuGeometry.forSideLength(sudokuSideLength);
+		SUDOKU_SIDE_LENGTH = sudokuSideLength;
+		this.threads = threads;
+		pool = new ForkJoinPool(threads);
+		root = new SudokuBoard(geometry);
+		//every split at least doubles the tasks
+		splitDepth = 32 - Integer.numberOfLeadingZeros(Math.max(1, threads * TASKS_PER_THREAD - 1));
+	}
+
+	/**
+	 * Counts the solutions of the given values, stopping early once the limit is reached.
+	 * @param values The values of each square, as given to a Sudoku. (0 for empty squares)
+	 * @param limit The max number of solutions to count. (2 is enough to tell if a puzzle has a unique solution)
+	 * @return The number of solutions, up to the limit. 0 if the givens conflict.
+	 * @throws SudokuException If there aren't enough values for the size of this search.
+	 */
+	public long countSolutions(int[] values, long limit) throws SudokuException{
+		return countSolutions(values, limit, null);
+	}
+
+	/**
+	 * Counts the solutions of the given values, stopping early once the limit is reached, or the token says to stop.
+	 * @param cancellation The token, or null for none. If it stops the search, only the solutions found until then are
+	 *  counted. (See isStopped())
+	 * @see #countSolutions(int[], long)
+	 */
+	public synchronized long countSolutions(int[] values, long limit, SudokuCancellation cancellation) throws SudokuException{
+		loadRoot(values);
+		startSearch(true, limit, null, cancellation);
+		if(root.validate() < 2) {
+			run(root);
+		}
+		if(DEBUG) {
+			System.out.println("[" + getClass() + ".countSolutions(); found " + solutionsFound.get() + " with limit " + limit + "]");
+		}
+		return Math.min(solutionsFound.get(), limit);
+	}
+
+	/**
+	 * Finds a solution of the given values. Once one task finds one, the others are stopped, so which solution is found
+	 * isn't fixed when there are several.
+	 * @param values The values of each square, as given to a Sudoku. (0 for empty squares)
+	 * @param solvedValues Filled with the solution, if one is found. Must hold SUDOKU_NUMBER_OF_SQUARES ints.
+	 * @return True if a solution was found.
+	 * @throws SudokuException If there aren't enough values for the size of this search.
+	 */
+	public boolean solve(int[] values, int[] solvedValues) throws SudokuException{
+		return solve(values, solvedValues, null);
+	}
+
+	/**
+	 * Finds a solution of the given values, unless the token says to stop first.
+	 * @param cancellation The token, or null for none. (See isStopped())
+	 * @see #solve(int[], int[])
+	 */
+	public synchronized boolean solve(int[] values, int[] solvedValues, SudokuCancellation cancellation) throws SudokuException{
+		loadRoot(values);
+		startSearch(false, 1, solvedValues, cancellation);
+		if(root.validate() < 2) {
+			run(root);
+		}
+		if(DEBUG) {
+			System.out.println("[" + getClass() + ".solve(); found " + (solutionsFound.get() > 0) + ", nodes " + nodesVisited.get() + "]");
+		}
+		return solutionsFound.get() > 0;
+	}
+
+	/**
+	 * Loads the values into the board the search starts from. The tasks only read it, as each split works on a copy.
+	 */
+	private void loadRoot(int[] values) throws SudokuException{
+		if(values.length < geometry.SUDOKU_NUMBER_OF_SQUARES) {
+			throw new SudokuException("Number of values given (" + values.length + ") not equal to the number of values required. ("
+					+ geometry.SUDOKU_NUMBER_OF_SQUARES + ")");
+		}
+		root.loadValues(values);
+	}
+
+	private void startSearch(boolean counting, long limit, int[] solution, SudokuCancellation cancellation) {
+		this.counting = counting;
+		this.limit = limit;
+		this.solution = solution;
+		searchCancellation = new SudokuCancellation(cancellation);
+		solutionsFound.set(0);
+		nodesVisited.set(0);
+		backtracks.set(0);
+		stopped = false;
+	}
+
+	private void run(SudokuBoard board) {
+		pool.invoke(new SearchTask(board, 0));
+		//the search only cancels its own token once it has what it needs, so anything else came from above
+		stopped = solutionsFound.get() < limit && searchCancellation.shouldStop();
+	}
+
+	/**
+	 * @return True if the last search was stopped by the token given to it before it finished. Whatever it returned
+	 *  only covers the part of the search done before then.
+	 */
+	public synchronized boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * @return Number of squares tried by the last search, across every thread: the splits, and the rows tried by
+	 *  Dancing Links below them. Waits for a search running, so it's always for a search that's finished.
+	 */
+	public synchronized long getNodesVisited() {
+		return nodesVisited.get();
+	}
+
+	/**
+	 * @return Number of times the last search ran into a square or constraint that could no longer be filled. Waits for a
+	 *  search running, as getNodesVisited() does.
+	 */
+	public synchronized long getBacktracks() {
+		return backtracks.get();
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Stops the worker threads. The search can't be used afterwards.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Counts a solution of the search, keeping it if it's the first one found while solving.
+	 */
+	private void foundSolution(int[] values) {
+		if(counting) {
+			if(solutionsFound.incrementAndGet() >= limit) {
+				searchCancellation.cancel();
+			}
+		}else if(solutionsFound.compareAndSet(0, 1)) {
+			System.arraycopy(values, 0, solution, 0, geometry.SUDOKU_NUMBER_OF_SQUARES);
+			searchCancellation.cancel();
+		}
+	}
+
+	/**
+	 * Searches below one board, splitting it further if it's shallow enough. Each task owns its board.
+	 */
+	private class SearchTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final SudokuBoard board;
+		private final int depth;
+
+		SearchTask(SudokuBoard board, int depth){
+			this.board = board;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			if(searchCancellation.shouldStop()) {
+				return;
+			}
+			if(depth >= splitDepth) {
+				searchWithDancingLinks();
+				return;
+			}
+
+			long[] mask = SudokuBits.newMask(SUDOKU_SIDE_LENGTH);
+			int bestPosition = -1;
+			int bestCount = SUDOKU_SIDE_LENGTH + 1;
+			int count;
+			for(int position=0; position < geometry.SUDOKU_NUMBER_OF_SQUARES && bestCount > 1; position++) {
+				if(board.isSquareEmpty(position)) {
+					count = board.candidates(position, mask);
+					if(count < bestCount) {
+						bestCount = count;
+						bestPosition = position;
+					}
+				}
+			}
+			if(bestPosition < 0) {
+				//every square is filled, and the givens were checked, so this is a solution
+				foundSolution(board.getValues());
+				return;
+			}
+			if(bestCount == 0) {
+				backtracks.incrementAndGet();
+				return;
+			}
+
+			board.candidates(bestPosition, mask);
+			ArrayList<SearchTask> subtrees = new ArrayList<SearchTask>(bestCount);
+			SudokuBoard child;
+			for(int value=1; value <= SUDOKU_SIDE_LENGTH; value++) {
+				if(SudokuBits.contains(mask, value)) {
+					child = new SudokuBoard(board);
+					try {
+						child.setSquare(bestPosition, value);
+					}catch(SudokuException e) {
+						//the value came from the candidates, so the square was empty and can hold it
+						continue;
+					}
+					subtrees.add(new SearchTask(child, depth + 1));
+				}
+			}
+			nodesVisited.addAndGet(subtrees.size());
+			invokeAll(subtrees);
+		}
+
+		private void searchWithDancingLinks() {
+			Worker worker = workers.get();
+			SudokuDLXSolver solver;
+			long remaining = limit - solutionsFound.get();
+			if(remaining <= 0) {
+				return;
+			}
+			if(worker == null) {
+				try {
+					worker = new Worker(SUDOKU_SIDE_LENGTH);
+				}catch(SudokuException e) {
+					//the size was already checked by the geometry
+					return;
+				}
+				workers.set(worker);
+			}
+			solver = worker.solver;
+			solver.resetTelemetry();
+			solver.setCancellation(searchCancellation);
+			board.getValues(worker.values);
+			if(counting) {
+				long found = solver.countSolutions(worker.values, remaining);
+				if(found > 0 && solutionsFound.addAndGet(found) >= limit) {
+					searchCancellation.cancel();
+				}
+			}else if(solver.solve(worker.values, worker.solvedValues)) {
+				foundSolution(worker.solvedValues);
+			}
+			nodesVisited.addAndGet(solver.getNodesVisited());
+			backtracks.addAndGet(solver.getBacktracks());
+			solver.setCancellation(null);
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/**
+ * Accounts for alignment, in both directions:
+ * If the places left for a value in a block all line up in one row or column, the value can't be anywhere else in that
+ * row or column. (A "pointing pair", or the "phantom numbers" of the solveFull() design)
+ * If the places left for a value in a row or column all fall in one block, the value can't be anywhere else in that
+ * block. (A "box-line reduction")
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+public class SudokuPointing extends SudokuTechnique {
+
+	private static final boolean DEBUG = false;
+
+	public SudokuPointing(){
+		super("Pointing pair/box-line reduction");
+	}
+
+	//scratch, sized for the Sudoku last worked on
+	private long[][] unions; //values left in each line of a block, or each block of a line
+	private long[] others;
+	private long[] only;
+
+	@Override
+	public boolean isCheap() {
+		//one union of candidates per line of each block, and per block of each line
+		return true;
+	}
+
+	@Override
+	public boolean apply(Sudoku sudoku) throws SudokuException{
+		SudokuGeometry geometry = sudoku.getGeometry();
+		int sideLength = sudoku.SUDOKU_SIDE_LENGTH;
+		long[][] candidates = candidateTable(sudoku);
+		boolean changed = false;
+
+		prepare(geometry);
+		for(int block=0; block < sideLength; block++) {
+			changed |= pointFromBlock(sudoku, geometry, candidates, block, true);
+			changed |= pointFromBlock(sudoku, geometry, candidates, block, false);
+		}
+		for(int unit=0; unit < 2 * sideLength; unit++) {
+			changed |= reduceBlockFromLine(sudoku, geometry, candidates, unit);
+		}
+		return changed;
+	}
+
+	/**
+	 * Finds the values whose places in the block are all in one of its rows (or columns), and excludes them from the
+	 * rest of that row (or column).
+	 * @param rows True to look at the rows of the block, false for its columns.
+	 */
+	private boolean pointFromBlock(Sudoku sudoku, SudokuGeometry geometry, long[][] candidates, int block, boolean rows) {
+		int blockLength = geometry.SUDOKU_BLOCK_LENGTH;
+		int square;
+		int line;
+		boolean changed = false;
+
+		for(int i=0; i < blockLength; i++) {
+			SudokuBits.clear(unions[i]);
+		}
+		for(int i=0; i < sudoku.SUDOKU_SIDE_LENGTH; i++) {
+			square = geometry.blockSquare(block, i);
+			line = rows ? i / blockLength : i % blockLength;
+			or(unions[line], candidates[square]);
+		}
+		for(int i=0; i < blockLength; i++) {
+			if(onlyIn(i, blockLength)) {
+				square = geometry.blockSquare(block, rows ? i * blockLength : i);
+				line = rows ? geometry.rowUnit(geometry.rowOf(square)) : geometry.columnUnit(geometry.columnOf(square));
+				for(int value=SudokuBits.first(only); value > 0; value=SudokuBits.next(only, value)) {
+					changed |= excludeOutsideBlock(sudoku, geometry, candidates, line, block, value);
+				}
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Finds the values whose places in the row or column are all in one block, and excludes them from the rest of that block.
+	 */
+	private boolean reduceBlockFromLine(Sudoku sudoku, SudokuGeometry geometry, long[][] candidates, int unit) {
+		int blockLength = geometry.SUDOKU_BLOCK_LENGTH;
+		int square;
+		int block;
+		boolean changed = false;
+
+		for(int i=0; i < blockLength; i++) {
+			SudokuBits.clear(unions[i]);
+		}
+		//the squares of a row or column go through its blocks in order, blockLength at a time
+		for(int i=0; i < sudoku.SUDOKU_SIDE_LENGTH; i++) {
+			or(unions[i / blockLength], candidates[geometry.unitSquare(unit, i)]);
+		}
+		for(int i=0; i < blockLength; i++) {
+			if(onlyIn(i, blockLength)) {
+				block = geometry.blockOf(geometry.unitSquare(unit, i * blockLength));
+				for(int value=SudokuBits.first(only); value > 0; value=SudokuBits.next(only, value)) {
+					for(int j=0; j < sudoku.SUDOKU_SIDE_LENGTH; j++) {
+						square = geometry.blockSquare(block, j);
+						if(SudokuBits.contains(candidates[square], value) && !inUnit(geometry, unit, square) && sudoku.exclude(square, value)) {
+							if(DEBUG) {
+								System.out.println("[" + getClass() + ".reduceBlockFromLine(); " + value + " excluded from square #" + square + "]");
+							}
+							changed = true;
+						}
+					}
+				}
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Works out the values in unions[index] that aren't in any of the other unions, into only.
+	 * @return True if there are any.
+	 */
+	private boolean onlyIn(int index, int count) {
+		boolean any = false;
+		SudokuBits.clear(others);
+		for(int i=0; i < count; i++) {
+			if(i != index) {
+				or(others, unions[i]);
+			}
+		}
+		for(int word=0; word < only.length; word++) {
+			only[word] = unions[index][word] & ~others[word];
+			any |= only[word] != 0L;
+		}
+		return any;
+	}
+
+	private static void or(long[] mask, long[] values) {
+		for(int word=0; word < mask.length; word++) {
+			mask[word] |= values[word];
+		}
+	}
+
+	/**
+	 * Excludes the value from the squares of the row or column outside the block. The candidate table is checked first,
+	 * as the value is usually gone from most of them already.
+	 */
+	private boolean excludeOutsideBlock(Sudoku sudoku, SudokuGeometry geometry, long[][] candidates, int unit, int block, int value) {
+		int square;
+		boolean changed = false;
+		for(int i=0; i < sudoku.SUDOKU_SIDE_LENGTH; i++) {
+			square = geometry.unitSquare(unit, i);
+			if(SudokuBits.contains(candidates[square], value) && geometry.blockOf(square) != block && sudoku.exclude(square, value)) {
+				if(DEBUG) {
+					System.out.println("[" + getClass() + ".excludeOutsideBlock(); " + value + " excluded from square #" + square + "]");
+				}
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * @param unit A row or column unit.
+	 */
+	private static boolean inUnit(SudokuGeometry geometry, int unit, int square) {
+		if(unit < geometry.SUDOKU_SIDE_LENGTH) {
+			return geometry.rowOf(square) == unit;
+		}
+		return geometry.columnOf(square) == unit - geometry.SUDOKU_SIDE_LENGTH;
+	}
+
+	private void prepare(SudokuGeometry geometry) {
+		if(unions != null && unions.length == geometry.SUDOKU_BLOCK_LENGTH && only.length == SudokuBits.wordsFor(geometry.SUDOKU_SIDE_LENGTH)) {
+			return;
+		}
+		unions = new long[geometry.SUDOKU_BLOCK_LENGTH][];
+		for(int i=0; i < unions.length; i++) {
+			unions[i] = SudokuBits.newMask(geometry.SUDOKU_SIDE_LENGTH);
+		}
+		others = SudokuBits.newMask(geometry.SUDOKU_SIDE_LENGTH);
+		only = SudokuBits.newMask(geometry.SUDOKU_SIDE_LENGTH);
+	}
+}
@@ -1,13 +1,16 @@
 /**
  * Logs a set of SudokuBlocks for the purpose of checking Sudoku rules.
+ * Also tracks SudokuSquareXOR conditions (strong links) contained in the row/column/block, one per value at most.
  * @author drbob132
- * @version 1.1
- * @date 04/12/2018
+ * @version 1.2
+ * @date 10/18/2026
  */
 
 package SudokuSolver;
 
-import java.util.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 
 public class SudokuRow {
 
@@ -19,6 +22,23 @@ public class SudokuRow {
 	
 	private SudokuSquare[] squares;
 	private boolean completed;
+	private long[] usedValues; //bit (n-1) is set when a square holds n. See SudokuBits
+	private long[] foundValues; //scratch mask for validate(), kept to avoid allocating on each call
+	
+	//A value only gets an XOR while it has exactly two places left, so there's never more than one per value.
+	//An XOR is dropped as soon as its value is set in one of the squares, so every XOR held is unsatisfied.
+	private long[] xorValues; //bit (n-1) is set while an XOR for n is held. See SudokuBits
+	private SudokuSquareXOR[] xorsByValue; //XOR objects created for each value, reused once the row is reset
+	//XORs held, in order of creation, as a list linked through their values (0 ends the list)
+	private int[] xorNext;
+	private int[] xorPrevious;
+	private int xorFirst;
+	private int xorLast;
+	private int xorCount;
+	
+	//the Sudoku holding this row/column/block, whose undo trail records each change, and the unit it is there
+	private Sudoku sudoku;
+	private int unit = -1;
 
 	public SudokuRow(SudokuSquare[] squares){
 		SudokuSquare[] squareCopy = new SudokuSquare[squares.length];
@@ -26,6 +46,18 @@ public class SudokuRow {
 		this.squares = squareCopy;
 		completed = false;
 		
+		usedValues = SudokuBits.newMask(squares.length);
+		foundValues = SudokuBits.newMask(squares.length);
+		xorValues = SudokuBits.newMask(squares.length);
+		xorsByValue = new SudokuSquareXOR[squares.length];
+		xorNext = new int[squares.length + 1];
+		xorPrevious = new int[squares.length + 1];
+		for(SudokuSquare square : squares) {
+			if(square.getValue() > 0 && square.getValue() <= squares.length) {
+				SudokuBits.add(usedValues, square.getValue());
+			}
+		}
+		
 		if(getClass().getName().contains("SudokuRow")) {
 			for(SudokuSquare square : squares) {
 				square.setRow(this);
@@ -33,7 +65,26 @@ public class SudokuRow {
 		}
 	}
 	
+	/**
+	 * Records where this row/column/block is in its Sudoku.
+	 * @param sudoku The Sudoku holding it, whose undo trail records each XOR and completion. (See Sudoku.mark())
+	 * @param unit Its unit, numbered as in SudokuGeometry.
+	 */
+	void setUnit(Sudoku sudoku, int unit){
+		this.sudoku = sudoku;
+		this.unit = unit;
+	}
+	
+	/**
+	 * Checks if a square in this row/block/column holds the value.
+	 * Values within the scope of the puzzle are a single bit test. Anything else falls back to checking each square.
+	 * @param value The value to look for.
+	 * @return True if a square holds the value.
+	 */
 	public boolean contains(int value){
+		if(value > 0 && value <= squares.length) {
+			return SudokuBits.contains(usedValues, value);
+		}
 		for(int i=0; i<squares.length; i++){
 			if(DEBUG) {
 				System.out.println("[" + getClass() + ".contains(); " + squares[i].getValue() + "?=" + value + "]");
@@ -49,7 +100,7 @@ public class SudokuRow {
 	}
 	
 	public String print(){
-		String rowString = "|";
+		StringBuilder rowString = new StringBuilder("|");
 		char valueChar;
 		for(int i=0; i<squares.length; i++){
 			if(squares[i].getValue() <= 0)
@@ -62,43 +113,383 @@ public class SudokuRow {
 					valueChar += AFTER_9_PRINT_OFFSET;
 				}
 			}
-			rowString += valueChar;
-			rowString += '|';
+			rowString.append(valueChar);
+			rowString.append('|');
 		}
-		return rowString;
+		return rowString.toString();
 	}
 	
 	public String print(SudokuIODecoder decoderForIO){
-		String rowString = "";
-		if(decoderForIO.useDelimiter()) {
-			rowString += decoderForIO.getDelimiter();
+		StringBuilder rowString = new StringBuilder(squares.length * 2 + 1);
+		try {
+			print(decoderForIO, rowString);
+		}catch(IOException e) {
+			//StringBuilder doesn't throw
+		}
+		return rowString.toString();
+	}
+	
+	/**
+	 * Writes the row, with the delimiters of the decoder, without a new line.
+	 * Values the decoder can't print are written as '*'.
+	 * @param decoderForIO The decoder translating values to characters.
+	 * @param out Where the row is written.
+	 * @throws IOException If out can't be written to.
+	 */
+	public void print(SudokuIODecoder decoderForIO, Appendable out) throws IOException{
+		boolean useDelimiter = decoderForIO.useDelimiter();
+		char delimiter = decoderForIO.getDelimiter();
+		if(useDelimiter) {
+			out.append(delimiter);
 		}
-		char valueChar;
 		for(int i=0; i<squares.length; i++){
-			/*if(squares[i].getValue() <= 0)
-				//if empty, print blank
-				valueChar = ' ';
-			else{
-				valueChar = '0';
-				valueChar += squares[i].getValue();
-				if(valueChar > '9') {
-					valueChar += AFTER_9_PRINT_OFFSET;
-				}
-			}*/
-			try {
-				valueChar = decoderForIO.intToChar(squares[i].getValue());
-			}catch(SudokuException e) {
-				if(DEBUG) {
-					System.out.print(e.getMessage());
-				}
-				valueChar = '*';
+			out.append(decoderForIO.printChar(squares[i].getValue()));
+			if(useDelimiter) {
+				out.append(delimiter);
+			}
+		}
+	}
+	
+	/**
+	 * Same as print(SudokuIODecoder, Appendable), as ASCII bytes.
+	 * @throws java.nio.BufferOverflowException If the buffer doesn't have room for the row.
+	 */
+	public void print(SudokuIODecoder decoderForIO, ByteBuffer out){
+		boolean useDelimiter = decoderForIO.useDelimiter();
+		byte delimiter = (byte)decoderForIO.getDelimiter();
+		if(useDelimiter) {
+			out.put(delimiter);
+		}
+		for(int i=0; i<squares.length; i++){
+			out.put(decoderForIO.printByte(squares[i].getValue()));
+			if(useDelimiter) {
+				out.put(delimiter);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the values of the row without any delimiter. (ie: "004300209")
+	 */
+	public void printCompact(SudokuIODecoder decoderForIO, Appendable out) throws IOException{
+		for(int i=0; i<squares.length; i++){
+			out.append(decoderForIO.printChar(squares[i].getValue()));
+		}
+	}
+	
+	/**
+	 * Same as printCompact(SudokuIODecoder, Appendable), as ASCII bytes.
+	 */
+	public void printCompact(SudokuIODecoder decoderForIO, ByteBuffer out){
+		for(int i=0; i<squares.length; i++){
+			out.put(decoderForIO.printByte(squares[i].getValue()));
+		}
+	}
+	
+	/**
+	 * Records that one of the squares in this row/block/column now holds the value.
+	 * Called by SudokuSquare when it is set.
+	 * @param value The value that was set.
+	 */
+	void markUsed(int value){
+		if(value > 0 && value <= squares.length) {
+			SudokuBits.add(usedValues, value);
+			if(hasXOR(value)) {
+				dropXOR(value);
+			}
+		}
+	}
+	
+	/**
+	 * Takes back a value marked used. Only for undoing the square setting it. (See SudokuSquare.unset())
+	 */
+	void unmarkUsed(int value){
+		if(value > 0 && value <= squares.length) {
+			SudokuBits.remove(usedValues, value);
+		}
+	}
+	
+	/**
+	 * Forgets the completion state and any XOR held, and rebuilds the used values from the squares.
+	 * Used after the squares have been reloaded with new values.
+	 */
+	void reset(){
+		//the squares dropped their conditions when they were reloaded
+		SudokuBits.clear(xorValues);
+		xorFirst = 0;
+		xorLast = 0;
+		xorCount = 0;
+		completed = false;
+		SudokuBits.clear(usedValues);
+		for(SudokuSquare square : squares) {
+			markUsed(square.getValue());
+		}
+	}
+	
+	/**
+	 * Checks if the value has been found absolutely OR conditionally. (See SudokuSquareXOR for details on conditions)
+	 * @return True if a square holds the value, or an XOR for the value is held.
+	 */
+	public boolean hasDiscovered(int value){
+		if(DEBUG) {
+			System.out.println("[" + getClass() + ".hasDiscovered(); Printing current row]\n" + print() + "");
+		}
+		return contains(value) || hasXOR(value);
+	}
+	
+	public boolean hasXOR(int value){
+		return SudokuBits.contains(xorValues, value);
+	}
+	
+	/**
+	 * @return The XOR held for the value, or null if there is none.
+	 */
+	public SudokuSquareXOR getXOR(int value){
+		if(!hasXOR(value)) {
+			return null;
+		}
+		return xorsByValue[value-1];
+	}
+	
+	/**
+	 * Makes an XOR for the value between two squares of this row/column/block.
+	 * @param position1 The position of the first square in this row/column/block.
+	 * @param position2 The position of the second square.
+	 */
+	public void addXOR(int value, int position1, int position2){
+		addXOR(value, getSquare(position1), getSquare(position2));
+	}
+	
+	private void addXOR(int value, SudokuSquare square1, SudokuSquare square2){
+		addXOR(value, square1, square2, -1, -1);
+	}
+	
+	/**
+	 * @param slot1 Where the XOR goes in the condition list of the first square, or -1 to add it at the end.
+	 * @param slot2 The same, for the second square.
+	 */
+	private void addXOR(int value, SudokuSquare square1, SudokuSquare square2, int slot1, int slot2){
+		SudokuSquareXOR xor;
+		
+		if(hasXOR(value)) {
+			//already linked; the value has two places left, so it's the same two squares
+			return;
+		}
+		//an XOR for a value is only created while the value is missing, and it stays until the value is found,
+		//so the old object can only be reused once the row/column/block has been reset.
+		if(xorsByValue[value-1] != null) {
+			xor = xorsByValue[value-1];
+			xor.reuse(square1, square2);
+		}else {
+			xor = new SudokuSquareXOR(value, square1, square2);
+			xorsByValue[value-1] = xor;
+		}
+		xorNext[value] = 0;
+		xorPrevious[value] = xorLast;
+		if(xorLast == 0) {
+			xorFirst = value;
+		}else {
+			xorNext[xorLast] = value;
+		}
+		xorLast = value;
+		xorCount++;
+		SudokuBits.add(xorValues, value);
+		if(slot1 < 0) {
+			square1.addCondition(xor);
+			square2.addCondition(xor);
+		}else {
+			square1.putCondition(xor, slot1);
+			square2.putCondition(xor, slot2);
+		}
+		if(sudoku != null) {
+			sudoku.logUnitChange(Sudoku.TRAIL_XOR_ADDED, unit, value);
+		}
+	}
+	
+	/**
+	 * Writes the XORs held, in order of creation, as the value followed by the positions of its two squares in the Sudoku,
+	 * then where it sits in the condition list of each of them.
+	 * @param links Where the XORs are written, SudokuSnapshot.XOR_FIELDS ints each.
+	 * @param offset Where the first XOR goes.
+	 * @return The number of XORs written.
+	 */
+	int saveXORs(int[] links, int offset){
+		ArrayList<SudokuSquare> squareList;
+		SudokuSquareXOR xor;
+		for(int value=xorFirst; value != 0; value=xorNext[value]) {
+			xor = xorsByValue[value-1];
+			squareList = xor.getSquares();
+			links[offset++] = value;
+			links[offset++] = squareList.get(0).getPosition();
+			links[offset++] = squareList.get(1).getPosition();
+			links[offset++] = xor.getSlot(squareList.get(0));
+			links[offset++] = xor.getSlot(squareList.get(1));
+		}
+		return xorCount;
+	}
+	
+	/**
+	 * Resets, then takes back the completion state and the XORs saved by saveXORs(), each in the slots its squares had it
+	 * in. The squares must be reloaded first, and their lists are only whole once every unit is restored.
+	 * @param sudokuSquares The squares of the Sudoku, by position.
+	 */
+	void restore(boolean completed, int[] links, int offset, int count, SudokuSquare[] sudokuSquares){
+		reset();
+		this.completed = completed;
+		for(int i=0; i < count; i++, offset += SudokuSnapshot.XOR_FIELDS) {
+			addXOR(links[offset], sudokuSquares[links[offset+1]], sudokuSquares[links[offset+2]], links[offset+3], links[offset+4]);
+		}
+	}
+	
+	boolean isCompleted(){
+		return completed;
+	}
+	
+	private void markCompleted(){
+		if(!completed) {
+			completed = true;
+			if(sudoku != null) {
+				sudoku.logUnitChange(Sudoku.TRAIL_COMPLETED, unit, 0);
 			}
-			rowString += valueChar;
-			if(decoderForIO.useDelimiter()) {
-				rowString += decoderForIO.getDelimiter();
+		}
+	}
+	
+	/**
+	 * Takes back the completion. Only for Sudoku.undoTo().
+	 */
+	void undoCompleted(){
+		completed = false;
+	}
+	
+	/**
+	 * Unlinks the XOR for the value from this row/column/block and from its squares. Called once the value is set.
+	 */
+	private void dropXOR(int value){
+		unlinkXOR(value);
+		if(sudoku != null) {
+			sudoku.logUnitChange(Sudoku.TRAIL_XOR_DROPPED, unit, value);
+		}
+	}
+	
+	/**
+	 * Takes back the XOR for the value, the last one added. Only for Sudoku.undoTo().
+	 */
+	void undoAddXOR(int value){
+		unlinkXOR(value);
+	}
+	
+	/**
+	 * Puts the XOR for the value back where it was dropped from, in the list and in its squares. Only for Sudoku.undoTo(),
+	 * which undoes changes from the last, so the list is just as it was when the XOR was unlinked, and the XOR object
+	 * still points at its squares. An unlinked value keeps its neighbours in xorNext and xorPrevious, so it goes back
+	 * between them.
+	 */
+	void undoDropXOR(int value){
+		if(xorPrevious[value] == 0) {
+			xorFirst = value;
+		}else {
+			xorNext[xorPrevious[value]] = value;
+		}
+		if(xorNext[value] == 0) {
+			xorLast = value;
+		}else {
+			xorPrevious[xorNext[value]] = value;
+		}
+		xorCount++;
+		SudokuBits.add(xorValues, value);
+		xorsByValue[value-1].reattach();
+	}
+	
+	private void unlinkXOR(int value){
+		if(xorPrevious[value] == 0) {
+			xorFirst = xorNext[value];
+		}else {
+			xorNext[xorPrevious[value]] = xorNext[value];
+		}
+		if(xorNext[value] == 0) {
+			xorLast = xorPrevious[value];
+		}else {
+			xorPrevious[xorNext[value]] = xorPrevious[value];
+		}
+		xorCount--;
+		SudokuBits.remove(xorValues, value);
+		xorsByValue[value-1].detach();
+	}
+	
+	/**
+	 * Returns the first XOR in this row/column/block that has not been satisfied yet.
+	 * @return The unsatisfied XOR, or null if there are none.
+	 */
+	public SudokuSquareXOR getOpenXOR(){
+		if(xorFirst == 0) {
+			return null;
+		}
+		return xorsByValue[xorFirst-1];
+	}
+	
+	/**
+	 * Returns the count of conditions found in this row/column/block.
+	 * @return The count of conditions found in this row/column/block.
+	 */
+	public int getXORConditionCount() {
+		return xorCount;
+	}
+	
+	/**
+	 * Returns the SudokuSquares found in SudokuSquareXORs in this row/column/block. Each adjacent pair belongs to an XOR.
+	 * These XORs are in order of creation. 
+	 * Typically used in conjunction with getXORValues() for the value that is implied in those squares, in the same order.
+	 * @return The SudokuSquares found in SudokuSquareXORs
+	 */
+	public SudokuSquare[] getXORSquares(){
+		SudokuSquare[] xorSquareArray = new SudokuSquare[xorCount*2];
+		ArrayList<SudokuSquare> squareList;
+		int squareIndex = 0;
+		
+		for(int value=xorFirst; value != 0; value=xorNext[value]) {
+			squareList = xorsByValue[value-1].getSquares();
+			for(SudokuSquare square : squareList) {
+				xorSquareArray[squareIndex++] = square;
 			}
 		}
-		return rowString;
+		
+		return xorSquareArray;
+	}
+	
+	/**
+	 * Returns the values found in SudokuSquareXORs in this row/column/block.
+	 * These XORs are in order of creation. 
+	 * Typically used in conjunction with getXORSquares() for the squares that the value is implied in, in the same order.
+	 * @return The values that the SudokuSquareXORs are to assign.
+	 */
+	public int[] getXORValues() {
+		int[] xorValueArray = new int[xorCount];
+		int index = 0;
+		
+		for(int value=xorFirst; value != 0; value=xorNext[value]) {
+			xorValueArray[index++] = value;
+		}
+		
+		return xorValueArray;
+	}
+	
+	/**
+	 * Checks the XOR conditions held in this object, and completes any conditions that can be, which drops them.
+	 * @throws SudokuException In the event that an XOR can be satisfied, but cannot set the target square because the it has been
+	 *  filled with another number. This is typically the result of an incorrectly placed XOR, or an incorrectly filled square.
+	 */
+	public void checkConditions() throws SudokuException{
+		//completing one may drop others, so the values still held are read back after each
+		for(int value=SudokuBits.first(xorValues); value > 0; value=SudokuBits.next(xorValues, value)) {
+			xorsByValue[value-1].checkCondition();
+		}
+	}
+	
+	/**
+	 * @return The mask of values held by the squares, as kept by this row. Not a copy, so it must not be modified.
+	 */
+	long[] usedValues(){
+		return usedValues;
 	}
 	
 	public SudokuSquare getSquare(int position){
@@ -119,8 +510,8 @@ public class SudokuRow {
 	public int validate() {
 		int resultCode = 0;
 		int tempCode = 0;
-		boolean[] numberFound = new boolean[squares.length];
 		
+		SudokuBits.clear(foundValues);
 		for(SudokuSquare square : squares) {
 			tempCode = 0;
 			
@@ -129,8 +520,10 @@ public class SudokuRow {
 			}
 			if(square.getValue() > squares.length || square.getValue() < 0) {
 				tempCode = 3;
-			}else if(square.getValue() != 0 && numberFound[square.getValue()-1]) {
+			}else if(square.getValue() != 0 && SudokuBits.contains(foundValues, square.getValue())) {
 				tempCode = 2;
+			}else if(square.getValue() != 0) {
+				SudokuBits.add(foundValues, square.getValue());
 			}
 			
 			if(tempCode > resultCode) {
@@ -143,7 +536,7 @@ public class SudokuRow {
 	
 	/**
 	 * Checks if this row/block/column is completed, or one away.
-	 * If one away, it will complete it.
+	 * If one away, it will complete it with the value missing from the used values.
 	 * @return True if the row/block/column is completed.
 	 */
 	public boolean checkCompletion() throws SudokuException{
@@ -153,7 +546,7 @@ public class SudokuRow {
 		}
 		
 		int blankPosition = -1;
-		ArrayList<Integer> foundList = new ArrayList<Integer>();
+		int missingValue;
 		boolean confirmedIncomplete = false;
 		
 		for(int i=0; i<squares.length && !confirmedIncomplete; i++){
@@ -163,22 +556,25 @@ public class SudokuRow {
 				}else{
 					blankPosition = i;
 				}
-			}else{
-				foundList.add(squares[i].getValue());
 			}
 		}
 		
 		if(blankPosition == -1){
-			completed = true;
-		}else if(foundList.size() == squares.length - 1){
-			Collections.sort(foundList);
-			for(int i=0; i<foundList.size() && !completed; i++){
-				if(foundList.get(i) != i+1){
-					try{
-						squares[blankPosition].set(i+1);
-						completed = true;
-					}catch(SudokuException e){
-						throw new SudokuException("Check Completion error: " + e.getMessage());
+			markCompleted();
+		}else if(!confirmedIncomplete){
+			missingValue = SudokuBits.firstMissing(usedValues, squares.length);
+			if(missingValue > 0){
+				try{
+					squares[blankPosition].set(missingValue);
+					//setting it checks completion again, which marks it
+					markCompleted();
+				}catch(SudokuException e){
+					throw new SudokuException("Check Completion error: " + e.getMessage());
+				}finally{
+					//counted once the square holds the value, as the metrics count it as set from then on, even if what
+					//it set off failed
+					if(sudoku != null && sudoku.metrics != null && !squares[blankPosition].isEmpty()){
+						sudoku.metrics.recordPlaced(SudokuMetrics.PLACED_COMPLETION);
 					}
 				}
 			}
@@ -0,0 +1,109 @@
+/**
+ * The state of a Sudoku, and optionally of the SudokuSolver working on it, kept in primitive arrays so it can be saved
+ * and restored without building any object. (See Sudoku.saveState() and SudokuSolver.saveState())
+ * Holds the value of every square, the values excluded from them, the XOR conditions of every row/column/block in order
+ * of creation, along with where each sits in the condition lists of its two squares, and their completion flags. A snapshot saved by a solver also holds where the solver was: its queue,
+ * counters and message.
+ * A snapshot can be saved into any number of times, so one per depth is enough when branching.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.util.Arrays;
+
+public class SudokuSnapshot {
+
+	public final int SUDOKU_SIDE_LENGTH;
+	public final int SUDOKU_NUMBER_OF_SQUARES;
+
+	//Sudoku state
+	final int[] values;
+	final long[] exclusions; //square * words + word, as in Sudoku
+	//the logs and queues are sized to what they hold when saved, as they're usually close to empty
+	int[] changedSquares = new int[0];
+	int changeCount;
+	int[] eliminations = new int[0];
+	int eliminationCount;
+	final boolean[] completed; //by unit, numbered as in SudokuGeometry
+	final int[] xorCounts; //by unit
+	//(value, first square, second square, slot in the first, slot in the second) for each XOR, from unit * XOR_STRIDE,
+	//in order of creation. The slots put back the order of each square's conditions, which decides the order they're checked in.
+	final int[] xors;
+
+	//SudokuSolver state, only set when last saved by a solver
+	boolean hasSolverState;
+	int currentValue;
+	int currentBlock;
+	int iterations;
+	int blockSearchCount;
+	int lineSearchCount;
+	long nodesVisited;
+	long backtracks;
+	boolean progressHalted;
+	int messageCode; //(See SudokuSolver.getMessage())
+	int phase; //where solveStep() was up to (See SudokuSolver)
+	int passStartIterations;
+	int techniqueIndex;
+	final int[][] pendingPairs = {new int[0], new int[0]}; //queued pairs, by queue, oldest first
+	final int[] pendingSize = new int[2];
+	final boolean[] staleLines;
+	int staleLineCount;
+
+	static final int XOR_FIELDS = 5;
+	final int XOR_STRIDE;
+	final int WORDS;
+
+	/**
+	 * @param sudokuSideLength The side length of the Sudoku this snapshot is for.
+	 */
+	public SudokuSnapshot(int sudokuSideLength){
+		SUDOKU_SIDE_LENGTH = sudokuSideLength;
+		SUDOKU_NUMBER_OF_SQUARES = sudokuSideLength * sudokuSideLength;
+		XOR_STRIDE = XOR_FIELDS * sudokuSideLength;
+		WORDS = SudokuBits.wordsFor(sudokuSideLength);
+
+		values = new int[SUDOKU_NUMBER_OF_SQUARES];
+		exclusions = new long[SUDOKU_NUMBER_OF_SQUARES * WORDS];
+		completed = new boolean[3 * sudokuSideLength];
+		xorCounts = new int[3 * sudokuSideLength];
+		xors = new int[3 * sudokuSideLength * XOR_STRIDE];
+		staleLines = new boolean[sudokuSideLength];
+	}
+
+	/**
+	 * @return The array, or a copy with room for at least count ints.
+	 */
+	static int[] fit(int[] array, int count){
+		if(array.length >= count){
+			return array;
+		}
+		return Arrays.copyOf(array, Math.max(count, array.length * 2));
+	}
+
+	/**
+	 * @return The value of the square when the snapshot was saved. (0 for empty)
+	 */
+	public int valueAt(int position){
+		return values[position];
+	}
+
+	/**
+	 * Copies the values of each square, in the same order given to the Sudoku constructor.
+	 * @param sudokuValues An array of at least SUDOKU_NUMBER_OF_SQUARES ints to fill.
+	 * @return The same array, filled.
+	 */
+	public int[] getValues(int[] sudokuValues){
+		System.arraycopy(values, 0, sudokuValues, 0, SUDOKU_NUMBER_OF_SQUARES);
+		return sudokuValues;
+	}
+
+	/**
+	 * @return True if the snapshot was last saved by a SudokuSolver, so it can restore the solver as well as its Sudoku.
+	 */
+	public boolean hasSolverState(){
+		return hasSolverState;
+	}
+}
@@ -0,0 +1,332 @@
+/**
+ * Remembers the solution of each puzzle solved, by its canonical form, so a puzzle that's the same as one seen before,
+ * or only relabeled, swapped around or transposed (See SudokuCanonicalizer), is answered without solving it again.
+ * The solution is kept in canonical form and moved back the way the puzzle at hand was moved. Puzzles known to have no
+ * solution are remembered as such; puzzles the solver couldn't finish (ie: deduction alone halted, or it was stopped)
+ * aren't remembered at all.
+ * The cache holds at most a given number of puzzles, dropping the least recently used once full. It's split into
+ * segments by hash, each locked on its own, so threads mostly don't wait on each other. Each thread keeps its own
+ * SudokuCanonicalizer.
+ * Canonicalizing isn't free: a 9x9 puzzle takes about as long as solving an easy one, but a 25x25 puzzle with many
+ * givens can take far longer than solving it, so the cache is only worth it where puzzles repeat often.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public class SudokuSolutionCache {
+
+	private static final int SEGMENTS = 16;
+
+	public final int SUDOKU_SIDE_LENGTH;
+	public final int SUDOKU_NUMBER_OF_SQUARES;
+
+	private final int capacity;
+	private final Segment[] segments = new Segment[SEGMENTS];
+	private final ThreadLocal<Workspace> threadWorkspace = new ThreadLocal<Workspace>();
+	private int nodeLimit = SudokuCanonicalizer.DEFAULT_NODE_LIMIT;
+
+	/**
+	 * A puzzle in canonical form, one byte per square. It's stored with its solution in the same form, or for a puzzle
+	 * with no solution, a single byte holding the code SudokuSolver.validate() gave it.
+	 */
+	private static final class Key {
+		final byte[] values;
+		final int hash;
+
+		Key(int[] canonical, int numberOfSquares){
+			values = new byte[numberOfSquares];
+			for(int i=0; i < numberOfSquares; i++) {
+				values[i] = (byte)canonical[i];
+			}
+			hash = Arrays.hashCode(values);
+		}
+
+		@Override
+		public int hashCode(){
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other){
+			return other instanceof Key && hash == ((Key)other).hash && Arrays.equals(values, ((Key)other).values);
+		}
+	}
+
+	/**
+	 * Part of the cache, in order of use, least recent first. Every access is made holding its lock.
+	 */
+	private static final class Segment extends LinkedHashMap<Key, byte[]> {
+		private static final long serialVersionUID = 1L;
+		final int capacity;
+		long hits;
+		long misses;
+		long evictions;
+
+		Segment(int capacity){
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest){
+			if(size() > capacity) {
+				evictions++;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * What a thread needs to look up puzzles, reused for each of them.
+	 */
+	private static final class Workspace {
+		final SudokuCanonicalizer canonicalizer;
+		final int[] canonical;
+		final int[] solution;
+
+		Workspace(int sudokuSideLength) throws SudokuException{
+			canonicalizer = new SudokuCanonicalizer(sudokuSideLength);
+			canonical = new int[sudokuSideLength * sudokuSideLength];
+			solution = new int[sudokuSideLength * sudokuSideLength];
+		}
+	}
+
+	//puzzles that weren't looked up, as the canonicalizer gave up on them
+	private long skipped;
+
+	/**
+	 * @param sudokuSideLength The side length of the puzzles. It must be a square.
+	 * @param capacity The most puzzles remembered. It's split evenly between the segments, so it's rounded up to a
+	 *  multiple of them, at least one per segment. (See getCapacity())
+	 * @throws SudokuException If the side length isn't a square.
+	 */
+	public SudokuSolutionCache(int sudokuSideLength, int capacity) throws SudokuException{
+		int blockLength = (int)Math.round(Math.sqrt(sudokuSideLength));
+		if(blockLength * blockLength != sudokuSideLength) {
+			throw new SudokuException("Puzzles of side length " + sudokuSideLength + " can't be cached, as it isn't a square.");
+		}
+		SUDOKU_SIDE_LENGTH = sudokuSideLength;
+		SUDOKU_NUMBER_OF_SQUARES = sudokuSideLength * sudokuSideLength;
+		int perSegment = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+		this.capacity = SEGMENTS * perSegment;
+		for(int i=0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(perSegment);
+		}
+	}
+
+	/**
+	 * @param nodeLimit The node limit of the canonicalizer of each thread. Puzzles it gives up on are solved, but not
+	 *  remembered. (See SudokuCanonicalizer.setNodeLimit())
+	 */
+	public void setNodeLimit(int nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * Answers the puzzle from the cache if an equivalent one was solved before, or solves it with the solver and
+	 * remembers the result.
+	 * @param solver Solves the puzzle when it isn't in the cache, with whatever settings it has. It's only left
+	 *  holding the puzzle when it did.
+	 * @param puzzle The value of each square, as given to the Sudoku constructor. (0 for empty)
+	 * @param solution Where the puzzle is written once solved, or as far as it got. (The puzzle as given, if it's known
+	 *  to have no solution) May be the puzzle array.
+	 * @return The code SudokuSolver.validate() gives for the puzzle, 0 once solved. A hit gives the code the puzzle
+	 *  it matched was given.
+	 * @throws SudokuException If the puzzle can't be entered in the solver.
+	 */
+	public int solve(SudokuSolver solver, int[] puzzle, int[] solution) throws SudokuException{
+		Workspace workspace = workspace();
+		Key key;
+		Segment segment;
+		byte[] entry;
+		int resultCode;
+
+		if(!workspace.canonicalizer.canonicalize(puzzle, workspace.canonical)) {
+			synchronized(this) {
+				skipped++;
+			}
+			return solveWith(solver, puzzle, solution);
+		}
+		key = new Key(workspace.canonical, SUDOKU_NUMBER_OF_SQUARES);
+		segment = segments[(key.hash ^ (key.hash >>> 16)) & (SEGMENTS - 1)];
+		synchronized(segment) {
+			entry = segment.get(key);
+			if(entry != null) {
+				segment.hits++;
+			}else {
+				segment.misses++;
+			}
+		}
+
+		if(entry != null && entry.length == 1) {
+			System.arraycopy(puzzle, 0, solution, 0, SUDOKU_NUMBER_OF_SQUARES);
+			return entry[0];
+		}
+		if(entry != null) {
+			for(int i=0; i < SUDOKU_NUMBER_OF_SQUARES; i++) {
+				workspace.canonical[i] = entry[i];
+			}
+			workspace.canonicalizer.fromCanonical(workspace.canonical, solution);
+			return 0;
+		}
+
+		resultCode = solveWith(solver, puzzle, solution);
+		if(resultCode == 0) {
+			workspace.canonicalizer.toCanonical(solution, workspace.solution);
+			entry = new byte[SUDOKU_NUMBER_OF_SQUARES];
+			for(int i=0; i < SUDOKU_NUMBER_OF_SQUARES; i++) {
+				entry[i] = (byte)workspace.solution[i];
+			}
+		}else if(solver.isUnsolvable()) {
+			entry = new byte[] {(byte)resultCode};
+		}
+		if(entry != null) {
+			synchronized(segment) {
+				segment.put(key, entry);
+			}
+		}
+		return resultCode;
+	}
+
+	/**
+	 * Solves the puzzle with the solver, as if there was no cache.
+	 */
+	private int solveWith(SudokuSolver solver, int[] puzzle, int[] solution) throws SudokuException{
+		solver.enterSudoku(puzzle, SUDOKU_SIDE_LENGTH, null);
+		try {
+			solver.solveFull();
+		}catch(SudokuException e) {
+			//invalid puzzles keep whatever was found, and the solver knows it has no solution
+		}
+		solver.getValues(solution);
+		return solver.validate();
+	}
+
+	private Workspace workspace() throws SudokuException{
+		Workspace workspace = threadWorkspace.get();
+
+		if(workspace == null) {
+			workspace = new Workspace(SUDOKU_SIDE_LENGTH);
+			threadWorkspace.set(workspace);
+		}
+		workspace.canonicalizer.setNodeLimit(nodeLimit);
+		return workspace;
+	}
+
+	/**
+	 * Forgets every puzzle. The counts are kept.
+	 */
+	public void clear(){
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	/**
+	 * @return The most puzzles remembered: the capacity given, rounded up to a multiple of the segments.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return The number of puzzles remembered.
+	 */
+	public int size(){
+		int size = 0;
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	public long getHits(){
+		long hits = 0;
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				hits += segment.hits;
+			}
+		}
+		return hits;
+	}
+
+	public long getMisses(){
+		long misses = 0;
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				misses += segment.misses;
+			}
+		}
+		return misses;
+	}
+
+	/**
+	 * @return The number of puzzles dropped to make room for others.
+	 */
+	public long getEvictions(){
+		long evictions = 0;
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				evictions += segment.evictions;
+			}
+		}
+		return evictions;
+	}
+
+	/**
+	 * @return The number of puzzles solved without being looked up, as the canonicalizer gave up on them.
+	 */
+	public synchronized long getSkipped(){
+		return skipped;
+	}
+
+	/**
+	 * @return Hits out of every lookup, from 0 to 1. 0 if there were none.
+	 */
+	public double getHitRate(){
+		long hits = getHits();
+		long lookups = hits + getMisses();
+		return lookups == 0 ? 0 : (double)hits / lookups;
+	}
+
+	/**
+	 * Writes the counts of the cache as a JSON object.
+	 */
+	public void writeJSON(Appendable out) throws IOException{
+		out.append("{\n");
+		out.append("  \"capacity\": ").append(Integer.toString(capacity)).append(",\n");
+		out.append("  \"size\": ").append(Integer.toString(size())).append(",\n");
+		out.append("  \"hits\": ").append(Long.toString(getHits())).append(",\n");
+		out.append("  \"misses\": ").append(Long.toString(getMisses())).append(",\n");
+		out.append("  \"hit_rate\": ").append(String.format(Locale.ROOT, "%.4f", getHitRate())).append(",\n");
+		out.append("  \"evictions\": ").append(Long.toString(getEvictions())).append(",\n");
+		out.append("  \"skipped\": ").append(Long.toString(getSkipped())).append("\n");
+		out.append("}\n");
+	}
+
+	/**
+	 * Writes the counts of the cache in the Prometheus text format.
+	 */
+	public void writePrometheus(Appendable out) throws IOException{
+		SudokuMetrics.writeCounter(out, "sudoku_cache_hits_total", "Puzzles answered from the solution cache.", getHits());
+		SudokuMetrics.writeCounter(out, "sudoku_cache_misses_total", "Puzzles looked up in the solution cache and not found.", getMisses());
+		SudokuMetrics.writeCounter(out, "sudoku_cache_evictions_total", "Puzzles dropped from the solution cache to make room.", getEvictions());
+		SudokuMetrics.writeCounter(out, "sudoku_cache_skipped_total", "Puzzles solved without a lookup, as they couldn't be canonicalized in time.", getSkipped());
+		SudokuMetrics.writeHeader(out, "sudoku_cache_entries", "gauge", "Puzzles held by the solution cache.");
+		out.append("sudoku_cache_entries ").append(Integer.toString(size())).append('\n');
+	}
+}
@@ -10,31 +10,122 @@
 
 package SudokuSolver;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 public class SudokuSolver {
 
 	private static final boolean DEBUG = false;
 	
+	//engines solveFull() can use
+	public static final int ENGINE_DEDUCTIVE = 0;
+	public static final int ENGINE_DANCING_LINKS = 1;
+	
+	public static final int DEFAULT_MAX_ITERATIONS = 10000;
+	
+	//validate() code for a puzzle left incomplete because the solver was stopped (See setTimeLimit() and setCancellation())
+	public static final int VALIDATE_STOPPED = 4;
+	
+	//where solveStep() is up to with the stored Sudoku, numbered as the phases timed by SudokuMetrics
+	private static final int PHASE_START = SudokuMetrics.PHASE_START; //nothing queued yet
+	private static final int PHASE_DEDUCE = SudokuMetrics.PHASE_DEDUCE; //working through the queue (See deduce())
+	private static final int PHASE_TECHNIQUES = SudokuMetrics.PHASE_TECHNIQUES; //the queue is empty, techniques[techniqueIndex] goes next
+	private static final int PHASE_SEARCH = SudokuMetrics.PHASE_SEARCH; //making the next guess (See nextGuess())
+	private static final int PHASE_FINISHED = -1;
+	private int phase = PHASE_FINISHED;
+	private int techniqueIndex;
+	private boolean searching; //if deduction is going on from a guess
+	private boolean parallelSearchPending; //if the search is to be handed to the parallelSearch at the next step
+	private boolean foundInvalid; //if the stored Sudoku was found to be invalid outside of a search
+	private int searchDepth;
+	
 	private Sudoku sudokuAttempt;
 	private SudokuIODecoder decoderForIO;
 	
 	
 	//used for detecting when progress has halted.
-	private int mostRecentvalueFound; //Identifies the most recent number found
-	private int mostRecentBlock; //Identifies the block that the most recent value was found in
-	private boolean mostRecentFirstPass;
 	private boolean progressHalted;
-	private int iterations;
-	private int maxIterations = 10000;
+	private int iterations; //(block, value) pairs checked
+	private int maxIterations = DEFAULT_MAX_ITERATIONS; //per pass through the queue, negative for no max
+	private int passStartIterations; //iterations when the current pass started
 	private int blockSearchCount;
+	private int lineSearchCount;
 	
 	//tracking current state (in object context, as this will have step functionality
 	private int currentValue;
 	private int currentBlock;
-	private int targetBlock; //Identifies the last block to search; the block that the most recent value was found in
-	private boolean valueFoundInBlock; //If a value was found in current check - Used to reiterate block search when finding values and avoid early termination
-	private String message;
+	//what getMessage() describes, built from the counters only when asked for, so solving a puzzle builds no strings
+	private static final int MESSAGE_NONE = 0;
+	private static final int MESSAGE_NOT_STARTED = 1;
+	private static final int MESSAGE_HALTED = 2;
+	private static final int MESSAGE_MAX_ITERATIONS = 3;
+	private static final int MESSAGE_CANCELLED = 4;
+	private static final int MESSAGE_TIME_LIMIT = 5;
+	private static final int MESSAGE_DLX_SOLVED = 6;
+	private static final int MESSAGE_DLX_UNSOLVABLE = 7;
+	private static final int MESSAGE_SEARCH_SOLVED = 8;
+	private static final int MESSAGE_SEARCH_UNSOLVABLE = 9;
+	private int messageCode = MESSAGE_NONE;
+	
+	//propagation queue of (unit, value) pairs that need checking because something changed in them since they were last checked.
+	//Units are the rows, columns and blocks, numbered as in SudokuGeometry. A pair is stored as unit * SUDOKU_SIDE_LENGTH + (value - 1)
+	//Block pairs are kept apart from row/column pairs, and go first: a line is only searched once the blocks have nothing
+	//left to check, by which time many of its values have been found.
+	private static final int QUEUE_BLOCKS = 0;
+	private static final int QUEUE_LINES = 1;
+	private int[][] pendingPairs = new int[2][]; //ring buffers, by queue
+	private boolean[] pairQueued;
+	private int[] pendingHead = new int[2];
+	private int[] pendingSize = new int[2];
+	//values set since their rows and columns were last queued. Setting a value takes a square from every row and column
+	//crossing its own, so instead of working out which of those could have used it, they're all queued once the blocks run dry.
+	private boolean[] staleLines;
+	private int staleLineCount;
+	
+	private int[] possiblePositions; //scratch for findValueInUnit()
+	private int[] enteredValues; //scratch for decoding puzzles given as text
+	
+	//search fallback, used once deduction halts (when enabled)
+	private boolean searchEnabled = false;
+	private boolean xorsEnabled = true;
+	
+	//techniques tried once the queue empties, cheapest first (See SudokuTechnique)
+	private ArrayList<SudokuTechnique> techniques = createDefaultTechniques();
+	private boolean techniquesEnabled = true;
+	private boolean techniquesWhileSearching = false; //if every technique runs at each node of a search, not just the cheap ones
+	private long nodesVisited;
+	private long backtracks;
+	private int[] searchMarks; //undo trail marks of the Sudoku before branching, by depth (See Sudoku.mark())
+	private boolean[] branchHalted; //if deduction had halted before branching, leaving nothing queued, by depth
+	private int[][] branchPositions; //squares to try at each depth
+	private int[][] branchValues; //value to try in each of those squares
+	private int[] branchCount;
+	private int[] branchNext;
+	private int[] xorDetails = new int[3];
+	
+	private int engine = ENGINE_DEDUCTIVE;
+	private SudokuDLXSolver dlxSolver; //kept between puzzles of the same size
+	private int[] dlxValues; //scratch for handing the Sudoku to the dlxSolver
+	private int[] dlxSolvedValues;
+	private SudokuParallelSearch parallelSearch; //null to search on the calling thread
+	
+	//stopping from outside, checked between units of work, and every STOP_CHECK_INTERVAL pairs of a pass
+	private static final int STOP_CHECK_INTERVAL = 64;
+	private static final int STOP_NONE = 0;
+	private static final int STOP_TIME_LIMIT = 1;
+	private static final int STOP_CANCELLED = 2;
+	private long timeLimitNanos; //per puzzle, 0 for none
+	private SudokuCancellation cancellation;
+	private boolean hasDeadline;
+	private long deadline; //System.nanoTime() the time limit of the stored Sudoku runs out at
+	private int stopReason = STOP_NONE;
+	
+	//counts of what the solver does, null unless asked for (See setMetrics())
+	private SudokuMetrics metrics;
+	private long puzzleNanos; //time spent in solveStep() on the stored Sudoku
+	private long xorsAtStart; //XORs counted before the stored Sudoku was entered
 	
 	public SudokuSolver(){
 		
@@ -55,23 +146,12 @@ public class SudokuSolver {
 	 * @throws SudokuException
 	 */
 	public void enterSudoku(String puzzle, int sudokuSideLength, SudokuIODecoder decoder) throws SudokuException{
-		decoderForIO = decoder;
 		int numberOfSquares = sudokuSideLength*sudokuSideLength;
-		mostRecentvalueFound = 1;
-		mostRecentBlock = 0;
-		valueFoundInBlock = true;
-		progressHalted = false;
-		currentValue = 1;
-		currentBlock = 0;
-		targetBlock = sudokuSideLength - 1;
-		iterations = 0;
-		blockSearchCount = 0;
-		message = "Progress hasn't even started!";
+		int index;
 		
-		int[] values = new int[numberOfSquares];
-		int tempValue;
-		int index = 0;
-		char tempChar;
+		if(enteredValues == null || enteredValues.length != numberOfSquares) {
+			enteredValues = new int[numberOfSquares];
+		}
 		
 		if(puzzle.length() < numberOfSquares){
 			throw new SudokuException("" + puzzle.length() + " is not enough characters to populate a " + sudokuSideLength + "x" + sudokuSideLength 
@@ -79,23 +159,58 @@ public class SudokuSolver {
 		}
 		//not testing for too many conditions, as Sudoku formats are all over when looking online...
 		
-		for(int i=0; index<numberOfSquares && i<puzzle.length(); i++){
-			//get number
-			tempChar = puzzle.charAt(i);
-			
-			//scrubbing
-			if(decoder.charIsValid(tempChar)){
-				tempValue = decoder.charToInt(tempChar);
-				
-				values[index++] = tempValue;
-			}
-		}
+		//scrubbing, any character the decoder doesn't know is skipped
+		index = decoder.decode(puzzle, enteredValues, numberOfSquares);
 		
 		if(index < numberOfSquares){
 			throw new SudokuException("Not enough numbers/spaces in string to enter puzzle (index: " + index + ", argChars: " + puzzle.length() + ")");
 		}
 		
-		sudokuAttempt = new Sudoku(values, sudokuSideLength);
+		enterSudoku(enteredValues, sudokuSideLength, decoder);
+	}
+	
+	/**
+	 * Populates the Sudoku from values that are already decoded. (ie: by SudokuCSVReader)
+	 * If the last Sudoku entered is the same size, it's reloaded with the values instead of being rebuilt.
+	 * @param values The value of each square, as given to the Sudoku constructor.
+	 * @param sudokuSideLength The side length of the Sudoku.
+	 * @param decoder The decoder used when printing.
+	 * @throws SudokuException If there aren't enough values, or the Sudoku can't be built at that size.
+	 */
+	public void enterSudoku(int[] values, int sudokuSideLength, SudokuIODecoder decoder) throws SudokuException{
+		decoderForIO = decoder;
+		progressHalted = false;
+		currentValue = 1;
+		currentBlock = 0;
+		iterations = 0;
+		blockSearchCount = 0;
+		lineSearchCount = 0;
+		nodesVisited = 0;
+		backtracks = 0;
+		messageCode = MESSAGE_NOT_STARTED;
+		phase = PHASE_START;
+		searching = false;
+		parallelSearchPending = false;
+		foundInvalid = false;
+		stopReason = STOP_NONE;
+		for(int i=0; i < techniques.size(); i++) {
+			techniques.get(i).resetUses();
+		}
+		
+		if(values.length < sudokuSideLength*sudokuSideLength){
+			throw new SudokuException("" + values.length + " is not enough values to populate a " + sudokuSideLength + "x" + sudokuSideLength 
+					+ " puzzle. (" + sudokuSideLength*sudokuSideLength + "required.)");
+		}
+		if(sudokuAttempt != null && sudokuAttempt.SUDOKU_SIDE_LENGTH == sudokuSideLength) {
+			sudokuAttempt.loadValues(values);
+		}else {
+			sudokuAttempt = new Sudoku(values, sudokuSideLength);
+		}
+		sudokuAttempt.setMetrics(metrics);
+		puzzleNanos = 0;
+		if(metrics != null) {
+			xorsAtStart = metrics.getXORsCreated();
+		}
 	}
 	
 	/**
@@ -115,6 +230,20 @@ public class SudokuSolver {
 		return sudokuAttempt.print(decoder);
 	}
 	
+	/**
+	 * Writes the stored Sudoku to out. (See Sudoku.print(SudokuIODecoder, Appendable))
+	 */
+	public void print(SudokuIODecoder decoder, Appendable out) throws IOException{
+		sudokuAttempt.print(decoder, out);
+	}
+	
+	/**
+	 * Writes the stored Sudoku to out on one line. (See Sudoku.printCompact(SudokuIODecoder, Appendable))
+	 */
+	public void printCompact(SudokuIODecoder decoder, Appendable out) throws IOException{
+		sudokuAttempt.printCompact(decoder, out);
+	}
+	
 	/**
 	 * @return The details of any remaining stored conditions that assert a number's possible positions.
 	 */
@@ -137,136 +266,594 @@ public class SudokuSolver {
 	 * Progress and discovered conditions may be retrieved.
 	 */
 	public void solveFull() throws SudokuException{
-		//Should be programmed to use solveStep()
-		//That'd require a saved-state in this object if doing it by step should perform the same as doing it fully
-		
 		/*
-		 * *start at Number 1
-		 * Do until progress has halted
-		 * *	   CurrentBlock = 0
-		 * *    Do until Number can't be discovered in remaining blocks
+		 * *Queue every (Unit, Number) pair where Number isn't in Unit yet (Number 1 in each block, row and column first, then Number 2...)
+		 *  *  (A unit is a block, row or column. Blocks catch most values, rows and columns catch the rest)
+		 * Do until the queue is empty (progress has halted)
 		 *         ((Step code start))
-		 * *        Increment CurrentBlock (loop back to 1 if out of bounds, skip blocks where number is found or holds an XOR for that number)
+		 * *        Take the next pair from the queue (skip it if Number is found or Unit holds an XOR for that number)
 		 *         ((Block code start))
-		 *         Find squares in block that can contain Number (rows and columns internally track this)
+		 *         Find squares in unit that can contain Number (rows, columns and blocks internally track this)
 		 *             Check rows & columns
 		 *             *W* If square is hosting a pair of overlapping XOR conditions, assert that Number is one asserted by one of the two conditions
 		 *             *W* Accounts for alignment ("phantom numbers") from other blocks
 		 *         If only 1 position
 		 *             Assign Number to that square
-		 *             Update mostRecentNumberFound 
 		 *             (XOR conditions automatically trigger on assignment, and so does completing a row/column/block)
 		 *         else
 		 *             if 2 positions
-		 *                 Create XOR condition for those squares, and block (This is effectively found)
-		 *                 Update mostRecentNumberFound
+		 *                 Create XOR condition for those squares, and unit (This is effectively found, and a strong link)
 		 *             else if 0 positions
 		 *                 Puzzle is invalid!
 		 *             *W* If the positions align to a column/row
 		 *                 *W* Assert that Number is in the current block to the respective column/row
-		 *                 *W* Update mostRecentNumberFound
 		 *         ((Block code stop))
-		 *  *       If no block can be picked, the number is fully discovered. (XORs may still exist, and will have to be resolved.)
+		 *  *      For each square set since the last step (the Sudoku logs them, including squares set by XORs and completions)
+		 *  *          Queue (each block sharing its row or column, its value): the value can't go in that row/column anymore
+		 *  *          Queue (every row and column, its value) once no block is left to check: each crosses its row or column
+		 *  *          Queue (its block, row and column, every number): the square isn't free for any other number
+		 *         ((Step code stop))
+		 *  *      For each value excluded from a square since the last step (by a technique below)
+		 *  *          Queue (its block, row and column, the value)
 		 *         ((Step code stop))
-		 *  *   Increment number (loop back to 1 if out of bounds, and skip fully discovered numbers)
-		 *  *   If no number can be picked, the puzzle is solved. (XORs may still exist, and will have to be resolved.)
-		 *  *   If Number loops past the most recent number discovered (number found in a square or XOR *or Alignment*)
-		 *  *       Progress has halted.   
+		 *  *   Pairs only get queued when a square that could hold their number is taken, so nothing changed in a pair
+		 *  *   that isn't queued. Once the queue is empty, progress has halted.
+		 *  *   Then run the techniques, cheapest first, until one finds something (naked singles, pointing pairs and
+		 *  *   box-line reductions, naked/hidden pairs and triples, X-wings, coloring along the XORs). If one does, go back to the queue.
+		 *  *   (If every number has been found, the puzzle is solved. XORs may still exist, and will have to be resolved.)
 		 */
 		
-//		progressHalted = false;
-//		int currentBlock; //The current block of the value search
-//		int targetBlock; //The block to stop searching for a value
-//		int currentValue = 1; //the current value being serched
-//		int iterations = 0; //telemetry
-//		boolean valueFoundInBlock = false; //Value found in current block
-		boolean firstPass;
-		boolean continueSearchingWithThisValue = false;
+		phase = PHASE_START;
+		while(!solveStep(Integer.MAX_VALUE)) {
+			//a step only stops short of finishing when it runs out of budget
+		}
+	}
+	
+	/**
+	 * Carries on solving the stored Sudoku the way solveFull() does, for a bounded amount of work, then returns.
+	 * Where it's up to is kept in this object, so many puzzles can take turns on one thread, each a step at a time.
+	 * Checking a (unit, value) pair, trying a technique and making a guess each count as one unit of work.
+	 * With the Dancing Links engine, the whole solve is a single unit.
+	 * solveFull() starts over from the queue, so it shouldn't be mixed with steps on the same Sudoku.
+	 * The time limit starts with the first step, so the time between steps counts towards it.
+	 * @param budget The most units of work to do before returning.
+	 * @return True once the solver is finished with the Sudoku: it's solved, or progress has halted, or search is done,
+	 *  or it was stopped. Further steps do nothing until a Sudoku is entered.
+	 * @throws SudokuException When the puzzle is found to be invalid, which also finishes it.
+	 */
+	public boolean solveStep(int budget) throws SudokuException{
+		int workLeft = budget;
+		boolean wasFinished = phase == PHASE_FINISHED;
+		long stepStart = metrics != null ? System.nanoTime() : 0;
+		long phaseStart = stepStart;
+		int timedPhase;
+		boolean invalid = false;
+		
 		try{
-			do{ //until progress halted
-				currentBlock = 0;
-				targetBlock = sudokuAttempt.SUDOKU_SIDE_LENGTH - 1;
-				firstPass = true;
-				do{ //until this value can't be found currently
-					currentBlock = currentBlock % sudokuAttempt.SUDOKU_SIDE_LENGTH;
-					valueFoundInBlock = false;
-					if(!(sudokuAttempt.blockContainsConditional(currentBlock, currentValue))){
-						if(DEBUG) {
-							System.out.println("Looking for " + currentValue + " in block #" + currentBlock);
-						}
-						valueFoundInBlock = findValueInBlock(currentValue, currentBlock);
-						if(valueFoundInBlock){
-							targetBlock = currentBlock;
-							mostRecentvalueFound = currentValue;
-							mostRecentBlock = currentBlock;
-							mostRecentFirstPass = true;
-							if(DEBUG) {
-								System.out.println("Found");
-							}
-						}
-						blockSearchCount++;
-					}else if(DEBUG){
-						System.out.println("Value " + currentValue + " in block #" + currentBlock + " already discovered.");
-						if(currentBlock == targetBlock) {
-							System.out.println("currentBlock == targetBlock");
-							if(firstPass) {
-								System.out.println("firstPass");
-							}
+			while(phase != PHASE_FINISHED && workLeft > 0){
+				if(phase != PHASE_START && isStopRequested()) {
+					stop();
+					break;
+				}
+				timedPhase = phase == PHASE_START && engine == ENGINE_DANCING_LINKS ? SudokuMetrics.PHASE_DANCING_LINKS : phase;
+				try{
+					workLeft = step(workLeft);
+				}finally{
+					if(metrics != null) {
+						long now = System.nanoTime();
+						metrics.recordPhase(timedPhase, now - phaseStart);
+						phaseStart = now;
+					}
+				}
+			}
+			if(phase != PHASE_FINISHED && stopReason != STOP_NONE) {
+				//found while using up the last of the budget
+				stop();
+			}
+		}catch(SudokuException e){
+			invalid = true;
+			foundInvalid = true;
+			throw e;
+		}finally{
+			if(metrics != null && !wasFinished) {
+				puzzleNanos += System.nanoTime() - stepStart;
+				if(phase == PHASE_FINISHED) {
+					recordPuzzle(invalid);
+				}
+			}
+		}
+		return phase == PHASE_FINISHED;
+	}
+	
+	/**
+	 * Does the work of the phase solveStep() is up to: the next guess, technique or part of a pass through the queue.
+	 * @param workLeft The most units of work to do.
+	 * @return The units of work left.
+	 * @throws SudokuException When the puzzle is found to be invalid, outside of a search.
+	 */
+	private int step(int workLeft) throws SudokuException{
+		try{
+			switch(phase){
+				case PHASE_START:
+					startClock();
+					if(engine == ENGINE_DANCING_LINKS) {
+						workLeft--;
+						phase = PHASE_FINISHED;
+						if(usesParallelSearch()) {
+							searchInParallel(MESSAGE_DLX_SOLVED, MESSAGE_DLX_UNSOLVABLE);
+						}else {
+							solveDancingLinks();
 						}
+						break;
 					}
-					
-					sudokuAttempt.checkBlockConditions(currentBlock);
-					
-					iterations++;
-					
-					continueSearchingWithThisValue = (!(currentBlock == targetBlock && !valueFoundInBlock) && iterations < maxIterations) || firstPass;
-
-					firstPass = false;
-					currentBlock++;
-				}while(continueSearchingWithThisValue);
+					searching = false;
+					queueAllPairs();
+					startPass();
+					break;
+				case PHASE_DEDUCE:
+					workLeft -= deduce(workLeft);
+					break;
+				case PHASE_TECHNIQUES:
+					workLeft--;
+					applyNextTechnique();
+					break;
+				case PHASE_SEARCH:
+					if(parallelSearchPending) {
+						workLeft--;
+						searchInParallel(MESSAGE_SEARCH_SOLVED, MESSAGE_SEARCH_UNSOLVABLE);
+					}else if(nextGuess()) {
+						workLeft--;
+					}
+					break;
+			}
+		}catch(SudokuException e){
+			if(!searching) {
+				progressHalted = true;
+				phase = PHASE_FINISHED;
+				throw e;
+			}
+			//the guess was wrong, so try the next one
+			if(DEBUG) {
+				System.out.println("[" + getClass() + ".solveStep(); depth " + searchDepth + " failed: " + e.getMessage() + "]");
+			}
+			backtracks++;
+			phase = PHASE_SEARCH;
+		}
+		return workLeft;
+	}
+	
+	/**
+	 * Starts the time limit of the stored Sudoku, and forgets any earlier stop.
+	 */
+	private void startClock(){
+		stopReason = STOP_NONE;
+		hasDeadline = timeLimitNanos > 0;
+		if(hasDeadline) {
+			deadline = System.nanoTime() + timeLimitNanos;
+		}
+	}
+	
+	/**
+	 * Looks at the clock and the cancellation token, if there are any, and remembers why the solver should stop.
+	 * @return True if the solver should stop.
+	 */
+	private boolean isStopRequested(){
+		if(stopReason == STOP_NONE) {
+			if(cancellation != null && cancellation.isCancelled()) {
+				stopReason = STOP_CANCELLED;
+			}else if((hasDeadline && System.nanoTime() - deadline >= 0) || (cancellation != null && cancellation.isPastDeadline())) {
+				stopReason = STOP_TIME_LIMIT;
+			}
+		}
+		return stopReason != STOP_NONE;
+	}
+	
+	/**
+	 * Finishes with the stored Sudoku as far as it got. A search is undone back to where deduction left it, so the
+	 * Sudoku only holds values that were deduced.
+	 */
+	private void stop(){
+		if(searching) {
+			restoreBranch(0);
+			searching = false;
+		}
+		parallelSearchPending = false;
+		messageCode = stopReason == STOP_CANCELLED ? MESSAGE_CANCELLED : MESSAGE_TIME_LIMIT;
+		phase = PHASE_FINISHED;
+	}
+	
+	/**
+	 * Counts the stored Sudoku as done, under the furthest path it took through the solver.
+	 * @param invalid True if it was found to be invalid.
+	 */
+	private void recordPuzzle(boolean invalid){
+		int path = SudokuMetrics.PATH_SINGLES;
+		
+		if(invalid) {
+			path = SudokuMetrics.PATH_INVALID;
+		}else if(engine == ENGINE_DANCING_LINKS) {
+			path = SudokuMetrics.PATH_DANCING_LINKS;
+		}else if(nodesVisited > 0) {
+			path = SudokuMetrics.PATH_SEARCH;
+		}else if(metrics.getXORsCreated() > xorsAtStart) {
+			path = SudokuMetrics.PATH_XORS;
+		}
+		for(SudokuTechnique technique : techniques) {
+			if(path < SudokuMetrics.PATH_TECHNIQUES && technique.getUses() > 0) {
+				path = SudokuMetrics.PATH_TECHNIQUES;
+			}
+		}
+		metrics.recordPuzzle(path, sudokuAttempt.validate() == 0, stopReason != STOP_NONE, puzzleNanos, iterations, nodesVisited, backtracks);
+	}
+	
+	/**
+	 * @return True once the solver is finished with the stored Sudoku. (See solveStep())
+	 */
+	public boolean isFinished() {
+		return phase == PHASE_FINISHED;
+	}
+	
+	/**
+	 * Starts a pass of deduce() through the queue, queueing what changed since the last one.
+	 */
+	private void startPass(){
+		progressHalted = false;
+		queueChanges();
+		passStartIterations = iterations;
+		phase = PHASE_DEDUCE;
+	}
+	
+	/**
+	 * Runs the deductive loop described in solveFull() on the stored Sudoku, working through the propagation queue.
+	 * The pass ends once the queue is empty (progress has halted), or the max number of iterations for the pass has been reached.
+	 * @param budget The most pairs to check before returning, whether or not the pass is over.
+	 * @return The number of pairs checked.
+	 * @throws SudokuException When the puzzle is found to be invalid.
+	 */
+	private int deduce(int budget) throws SudokuException{
+		int sideLength = sudokuAttempt.SUDOKU_SIDE_LENGTH;
+		SudokuGeometry geometry = sudokuAttempt.getGeometry();
+		int checked = 0;
+		int pair;
+		int unit;
+		int queue;
+		
+		while(checked < budget){
+			if(maxIterations >= 0 && (iterations - passStartIterations) >= maxIterations) {
+				endPass();
+				break;
+			}
+			if(pendingSize[QUEUE_BLOCKS] == 0) {
+				queueStaleLines();
+			}
+			if(pendingSize[QUEUE_BLOCKS] + pendingSize[QUEUE_LINES] == 0) {
+				endPass();
+				break;
+			}
+			queue = pendingSize[QUEUE_BLOCKS] > 0 ? QUEUE_BLOCKS : QUEUE_LINES;
+			pair = pendingPairs[queue][pendingHead[queue]];
+			pairQueued[pair] = false;
+			pendingHead[queue] = (pendingHead[queue] + 1) % pendingPairs[queue].length;
+			pendingSize[queue]--;
+			unit = pair / sideLength;
+			if(queue == QUEUE_LINES && sudokuAttempt.unitContainsAbsolute(unit, pair % sideLength + 1)) {
+				//found by the blocks while it waited, so any XOR for it is satisfied too
+				continue;
+			}
+			currentValue = pair % sideLength + 1;
+			if(unit >= geometry.blockUnit(0)) {
+				currentBlock = unit - geometry.blockUnit(0);
+			}
+			
+			if(!(sudokuAttempt.unitContainsConditional(unit, currentValue))){
 				if(DEBUG) {
-					System.out.println(">>>escaping do-while");
+					System.out.println("Looking for " + currentValue + " in unit #" + unit);
 				}
-				
-				currentValue = currentValue % sudokuAttempt.SUDOKU_SIDE_LENGTH + 1; // max number would become 1
-				
-				//termination check
-				if(!mostRecentFirstPass && mostRecentvalueFound == currentValue){
-					progressHalted = true;
-				}else{
-					mostRecentFirstPass = false;
+				if(findValueInUnit(currentValue, unit) && DEBUG) {
+					System.out.println("Found");
 				}
-			}while(!progressHalted && iterations < maxIterations);
+				if(unit >= geometry.blockUnit(0)) {
+					blockSearchCount++;
+				}else {
+					lineSearchCount++;
+				}
+			}else if(DEBUG){
+				System.out.println("Value " + currentValue + " in unit #" + unit + " already discovered.");
+			}
 			
-			if(progressHalted) {
-				message = "Progress was halted because progress appeared to have halted. "
-						+ "(looped through Sudoku without progress)";
-			}else if(iterations >= maxIterations) {
-				message = "Progress was halted because the max number of iterations was reached. "
-						+ "(actual iterations: " + iterations + ", max iterations: " + maxIterations + ")";
+			sudokuAttempt.checkUnitConditions(unit);
+			
+			iterations++;
+			checked++;
+			queueChanges();
+			if(checked % STOP_CHECK_INTERVAL == 0 && isStopRequested()) {
+				//solveStep() stops the solver
+				break;
 			}
+		}
+		return checked;
+	}
+	
+	/**
+	 * Ends a pass of deduce(). Each time progress halts, the techniques are tried, cheapest first, until one finds
+	 * anything, as the queue is worked through again after each one, being cheaper still.
+	 */
+	private void endPass(){
+		progressHalted = pendingSize[QUEUE_BLOCKS] + pendingSize[QUEUE_LINES] + staleLineCount == 0;
+		
+		messageCode = progressHalted ? MESSAGE_HALTED : MESSAGE_MAX_ITERATIONS;
+		if(DEBUG) {
+			System.out.println("\nDumping SudokuSolver variables:");
+			System.out.println("currentValue = " + currentValue);
+			System.out.println("currentBlock = " + currentBlock);
+			System.out.println("progressHalted = " + progressHalted);
+			System.out.println("pairs still queued = " + (pendingSize[QUEUE_BLOCKS] + pendingSize[QUEUE_LINES]));
+			
+			System.out.println("");
+		}
+		
+		if(progressHalted && techniquesEnabled && nextTechnique(0) < techniques.size() && sudokuAttempt.validate() == 1) {
+			techniqueIndex = nextTechnique(0);
+			phase = PHASE_TECHNIQUES;
+		}else {
+			endDeduction();
+		}
+	}
+	
+	/**
+	 * Tries the next technique. If it finds anything, the queue is worked through again.
+	 * @throws SudokuException When the puzzle is found to be invalid.
+	 */
+	private void applyNextTechnique() throws SudokuException{
+		int index = techniqueIndex++;
+		SudokuTechnique technique = techniques.get(index);
+		long start = metrics != null ? System.nanoTime() : 0;
+		boolean found = technique.apply(sudokuAttempt);
+		
+		if(metrics != null) {
+			metrics.recordTechnique(index, technique.getName(), found, System.nanoTime() - start);
+		}
+		if(found) {
 			if(DEBUG) {
-				System.out.println("\nDumping SudokuSolver variables:");
-				System.out.println("currentValue = " + currentValue);
-				System.out.println("currentBlock = " + currentBlock);
-				System.out.println("targetBlock = " + targetBlock);
-				System.out.println("progressHalted = " + progressHalted);
-				System.out.println("firstPass = " + firstPass);
-				System.out.println("mostRecentvalueFound = " + mostRecentvalueFound);
-				System.out.println("mostRecentBlock = " + mostRecentBlock);
-				System.out.println("mostRecentFirstPass = " + mostRecentFirstPass);
-				System.out.println("valueFoundInBlock = " + valueFoundInBlock);
-				
-				System.out.println("");
+				System.out.println("[" + getClass() + ".applyNextTechnique(); " + technique.getName() + " found something]");
+			}
+			technique.recordUse();
+			startPass();
+		}else {
+			techniqueIndex = nextTechnique(techniqueIndex);
+			if(techniqueIndex >= techniques.size()) {
+				endDeduction();
+			}
+		}
+	}
+	
+	/**
+	 * @param index Where to start looking in the techniques.
+	 * @return The index of the first technique from there that's run now: any of them before a search, only the cheap
+	 *  ones during it (unless techniquesWhileSearching). The size of the list if there are none left.
+	 */
+	private int nextTechnique(int index){
+		while(index < techniques.size() && searching && !techniquesWhileSearching && !techniques.get(index).isCheap()) {
+			index++;
+		}
+		return index;
+	}
+	
+	/**
+	 * Called once deduction can't go any further: a guess of the search is checked, or the search is started once
+	 * deduction halts on an incomplete puzzle (when enabled), on this thread or by the parallelSearch at the next step.
+	 * Otherwise the solver is finished.
+	 */
+	private void endDeduction(){
+		if(searching) {
+			checkGuess();
+		}else if(progressHalted && searchEnabled && sudokuAttempt.validate() == 1) {
+			if(usesParallelSearch()) {
+				parallelSearchPending = true;
+				phase = PHASE_SEARCH;
+			}else {
+				startSearch();
+			}
+		}else {
+			phase = PHASE_FINISHED;
+		}
+	}
+	
+	/**
+	 * @return The techniques solveFull() uses by default, from cheapest to most expensive.
+	 */
+	public static ArrayList<SudokuTechnique> createDefaultTechniques(){
+		ArrayList<SudokuTechnique> defaults = new ArrayList<SudokuTechnique>();
+		defaults.add(new SudokuNakedSingles());
+		defaults.add(new SudokuPointing());
+		defaults.add(new SudokuNakedSubsets(2));
+		defaults.add(new SudokuHiddenSubsets(2));
+		defaults.add(new SudokuNakedSubsets(3));
+		defaults.add(new SudokuHiddenSubsets(3));
+		defaults.add(new SudokuXWing());
+		defaults.add(new SudokuColoring());
+		return defaults;
+	}
+	
+	/**
+	 * Empties the propagation queue, then queues every (unit, value) pair that still has to be found, value by value.
+	 * Used when starting on a puzzle, or after the Sudoku was reloaded and its conditions were dropped.
+	 */
+	private void queueAllPairs(){
+		int sideLength = sudokuAttempt.SUDOKU_SIDE_LENGTH;
+		SudokuGeometry geometry = sudokuAttempt.getGeometry();
+		
+		clearQueue();
+		for(int value=1; value <= sideLength; value++) {
+			for(int block=0; block < sideLength; block++) {
+				queuePair(geometry.blockUnit(block), value);
+			}
+			for(int line=0; line < 2 * sideLength; line++) {
+				queuePair(line, value);
+			}
+		}
+		sudokuAttempt.clearChanges();
+	}
+	
+	/**
+	 * Empties the propagation queue, sizing it for the stored Sudoku.
+	 */
+	private void clearQueue(){
+		int sideLength = sudokuAttempt.SUDOKU_SIDE_LENGTH;
+		int numberOfPairs = sudokuAttempt.getGeometry().NUMBER_OF_UNITS * sideLength;
+		
+		if(pairQueued == null || pairQueued.length != numberOfPairs) {
+			pendingPairs[QUEUE_BLOCKS] = new int[sideLength * sideLength];
+			pendingPairs[QUEUE_LINES] = new int[2 * sideLength * sideLength];
+			pairQueued = new boolean[numberOfPairs];
+			staleLines = new boolean[sideLength];
+		}else {
+			for(int queue=0; queue < pendingPairs.length; queue++) {
+				while(pendingSize[queue] > 0) {
+					pairQueued[pendingPairs[queue][pendingHead[queue]]] = false;
+					pendingHead[queue] = (pendingHead[queue] + 1) % pendingPairs[queue].length;
+					pendingSize[queue]--;
+				}
+			}
+		}
+		for(int queue=0; queue < pendingPairs.length; queue++) {
+			pendingHead[queue] = 0;
+			pendingSize[queue] = 0;
+		}
+		Arrays.fill(staleLines, false);
+		staleLineCount = 0;
+	}
+	
+	/**
+	 * Copies the propagation queue into the snapshot, oldest pair first, along with the values whose lines are stale.
+	 */
+	private void saveQueue(SudokuSnapshot snapshot){
+		int[] ring;
+		for(int queue=0; queue < pendingPairs.length; queue++) {
+			ring = pendingPairs[queue];
+			snapshot.pendingPairs[queue] = SudokuSnapshot.fit(snapshot.pendingPairs[queue], pendingSize[queue]);
+			for(int i=0; i < pendingSize[queue]; i++) {
+				snapshot.pendingPairs[queue][i] = ring[(pendingHead[queue] + i) % ring.length];
+			}
+			snapshot.pendingSize[queue] = pendingSize[queue];
+		}
+		System.arraycopy(staleLines, 0, snapshot.staleLines, 0, staleLines.length);
+		snapshot.staleLineCount = staleLineCount;
+		snapshot.currentValue = currentValue;
+		snapshot.currentBlock = currentBlock;
+	}
+	
+	/**
+	 * Replaces the propagation queue with the one saved by saveQueue().
+	 */
+	private void restoreQueue(SudokuSnapshot snapshot){
+		int pair;
+		clearQueue();
+		for(int queue=0; queue < pendingPairs.length; queue++) {
+			for(int i=0; i < snapshot.pendingSize[queue]; i++) {
+				pair = snapshot.pendingPairs[queue][i];
+				pendingPairs[queue][i] = pair;
+				pairQueued[pair] = true;
+			}
+			pendingSize[queue] = snapshot.pendingSize[queue];
+		}
+		System.arraycopy(snapshot.staleLines, 0, staleLines, 0, staleLines.length);
+		staleLineCount = snapshot.staleLineCount;
+		currentValue = snapshot.currentValue;
+		currentBlock = snapshot.currentBlock;
+	}
+	
+	/**
+	 * Queues the pairs affected by each square set and each value excluded since the Sudoku's change log was last cleared,
+	 * then clears it.
+	 */
+	private void queueChanges(){
+		int sideLength = sudokuAttempt.SUDOKU_SIDE_LENGTH;
+		int blockLength = sudokuAttempt.SUDOKU_BLOCK_LENGTH;
+		SudokuGeometry geometry = sudokuAttempt.getGeometry();
+		int square;
+		int value;
+		int block;
+		int row;
+		int column;
+		
+		for(int i=0; i < sudokuAttempt.getChangeCount(); i++) {
+			square = sudokuAttempt.getChangedSquare(i);
+			value = sudokuAttempt.valueAt(square);
+			block = geometry.blockOf(square);
+			row = geometry.rowUnit(geometry.rowOf(square));
+			column = geometry.columnUnit(geometry.columnOf(square));
+			//blocks in the same band (sharing the row) and stack (sharing the column)
+			for(int j=0; j < blockLength; j++) {
+				queuePair(geometry.blockUnit(block - block % blockLength + j), value);
+				queuePair(geometry.blockUnit(j * blockLength + block % blockLength), value);
+			}
+			//every row crosses the column, and every column crosses the row
+			if(!staleLines[value-1]) {
+				staleLines[value-1] = true;
+				staleLineCount++;
+			}
+			//the square is only lost to the values it could have held
+			for(int otherValue=1; otherValue <= sideLength; otherValue++) {
+				if(otherValue != value && !sudokuAttempt.unitContainsAbsolute(column, otherValue)
+						&& !sudokuAttempt.blockContainsAbsolute(block, otherValue) && !sudokuAttempt.isExcluded(square, otherValue)) {
+					queuePair(geometry.blockUnit(block), otherValue);
+					queuePair(row, otherValue);
+					queuePair(column, otherValue);
+				}
+			}
+		}
+		for(int i=0; i < sudokuAttempt.getEliminationCount(); i++) {
+			square = sudokuAttempt.getEliminatedSquare(i);
+			value = sudokuAttempt.getEliminatedValue(i);
+			queuePair(geometry.blockUnit(geometry.blockOf(square)), value);
+			queuePair(geometry.rowUnit(geometry.rowOf(square)), value);
+			queuePair(geometry.columnUnit(geometry.columnOf(square)), value);
+		}
+		sudokuAttempt.clearChanges();
+	}
+	
+	/**
+	 * Queues every row and column for each value set since they were last queued for it.
+	 */
+	private void queueStaleLines(){
+		int sideLength = sudokuAttempt.SUDOKU_SIDE_LENGTH;
+		
+		for(int value=1; value <= sideLength && staleLineCount > 0; value++) {
+			if(staleLines[value-1]) {
+				staleLines[value-1] = false;
+				staleLineCount--;
+				for(int line=0; line < 2 * sideLength; line++) {
+					queuePair(line, value);
+				}
 			}
-			
-			
-		}catch(SudokuException e){
-			progressHalted = true;
-			throw e;
 		}
 	}
 	
+	private void queuePair(int unit, int value){
+		int pair = unit * sudokuAttempt.SUDOKU_SIDE_LENGTH + value - 1;
+		int queue = unit >= sudokuAttempt.getGeometry().blockUnit(0) ? QUEUE_BLOCKS : QUEUE_LINES;
+		
+		if(!pairQueued[pair] && !sudokuAttempt.unitContainsAbsolute(unit, value)) {
+			pairQueued[pair] = true;
+			pendingPairs[queue][(pendingHead[queue] + pendingSize[queue]) % pendingPairs[queue].length] = pair;
+			pendingSize[queue]++;
+		}
+	}
+	
+	/**
+	 * Copies the values of each square of the stored Sudoku into the given array.
+	 * @param values An array of at least SUDOKU_NUMBER_OF_SQUARES ints to fill.
+	 * @return The same array, filled.
+	 */
+	public int[] getValues(int[] values){
+		return sudokuAttempt.getValues(values);
+	}
+	
+	/**
+	 * Copies the stored Sudoku, without its conditions. (See Sudoku(Sudoku))
+	 * Builds a whole new Sudoku; saveState() is the cheaper way to keep a state to come back to.
+	 */
 	public Sudoku getSudokuAttempt(){
 		Sudoku puzzle = null;
 		try {
@@ -279,6 +866,91 @@ public class SudokuSolver {
 		return puzzle;
 	}
 
+	/**
+	 * @return A new snapshot of the stored Sudoku and of this solver. (See saveState(SudokuSnapshot))
+	 * @throws SudokuException If the solver is searching.
+	 */
+	public SudokuSnapshot saveState() throws SudokuException{
+		SudokuSnapshot snapshot = new SudokuSnapshot(sudokuAttempt.SUDOKU_SIDE_LENGTH);
+		saveState(snapshot);
+		return snapshot;
+	}
+	
+	/**
+	 * Copies the stored Sudoku, its XOR conditions included, and where this solver is in it into the snapshot: the
+	 * propagation queue, current value and block, counters, halted flag, message, and where solveStep() is up to.
+	 * Restoring it picks up from the same point. The uses counted by the techniques aren't saved.
+	 * @param snapshot A snapshot of the same size as the stored Sudoku, which is overwritten.
+	 * @throws SudokuException If the snapshot is for another size, or the solver is searching. (The branches of a search
+	 *  are kept on the Sudoku's undo trail, which restoring drops)
+	 */
+	public void saveState(SudokuSnapshot snapshot) throws SudokuException{
+		if(searching || parallelSearchPending) {
+			throw new SudokuException("The solver can't be saved in the middle of a search.");
+		}
+		sudokuAttempt.saveState(snapshot);
+		if(pairQueued == null) {
+			clearQueue();
+		}
+		saveQueue(snapshot);
+		snapshot.iterations = iterations;
+		snapshot.blockSearchCount = blockSearchCount;
+		snapshot.lineSearchCount = lineSearchCount;
+		snapshot.nodesVisited = nodesVisited;
+		snapshot.backtracks = backtracks;
+		snapshot.progressHalted = progressHalted;
+		snapshot.messageCode = messageCode;
+		snapshot.phase = phase;
+		snapshot.passStartIterations = passStartIterations;
+		snapshot.techniqueIndex = techniqueIndex;
+		snapshot.hasSolverState = true;
+	}
+	
+	/**
+	 * Puts the stored Sudoku and this solver back in the state saved in the snapshot, without building anything when the
+	 * stored Sudoku is of the same size. If the snapshot was saved from a Sudoku alone, the solver starts over on it,
+	 * with every pair queued, as it can't know what was already checked.
+	 * The time limit starts over from the restore, as the time spent before the save isn't kept.
+	 * @param snapshot A snapshot saved by Sudoku.saveState() or SudokuSolver.saveState().
+	 * @throws SudokuException If the snapshot can't be loaded.
+	 */
+	public void restoreState(SudokuSnapshot snapshot) throws SudokuException{
+		if(sudokuAttempt == null || sudokuAttempt.SUDOKU_SIDE_LENGTH != snapshot.SUDOKU_SIDE_LENGTH) {
+			sudokuAttempt = new Sudoku(snapshot.getValues(new int[snapshot.SUDOKU_NUMBER_OF_SQUARES]), snapshot.SUDOKU_SIDE_LENGTH);
+			sudokuAttempt.setMetrics(metrics);
+		}
+		sudokuAttempt.restoreState(snapshot);
+		startClock();
+		foundInvalid = false;
+		if(!snapshot.hasSolverState) {
+			queueAllPairs();
+			iterations = 0;
+			blockSearchCount = 0;
+			lineSearchCount = 0;
+			nodesVisited = 0;
+			backtracks = 0;
+			progressHalted = false;
+			messageCode = MESSAGE_NONE;
+			phase = PHASE_START;
+			searching = false;
+			parallelSearchPending = false;
+			return;
+		}
+		restoreQueue(snapshot);
+		iterations = snapshot.iterations;
+		blockSearchCount = snapshot.blockSearchCount;
+		lineSearchCount = snapshot.lineSearchCount;
+		nodesVisited = snapshot.nodesVisited;
+		backtracks = snapshot.backtracks;
+		progressHalted = snapshot.progressHalted;
+		messageCode = snapshot.messageCode;
+		phase = snapshot.phase;
+		passStartIterations = snapshot.passStartIterations;
+		techniqueIndex = snapshot.techniqueIndex;
+		searching = false;
+		parallelSearchPending = false;
+	}
+	
 	public int getIterations() {
 		return iterations;
 	}
@@ -286,10 +958,26 @@ public class SudokuSolver {
 	public int getBlockSearchCount() {
 		return blockSearchCount;
 	}
+	
+	/**
+	 * @return The number of times a row or column was searched for a value.
+	 */
+	public int getLineSearchCount() {
+		return lineSearchCount;
+	}
 
 	public int getMaxIterations() {
 		return maxIterations;
 	}
+	
+	/**
+	 * Caps the iterations of each pass through the queue. A pass is made at the start, after each technique that finds
+	 * something, and after each guess of the search. If a pass reaches it, deduction stops there, unfinished.
+	 * @param maxIterations The max number of (unit, value) pairs checked in a pass, or a negative number for no max.
+	 */
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
 
 	public int getCurrentValue() {
 		return currentValue;
@@ -299,50 +987,503 @@ public class SudokuSolver {
 		return currentBlock;
 	}
 
+	public long getNodesVisited() {
+		return nodesVisited;
+	}
+	
+	public long getBacktracks() {
+		return backtracks;
+	}
+	
+	/**
+	 * When enabled, solveFull() will search for a solution once deduction halts on an incomplete puzzle.
+	 * @param searchEnabled True to allow guessing.
+	 */
+	public void setSearchEnabled(boolean searchEnabled) {
+		this.searchEnabled = searchEnabled;
+	}
+	
+	public boolean isSearchEnabled() {
+		return searchEnabled;
+	}
+	
+	/**
+	 * When disabled, no XOR conditions are made when a value has two places left in a unit. Everything else the solver
+	 * does is unchanged: blocks, rows and columns are still searched, and the techniques still run (See
+	 * setTechniquesEnabled()). Used to rate how much of the solver a puzzle needs.
+	 * @param xorsEnabled False to stop making XOR conditions.
+	 */
+	public void setXORsEnabled(boolean xorsEnabled) {
+		this.xorsEnabled = xorsEnabled;
+	}
+	
+	public boolean isXORsEnabled() {
+		return xorsEnabled;
+	}
+	
+	/**
+	 * When disabled, solveFull() stops as soon as the queue is empty, without trying any technique.
+	 * @param techniquesEnabled False to stop using techniques.
+	 */
+	public void setTechniquesEnabled(boolean techniquesEnabled) {
+		this.techniquesEnabled = techniquesEnabled;
+	}
+	
+	public boolean isTechniquesEnabled() {
+		return techniquesEnabled;
+	}
+	
+	/**
+	 * By default, once the search starts only the cheap techniques (See SudokuTechnique.isCheap()) are run after each
+	 * guess, along with the queue. The others already ran once before the search, and running them at every node costs
+	 * more than the guesses they save.
+	 * @param techniquesWhileSearching True to run every technique at each node of the search.
+	 */
+	public void setTechniquesWhileSearching(boolean techniquesWhileSearching) {
+		this.techniquesWhileSearching = techniquesWhileSearching;
+	}
+	
+	public boolean isTechniquesWhileSearching() {
+		return techniquesWhileSearching;
+	}
+	
+	/**
+	 * The techniques are tried in the order of this list, so a technique added to it should go after any that are cheaper.
+	 * Their uses are reset each time a Sudoku is entered, so they tell which techniques the last puzzle needed.
+	 * @return The list of techniques used by this solver. (Not a copy)
+	 */
+	public ArrayList<SudokuTechnique> getTechniques() {
+		return techniques;
+	}
+	
+	/**
+	 * Starts counting what this solver and its Sudoku do: squares set by each rule, XORs made and satisfied, time spent in
+	 * each phase and technique, and the solve time of each puzzle, by the path it took. (See SudokuMetrics)
+	 * The counts add up over every puzzle until the metrics are reset. Without metrics, counting costs a null check.
+	 * @param metrics Where to count, or null to stop counting. Only one solver should count into it at a time.
+	 */
+	public void setMetrics(SudokuMetrics metrics) {
+		this.metrics = metrics;
+		if(sudokuAttempt != null) {
+			sudokuAttempt.setMetrics(metrics);
+		}
+		if(metrics != null) {
+			xorsAtStart = metrics.getXORsCreated();
+		}
+	}
+	
+	public SudokuMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Limits the time spent on each puzzle. Once it runs out, the solver stops where it is, and the Sudoku is left with
+	 * what was deduced so far (a search is undone). validate() then gives VALIDATE_STOPPED if it's incomplete.
+	 * The clock is only looked at every few dozen pairs checked, and between techniques and guesses, so a solve can go a
+	 * little over, by as much as the slowest technique takes on the size of Sudoku.
+	 * @param timeLimit The time limit, or 0 for none.
+	 */
+	public void setTimeLimit(long timeLimit, TimeUnit unit) {
+		timeLimitNanos = Math.max(0, unit.toNanos(timeLimit));
+	}
+	
+	/**
+	 * @return The time limit of each puzzle in nanoseconds, or 0 for none.
+	 */
+	public long getTimeLimitNanos() {
+		return timeLimitNanos;
+	}
+	
+	/**
+	 * Stops solving, as the time limit does, once the token is cancelled or its deadline passes. The token is looked at
+	 * as often as the clock. (See setTimeLimit())
+	 * @param cancellation The token, or null for none.
+	 */
+	public void setCancellation(SudokuCancellation cancellation) {
+		this.cancellation = cancellation;
+	}
+	
+	public SudokuCancellation getCancellation() {
+		return cancellation;
+	}
+	
+	/**
+	 * @return True if the solver was stopped before it finished the stored Sudoku, by its time limit or cancellation.
+	 */
+	public boolean isStopped() {
+		return stopReason != STOP_NONE;
+	}
+	
+	/**
+	 * @return True if the stored Sudoku is known to have no solution: it was found to be invalid, or the search or
+	 *  Dancing Links went through every possibility without finding one. A puzzle left incomplete for any other reason
+	 *  (ie: deduction alone halted, or the solver was stopped) may still have one.
+	 */
+	public boolean isUnsolvable() {
+		return foundInvalid || messageCode == MESSAGE_SEARCH_UNSOLVABLE || messageCode == MESSAGE_DLX_UNSOLVABLE;
+	}
+	
+	/**
+	 * Picks the engine used by solveFull().
+	 * ENGINE_DEDUCTIVE: The step based solver using XOR conditions (and search, if enabled).
+	 * ENGINE_DANCING_LINKS: Solves the puzzle as an exact cover problem. (See SudokuDLXSolver)
+	 * @param engine One of the ENGINE_ constants.
+	 */
+	public void setEngine(int engine) {
+		this.engine = engine;
+	}
+	
+	public int getEngine() {
+		return engine;
+	}
+	
+	/**
+	 * Hands the searching of puzzles to a SudokuParallelSearch, so one hard puzzle is spread over its threads: the whole
+	 * solve with the Dancing Links engine, or what's left once deduction halts, with search enabled. Solutions are
+	 * counted with it too. Puzzles of another size than the search's are searched on the calling thread as usual.
+	 * The search isn't shut down by the solver, and can be shared by solvers, though it runs one search at a time.
+	 * @param parallelSearch The search, or null to search on the calling thread.
+	 */
+	public void setParallelSearch(SudokuParallelSearch parallelSearch) {
+		this.parallelSearch = parallelSearch;
+	}
+	
+	public SudokuParallelSearch getParallelSearch() {
+		return parallelSearch;
+	}
+	
+	/**
+	 * Solves the stored Sudoku with a SudokuDLXSolver, then loads the solution back into it.
+	 * The solver is kept for the next puzzle of the same size.
+	 */
+	private void solveDancingLinks() throws SudokuException{
+		prepareDancingLinks();
+		dlxSolver.resetTelemetry();
+		if(hasDeadline) {
+			dlxSolver.setDeadline(deadline);
+		}
+		
+		progressHalted = true;
+		if(dlxSolver.solve(dlxValues, dlxSolvedValues)) {
+			sudokuAttempt.loadValues(dlxSolvedValues);
+			messageCode = MESSAGE_DLX_SOLVED;
+		}else {
+			messageCode = MESSAGE_DLX_UNSOLVABLE;
+		}
+		nodesVisited = dlxSolver.getNodesVisited();
+		backtracks = dlxSolver.getBacktracks();
+		if(dlxSolver.isStopped()) {
+			//what stopped it is still there to be found, as cancellations and deadlines don't go back
+			isStopRequested();
+			stop();
+		}
+	}
+	
+	/**
+	 * Makes sure the dlxSolver fits the stored Sudoku, then copies the Sudoku's values for it.
+	 */
+	private void prepareDancingLinks() throws SudokuException{
+		if(dlxSolver == null || dlxSolver.SUDOKU_SIDE_LENGTH != sudokuAttempt.SUDOKU_SIDE_LENGTH) {
+			dlxSolver = new SudokuDLXSolver(sudokuAttempt.SUDOKU_SIDE_LENGTH);
+			dlxValues = new int[sudokuAttempt.SUDOKU_NUMBER_OF_SQUARES];
+			dlxSolvedValues = new int[sudokuAttempt.SUDOKU_NUMBER_OF_SQUARES];
+		}
+		dlxSolver.setCancellation(cancellation);
+		dlxSolver.clearDeadline();
+		sudokuAttempt.getValues(dlxValues);
+	}
+	
+	/**
+	 * Searches the stored Sudoku as it is on the threads of the parallelSearch, then loads the solution back into it.
+	 * The time limit and cancellation token of this solver stop it too.
+	 * @param solvedMessage The message once a solution is found.
+	 * @param unsolvableMessage The message if there's none.
+	 */
+	private void searchInParallel(int solvedMessage, int unsolvableMessage) throws SudokuException{
+		SudokuCancellation searchCancellation = cancellation;
+		boolean found;
+		boolean stopped;
+		
+		parallelSearchPending = false;
+		phase = PHASE_FINISHED;
+		progressHalted = true;
+		if(dlxValues == null || dlxValues.length != sudokuAttempt.SUDOKU_NUMBER_OF_SQUARES) {
+			dlxValues = new int[sudokuAttempt.SUDOKU_NUMBER_OF_SQUARES];
+			dlxSolvedValues = new int[sudokuAttempt.SUDOKU_NUMBER_OF_SQUARES];
+		}
+		sudokuAttempt.getValues(dlxValues);
+		if(hasDeadline) {
+			searchCancellation = new SudokuCancellation(cancellation);
+			searchCancellation.setDeadline(deadline);
+		}
+		
+		//held until the counters are read, so another solver sharing the search can't start one in between
+		synchronized(parallelSearch) {
+			found = parallelSearch.solve(dlxValues, dlxSolvedValues, searchCancellation);
+			nodesVisited += parallelSearch.getNodesVisited();
+			backtracks += parallelSearch.getBacktracks();
+			stopped = parallelSearch.isStopped();
+		}
+		if(found) {
+			sudokuAttempt.loadValues(dlxSolvedValues);
+			messageCode = solvedMessage;
+		}else {
+			messageCode = unsolvableMessage;
+		}
+		if(stopped) {
+			//what stopped it is still there to be found, as cancellations and deadlines don't go back
+			isStopRequested();
+			stop();
+		}
+	}
+	
+	/**
+	 * @return True if searches are handed to the parallelSearch: there is one, and it's for the stored Sudoku's size.
+	 */
+	private boolean usesParallelSearch() {
+		return parallelSearch != null && parallelSearch.SUDOKU_SIDE_LENGTH == sudokuAttempt.SUDOKU_SIDE_LENGTH;
+	}
+	
+	/**
+	 * Counts the solutions of the stored Sudoku as it is now, using Dancing Links. The Sudoku isn't changed.
+	 * Stops as soon as the limit is reached, so a limit of 2 is a quick check for a unique solution.
+	 * Call it before solveFull() to count the solutions of the puzzle as it was entered.
+	 * @param limit The max number of solutions to count.
+	 * @return The number of solutions, up to the limit. 0 if the puzzle holds conflicting values.
+	 * @throws SudokuException If the Dancing Links solver can't be built for the size of the Sudoku.
+	 */
+	public long countSolutions(long limit) throws SudokuException{
+		if(usesParallelSearch()) {
+			return parallelSearch.countSolutions(sudokuAttempt.getValues(new int[sudokuAttempt.SUDOKU_NUMBER_OF_SQUARES]), limit, cancellation);
+		}
+		prepareDancingLinks();
+		return dlxSolver.countSolutions(dlxValues, limit);
+	}
+	
+	/**
+	 * @return True if the stored Sudoku has exactly one solution.
+	 */
+	public boolean hasUniqueSolution() throws SudokuException{
+		return countSolutions(2) == 1;
+	}
+	
+	/**
+	 * Takes over from the deductive state by guessing, then deducing from each guess.
+	 * Branches on the empty square with the fewest values it can hold, or on an unsatisfied XOR (it's already a choice
+	 * between two squares) when every square has more than two. A failed branch is undone by going back along the Sudoku's
+	 * undo trail to the mark taken before it, so the cost is in what the branch changed, not the size of the Sudoku.
+	 * If no solution is found, the Sudoku is returned to the state deduction left it in.
+	 * The search goes a guess at a time (See nextGuess()), so it can be spread over steps like the rest of the solve.
+	 */
+	private void startSearch(){
+		int numberOfSquares = sudokuAttempt.SUDOKU_NUMBER_OF_SQUARES;
+		
+		if(searchMarks == null || searchMarks.length != numberOfSquares + 1) {
+			searchMarks = new int[numberOfSquares + 1];
+			branchHalted = new boolean[numberOfSquares + 1];
+			branchPositions = new int[numberOfSquares + 1][];
+			branchValues = new int[numberOfSquares + 1][];
+			branchCount = new int[numberOfSquares + 1];
+			branchNext = new int[numberOfSquares + 1];
+		}
+		
+		searching = true;
+		searchDepth = 0;
+		phase = PHASE_SEARCH;
+		if(!prepareBranch(searchDepth)) {
+			searchDepth = -1;
+		}
+	}
+	
+	/**
+	 * Makes the next guess of the search, backing up past every depth whose branches all failed, then deduces from it.
+	 * Ends the search if there's nothing left to try.
+	 * @return True if a guess was made.
+	 * @throws SudokuException When the guess conflicts with the Sudoku.
+	 */
+	private boolean nextGuess() throws SudokuException{
+		int choice;
+		
+		while(searchDepth >= 0 && branchNext[searchDepth] >= branchCount[searchDepth]) {
+			//every branch at this depth failed
+			searchDepth--;
+		}
+		if(searchDepth < 0) {
+			endSearch(false);
+			return false;
+		}
+		choice = branchNext[searchDepth]++;
+		if(choice > 0) {
+			restoreBranch(searchDepth);
+		}
+		nodesVisited++;
+		if(metrics != null) {
+			metrics.recordPlaced(SudokuMetrics.PLACED_GUESS);
+		}
+		sudokuAttempt.setSquare(branchPositions[searchDepth][choice], branchValues[searchDepth][choice]);
+		startPass();
+		return true;
+	}
+	
+	/**
+	 * Once deduction from a guess is over, ends the search if the Sudoku is solved, or branches deeper if it can.
+	 */
+	private void checkGuess(){
+		int resultCode = sudokuAttempt.validate();
+		
+		phase = PHASE_SEARCH;
+		if(resultCode == 0) {
+			endSearch(true);
+		}else if(resultCode == 1 && prepareBranch(searchDepth + 1)) {
+			searchDepth++;
+		}else {
+			backtracks++;
+		}
+	}
+	
+	private void endSearch(boolean solved){
+		if(solved) {
+			messageCode = MESSAGE_SEARCH_SOLVED;
+		}else {
+			restoreBranch(0);
+			messageCode = MESSAGE_SEARCH_UNSOLVABLE;
+		}
+		searching = false;
+		phase = PHASE_FINISHED;
+	}
+	
 	/**
-	 * **unimplemented**
+	 * Puts the Sudoku and queue back as they were before branching at the given search depth.
 	 */
-	public void solveStep(){
-		return -1;
+	private void restoreBranch(int depth){
+		try {
+			sudokuAttempt.undoTo(searchMarks[depth]);
+		} catch (SudokuException e) {
+			//can't happen, nothing is loaded while searching
+			if(DEBUG) {
+				e.printStackTrace();
+			}
+		}
+		if(branchHalted[depth]) {
+			clearQueue();
+		}else {
+			//the max number of iterations cut deduction short, and what was left to check wasn't kept
+			queueAllPairs();
+		}
+	}
+	
+	/**
+	 * Marks the state of the Sudoku for the given search depth, then picks the squares and values to try from it.
+	 * @param depth The depth of the search the branch is for.
+	 * @return False if there is nothing to try, meaning the current state can't lead to a solution.
+	 */
+	private boolean prepareBranch(int depth){
+		int sideLength = sudokuAttempt.SUDOKU_SIDE_LENGTH;
+		int count = 0;
+		int bestPosition = -1;
+		int bestCount = sideLength + 1;
+		int candidates;
+		
+		if(branchPositions[depth] == null) {
+			branchPositions[depth] = new int[sideLength];
+			branchValues[depth] = new int[sideLength];
+		}
+		searchMarks[depth] = sudokuAttempt.mark();
+		branchHalted[depth] = progressHalted;
+		
+		//most constrained square
+		for(int position=0; position < sudokuAttempt.SUDOKU_NUMBER_OF_SQUARES && bestCount > 1; position++) {
+			if(sudokuAttempt.isSquareEmpty(position)) {
+				candidates = 0;
+				for(int value=1; value <= sideLength; value++) {
+					if(sudokuAttempt.squareAtPositionCanHold(position, value)) {
+						candidates++;
+					}
+				}
+				if(candidates < bestCount) {
+					bestCount = candidates;
+					bestPosition = position;
+				}
+			}
+		}
+		
+		//a square with one or two values is at least as good as an XOR, and deduction doesn't spot a square with one value
+		if(bestCount > 2 && sudokuAttempt.getOpenXOR(xorDetails)) {
+			for(int i=1; i<=2; i++) {
+				if(sudokuAttempt.squareAtPositionCanHold(xorDetails[i], xorDetails[0])) {
+					branchPositions[depth][count] = xorDetails[i];
+					branchValues[depth][count] = xorDetails[0];
+					count++;
+				}
+			}
+		}else if(bestPosition >= 0) {
+			for(int value=1; value <= sideLength; value++) {
+				if(sudokuAttempt.squareAtPositionCanHold(bestPosition, value)) {
+					branchPositions[depth][count] = bestPosition;
+					branchValues[depth][count] = value;
+					count++;
+				}
+			}
+		}
+		
+		branchCount[depth] = count;
+		branchNext[depth] = 0;
+		return count > 0;
 	}
 	
-	private boolean findValueInBlock(int value, int block) throws SudokuException{
+	/**
+	 * Looks for the squares of a row, column or block that can still hold the value. One square gets the value, and two
+	 * get an XOR condition.
+	 * @param unit The unit, numbered as in SudokuGeometry.
+	 * @return True if the value was found absolutely or conditionally.
+	 * @throws SudokuException If there's no place left for the value.
+	 */
+	private boolean findValueInUnit(int value, int unit) throws SudokuException{
 
-		ArrayList<Integer> possiblePositions = new ArrayList<Integer>();
+		SudokuGeometry geometry = sudokuAttempt.getGeometry();
+		boolean isBlock = unit >= geometry.blockUnit(0);
+		int square;
+		int possibleCount = 0;
+		
+		if(possiblePositions == null || possiblePositions.length != sudokuAttempt.SUDOKU_SIDE_LENGTH) {
+			possiblePositions = new int[sudokuAttempt.SUDOKU_SIDE_LENGTH];
+		}
 		
 		boolean found = false;
-		if(!(sudokuAttempt.blockContainsConditional(block, value))){
-	        //find squares in block that can contain Number (rows and columns internally track this)
+		if(!(sudokuAttempt.unitContainsConditional(unit, value))){
+	        //find squares in unit that can contain Number (rows, columns and blocks internally track this)
+			//(a block is known not to hold the value, so only the rows and columns of its squares are checked)
 			for(int i=0; i<sudokuAttempt.SUDOKU_SIDE_LENGTH; i++){
-				if(sudokuAttempt.squareAtPositionCanBe(sudokuAttempt.blockSquareIndex(block, i), value)){
-					possiblePositions.add(i);
+				square = geometry.unitSquare(unit, i);
+				if(isBlock ? sudokuAttempt.squareAtPositionCanBe(square, value) : sudokuAttempt.squareAtPositionCanHold(square, value)){
+					possiblePositions[possibleCount++] = i;
 				}
 			}
 	        //If only 1 position
-			if(possiblePositions.size() == 1){
+			if(possibleCount == 1){
 		        //    Assign Number to that square
 		        //    (XOR conditions automatically trigger on assignment, and so does completing a row/column/block)
+				if(metrics != null) {
+					metrics.recordPlaced(SudokuMetrics.PLACED_HIDDEN_SINGLE);
+				}
 				try{
-					sudokuAttempt.setSquare(sudokuAttempt.blockSquareIndex(block, possiblePositions.get(0)), value);
+					sudokuAttempt.setSquare(geometry.unitSquare(unit, possiblePositions[0]), value);
 				}catch(SudokuException e){
 					throw e;
 				}
-		        // *   Update mostRecentNumberFound 
-				//***  Update this in controller function
 				found = true;
 		    //else
 			}else{
 		        //    if 2 positions
-				if(possiblePositions.size() == 2){
+				if(possibleCount == 2 && xorsEnabled){
 					found = true;
-					// *       Create XOR condition for those squares, and block (This is effectively found)
-					sudokuAttempt.addXOR(block, value, possiblePositions.get(0), possiblePositions.get(1));
-					// *       Update mostRecentNumberFound
+					// *       Create XOR condition for those squares, and unit (This is effectively found)
+					sudokuAttempt.addUnitXOR(unit, value, possiblePositions[0], possiblePositions[1]);
 				//    else if 0 positions
-				}else if(possiblePositions.size() == 0){
+				}else if(possibleCount == 0){
 					//        Puzzle is invalid!
 					progressHalted = true;
-					throw new SudokuException("Puzzle Invalid. Value (" + value + ") is impossible to find in block #" + block + ".");
+					throw new SudokuException("Puzzle Invalid. Value (" + value + ") is impossible to find in " + describeUnit(geometry, unit) + ".");
 				}
 			}
 		}else{
@@ -350,16 +1491,16 @@ public class SudokuSolver {
 		}
 		
 		if(DEBUG) {
-			System.out.print("[" + getClass() + ".findValueInBlock(); ");
+			System.out.print("[" + getClass() + ".findValueInUnit(); ");
 			if(found) {
 				System.out.print("Value must be at: ");
 			}else {
 				System.out.print("Positions possible: ");
 				
 			}
-			if(possiblePositions.size() > 0) {
-				for(Integer number : possiblePositions) {
-					System.out.print(number + " ");
+			if(possibleCount > 0) {
+				for(int i=0; i<possibleCount; i++) {
+					System.out.print(possiblePositions[i] + " ");
 				}
 			}else {
 				System.out.print("none");
@@ -370,6 +1511,18 @@ public class SudokuSolver {
 		return found;
 	}
 	
+	/**
+	 * @return The unit as it's named in messages. (ie: "block #4", "row #0")
+	 */
+	private static String describeUnit(SudokuGeometry geometry, int unit) {
+		if(unit >= geometry.blockUnit(0)) {
+			return "block #" + (unit - geometry.blockUnit(0));
+		}else if(unit >= geometry.columnUnit(0)) {
+			return "column #" + (unit - geometry.columnUnit(0));
+		}
+		return "row #" + unit;
+	}
+	
 	/**
 	 * Checks each square of the puzzle.
 	 * 
@@ -379,12 +1532,16 @@ public class SudokuSolver {
 	 * 1: Puzzle is incomplete, but without any known error.
 	 * 2: Puzzle holds conflicting values.
 	 * 3: Puzzle holds values beyond the scope the of puzzle.
+	 * 4: Puzzle is incomplete, as the solver was stopped before it finished. (VALIDATE_STOPPED)
 	 * @return A code specifying describing the result, as specified in the description of this function.
 	 */
 	public int validate() {
 		int resultCode = -1;
 		if(sudokuAttempt != null) {
 			resultCode = sudokuAttempt.validate();
+			if(resultCode == 1 && stopReason != STOP_NONE) {
+				resultCode = VALIDATE_STOPPED;
+			}
 		}
 		
 		return resultCode;
@@ -412,6 +1569,10 @@ public class SudokuSolver {
 		return sudokuAttempt.compare(otherPuzzle);
 	}
 	
+	public int compare(SudokuSnapshot snapshot) {
+		return sudokuAttempt.compare(snapshot);
+	}
+	
 	public String getCompareMessage(int code) {
 		return Sudoku.getCompareMessage(code);
 	}
@@ -420,7 +1581,39 @@ public class SudokuSolver {
 		return sudokuAttempt.getPrintableXORConditions();
 	}
 	
+	/**
+	 * @return What the solver last did with the stored Sudoku, and why it stopped if it's done.
+	 */
 	public String getMessage() {
-		return message;
+		switch(messageCode) {
+			case MESSAGE_NOT_STARTED:
+				return "Progress hasn't even started!";
+			case MESSAGE_HALTED:
+				return "Progress was halted because progress appeared to have halted. "
+						+ "(nothing left to check since the last value was found)";
+			case MESSAGE_MAX_ITERATIONS:
+				return "Progress was halted because the max number of iterations was reached. "
+						+ "(actual iterations: " + iterations + ", max iterations: " + maxIterations + ")";
+			case MESSAGE_CANCELLED:
+				return "Progress was halted because solving was cancelled. "
+						+ "(iterations: " + iterations + ", nodes visited: " + nodesVisited + ")";
+			case MESSAGE_TIME_LIMIT:
+				return "Progress was halted because the time limit was reached. "
+						+ "(iterations: " + iterations + ", nodes visited: " + nodesVisited + ")";
+			case MESSAGE_DLX_SOLVED:
+				return "Puzzle was solved as an exact cover problem using Dancing Links. "
+						+ "(nodes visited: " + nodesVisited + ", backtracks: " + backtracks + ")";
+			case MESSAGE_DLX_UNSOLVABLE:
+				return "Dancing Links found no solution, so the puzzle is unsolvable or holds conflicting values. "
+						+ "(nodes visited: " + nodesVisited + ", backtracks: " + backtracks + ")";
+			case MESSAGE_SEARCH_SOLVED:
+				return "Puzzle was solved by searching once deduction halted. "
+						+ "(nodes visited: " + nodesVisited + ", backtracks: " + backtracks + ")";
+			case MESSAGE_SEARCH_UNSOLVABLE:
+				return "Search found no solution, so the puzzle is unsolvable. "
+						+ "(nodes visited: " + nodesVisited + ", backtracks: " + backtracks + ")";
+			default:
+				return "";
+		}
 	}
 }
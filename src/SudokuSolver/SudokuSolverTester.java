@@ -12,19 +12,56 @@
  * 								Example: 2 for a 4x4 sudoku, 4 for a 16x16 Sudoku, n for a (n^2)x(n^2)
  * 								Note: Larger Sudokus are supported, but may be quite difficult to solve. Their complexity scales up exponentially, and is currently untested above scale 4
  * --csv-test:				Attempts each puzzle in a csv and compares the result to the solutions provided. Statistics provided after completion. If a Number is provided, that many puzzles will be attempted.
+ * 								Lines that don't hold a puzzle (ie: a header) are counted as puzzles that couldn't be initialized.
+ * --threads:				With --csv-test, solves the puzzles on this many threads. Results and timings are merged once the file is done.
+ * --ordered:				With --threads, prints the output of each puzzle in the order of the file.
+ * --packed:				With --csv-test, reads every puzzle into one batch of bytes first, then solves the batch at once with SudokuPackedBatch
+ * 								(on --threads threads, if given). Only the results are printed.
+ * --cache:					With --packed, looks each puzzle up by its canonical form in a SudokuSolutionCache holding up to the Number of puzzles given
+ * 								(10000 if none is given) before solving it, so puzzles that are the same up to relabeling, swapping rows, columns, bands
+ * 								or stacks, or transposing are only solved once. Its hits, misses and evictions are printed with the results.
+ * --engine:				Picks the engine used to solve: "deductive" (default) or "dlx" (Dancing Links, an exact cover search that finishes any puzzle).
+ * --search:				Once the solver can't deduce anything more, it will guess and backtrack until the puzzle is solved or proven unsolvable.
+ * --parallel:				Searches each puzzle on the Number of threads given (every processor if none is given) with a SudokuParallelSearch:
+ * 								the whole puzzle with --engine dlx, or what deduction leaves with --search. Solutions are counted on them too.
+ * 								Meant for single hard puzzles, so it's not used with --threads or --packed, which spread the puzzles instead.
+ * --count-solutions:		Counts the solutions of the puzzle before solving it, up to the Number given (1000 if none is given). 
+ * 								With --threads, a single puzzle is counted on that many threads. With --csv-test, reports how many puzzles have no, one or several solutions.
+ * --unique:				Same as --count-solutions 2, which is all it takes to tell if the puzzle has exactly one solution.
+ * --generate:				Generates the Number of puzzles given, each with a unique solution, and writes them to the file given as the last argument,
+ * 								as "puzzle,solution" lines that --csv-test reads. With --threads, they're generated on that many threads.
+ * --seed:					With --generate, the seed the puzzles are worked out from. The same seed and options give the same puzzles. Random if not given.
+ * --symmetry:				With --generate, the pattern clues are removed in: "none" (default), "rotational" or "mirror".
+ * --difficulty:			With --generate, only keeps puzzles needing this much of the solver: "singles", "pairs" (XOR conditions, or techniques such as naked/hidden subsets) or "search".
+ * 								Any difficulty is kept if not given.
  * *todo*--brief: 			Reduces the output to only the puzzle solution.
  * *todo*--quiet,--silent: 	Makes the solver cease any output to console. Best used when specifying an output file.
  * *todo*--debug: 			Enables debug messages.
  * *todo*--help: 			Prints out possible arguments.
  * *todo*--verify: 			Checks the given puzzle for conflicts or formatting issues, then attempts to solve the puzzle if possible, then makes a final report.
- * *todo*--verbose: 		Prints out more stats than you might normally need.
+ * --verbose: 				Prints out more stats than you might normally need. (With --csv-test, prints each puzzle before and after its attempt)
+ * --compact:				With --csv-test, prints each puzzle and its result on one line, as "puzzle,result" in the input encoding (the form the csv is read in)
  * *todo*--input-encoding: 	Used to specify the character format for the input puzzle. When not specified, the solver will use the default for the size of sudoku. *todo*(specified below)
  * *todo*--print-encoding: 	Used when you want the puzzle printed in a format other than the input encoding.
- * *todo*--step: 			Runs the solver until one value is found and any that are found as an immediate consequence. 
- * *todo*--max-steps: 		Runs the solver for X steps.
- * *todo*--print-each-step: Prints the Sudoku after each step until it is finished.
+ * --step: 				Runs the solver in steps, each doing at most the Number of units of work given (1 if none is given), until it's finished.
+ * 								A unit is a block, row or column searched for a value, a technique tried, or a guess of the search.
+ * --max-steps: 			Runs the solver for at most X steps, leaving the puzzle as far as it got. Implies --step.
+ * --print-each-step: 		Prints the Sudoku after each step until it is finished. Implies --step.
+ * --resume-test:			With --csv-test, solves each puzzle again in steps of the --step budget (1 if none is given), saving the solver
+ * 								halfway through and finishing in a new solver restored from it. Counts the puzzles that end with other
+ * 								values, counters or message than solveFull() left them with. With --time-limit, a puzzle either one is
+ * 								stopped on is only checked for the restored solver keeping to the limit, counted from the restore.
+ * --resume-each-step:		As --resume-test, but saves and restores the solver between every step, apart from while it's searching.
  * 
- * *todo*--max-iterations, --iterations: *Advanced users only* Overrides the default max number of iterations the solver will run. (This would typically need to be specified if the solver terminates because of an iteration limit, or ) -1 for unlimited.
+ * --metrics:				Counts what the solver does (squares set by each rule, XOR conditions, time in each phase and technique, solve times by the path
+ * 								each puzzle took) and prints it once done, as "json" (default) or "prometheus" text. With --csv-test, the counts cover every puzzle.
+ * --metrics-file:			With --metrics, writes them to the file given instead of printing them.
+ * 
+ * --time-limit:			Stops the solver once it has spent the Number of milliseconds given on a puzzle, leaving it as far as deduction got.
+ * 								Such puzzles are reported as stopped, apart from the ones left incomplete.
+ * 
+ * --max-iterations, --iterations: *Advanced users only* Overrides the default max number of iterations (10000) of each pass the solver makes through its queue.
+ * 								(This would typically need to be specified if the solver terminates because of an iteration limit) -1 for unlimited.
  * 
  * *todo* [last argument] is the puzzle in numbers or the path to a file which contains the puzzle, with the same format.
  */
@@ -34,6 +71,7 @@ package SudokuSolver;
 import java.io.*;
 import java.util.concurrent.TimeUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Scanner;
 
 public class SudokuSolverTester {
@@ -56,15 +94,45 @@ public class SudokuSolverTester {
 	private static boolean printDetails = true;
 	private static boolean csvPuzzleSet = false;
 	private static boolean verbose = false;
+	private static boolean searchEnabled = false;
+	private static int engine = SudokuSolver.ENGINE_DEDUCTIVE;
+	private static int threads = 0;
+	private static boolean orderedOutput = false;
+	private static boolean packedBatch = false;
+	private static int parallelThreads = 0; //0 when puzzles are searched on one thread
+	private static SudokuParallelSearch parallelSearch = null;
+	private static final int DEFAULT_CACHE_CAPACITY = 10000;
+	private static int cacheCapacity = 0; //0 when there's no cache
+	private static SudokuSolutionCache solutionCache = null;
+	private static boolean compactOutput = false;
+	private static final long DEFAULT_SOLUTION_COUNT_LIMIT = 1000;
+	private static long solutionCountLimit = 0; //0 when solutions aren't counted
+	private static long generateCount = 0;
+	private static long generatorSeed = System.nanoTime();
+	private static int generatorSymmetry = SudokuGenerator.SYMMETRY_NONE;
+	private static int generatorDifficulty = SudokuGenerator.DIFFICULTY_ANY;
+	private static int stepBudget = 0; //0 when the solver isn't run in steps
+	private static int maxSteps = -1; //-1 for no max
+	private static boolean printEachStep = false;
+	private static boolean resumeTest = false;
+	private static boolean resumeEachStep = false;
+	private static SudokuSolver[] resumeSolvers = null; //restored into in turn, so each holds another puzzle's state when it is
+	private static int maxIterations = SudokuSolver.DEFAULT_MAX_ITERATIONS;
+	private static long timeLimit = 0; //milliseconds per puzzle, 0 for none
+	private static SudokuMetrics metrics = null; //null unless --metrics was given
+	private static boolean prometheusMetrics = false;
+	private static String metricsFile = null;
 	
 	private static SudokuSolver solver;
-	private static Sudoku copyOfOriginal;
+	private static SudokuSnapshot copyOfOriginal;
 	
 	
 	public static void main(String[] args){
 		readArgs(args);
 		if(!errorInProcess) {
-			if(csvPuzzleSet) {
+			if(generateCount > 0) {
+				generatePuzzles(args[args.length - 1]);
+			}else if(csvPuzzleSet) {
 				if(DEBUG) {
 					System.out.println("DEBUG: loading csv tester");
 				}
@@ -76,6 +144,9 @@ public class SudokuSolverTester {
 				singlePuzzle(args[args.length - 1]);
 			}
 		}
+		if(parallelSearch != null) {
+			parallelSearch.shutdown();
+		}
 	}
 	
 	private static void readArgs(String[] args) {
@@ -131,6 +202,234 @@ public class SudokuSolverTester {
 							csvSudokuLimit = 0;
 						}
 						break;
+					case "--engine":
+						try {
+							switch(args[i+1].toLowerCase()) {
+								case "deductive":
+									engine = SudokuSolver.ENGINE_DEDUCTIVE;
+									break;
+								case "dlx":
+								case "dancing-links":
+									engine = SudokuSolver.ENGINE_DANCING_LINKS;
+									break;
+								default:
+									invalidArguments += args[i] + " does not know the engine \"" + args[i+1] + "\".\n";
+									errorInProcess = true;
+							}
+							i++;
+						}catch(IndexOutOfBoundsException e) {
+							invalidArguments += args[i] + " expects an engine name afterwards.\n";
+							errorInProcess = true;
+						}
+						break;
+					case "--threads":
+						try {
+							threads = Integer.parseInt(args[i+1]);
+							i++;
+						}catch(IndexOutOfBoundsException e) {
+							invalidArguments += args[i] + " expects an int afterwards.\n";
+							errorInProcess = true;
+						}catch(NumberFormatException e) {
+							invalidArguments += args[i] + " could not parse \"" + args[i+1] + " as an integer.\n";
+							errorInProcess = true;
+						}
+						break;
+					case "--ordered":
+						orderedOutput = true;
+						break;
+					case "--packed":
+						packedBatch = true;
+						break;
+					case "--parallel":
+						parallelThreads = Runtime.getRuntime().availableProcessors();
+						if(i+1 < args.length - 1) {
+							try {
+								parallelThreads = Integer.parseInt(args[i+1]);
+								i++; //only incremented if parse works
+							}catch(NumberFormatException e) {
+								//keeps every processor
+							}
+						}
+						break;
+					case "--cache":
+						cacheCapacity = DEFAULT_CACHE_CAPACITY;
+						if(i+1 < args.length - 1) {
+							try {
+								cacheCapacity = Integer.parseInt(args[i+1]);
+								i++; //only incremented if parse works
+							}catch(NumberFormatException e) {
+								//keeps the default capacity
+							}
+						}
+						break;
+					case "--verbose":
+						verbose = true;
+						break;
+					case "--compact":
+						compactOutput = true;
+						break;
+					case "--search":
+						searchEnabled = true;
+						break;
+					case "--count-solutions":
+						solutionCountLimit = DEFAULT_SOLUTION_COUNT_LIMIT;
+						if(i+1 < args.length - 1) {
+							try {
+								solutionCountLimit = Long.parseLong(args[i+1]);
+								i++; //only incremented if parse works
+							}catch(NumberFormatException e) {
+								//keeps the default limit
+							}
+						}
+						break;
+					case "--unique":
+						solutionCountLimit = 2;
+						break;
+					case "--step":
+						stepBudget = Math.max(stepBudget, 1);
+						if(i+1 < args.length - 1) {
+							try {
+								stepBudget = Integer.parseInt(args[i+1]);
+								i++; //only incremented if parse works
+							}catch(NumberFormatException e) {
+								//keeps the default budget
+							}
+						}
+						if(stepBudget < 1) {
+							invalidArguments += args[i] + " expects a budget of at least 1.\n";
+							errorInProcess = true;
+						}
+						break;
+					case "--resume-test":
+						resumeTest = true;
+						break;
+					case "--resume-each-step":
+						resumeTest = true;
+						resumeEachStep = true;
+						break;
+					case "--print-each-step":
+						printEachStep = true;
+						stepBudget = Math.max(stepBudget, 1);
+						break;
+					case "--max-steps":
+					case "--max-iterations":
+					case "--iterations":
+						try {
+							if(arg.equals("--max-steps")) {
+								maxSteps = Integer.parseInt(args[i+1]);
+								stepBudget = Math.max(stepBudget, 1);
+							}else {
+								maxIterations = Integer.parseInt(args[i+1]);
+							}
+							i++;
+						}catch(IndexOutOfBoundsException e) {
+							invalidArguments += args[i] + " expects an int afterwards.\n";
+							errorInProcess = true;
+						}catch(NumberFormatException e) {
+							invalidArguments += args[i] + " could not parse \"" + args[i+1] + " as an integer.\n";
+							errorInProcess = true;
+						}
+						break;
+					case "--metrics":
+						metrics = new SudokuMetrics();
+						if(i+1 < args.length - 1) {
+							switch(args[i+1].toLowerCase()) {
+								case "json":
+									prometheusMetrics = false;
+									i++;
+									break;
+								case "prometheus":
+									prometheusMetrics = true;
+									i++;
+									break;
+							}
+						}
+						break;
+					case "--time-limit":
+						try {
+							timeLimit = Long.parseLong(args[i+1]);
+							i++;
+						}catch(IndexOutOfBoundsException e) {
+							invalidArguments += args[i] + " expects an int afterwards.\n";
+							errorInProcess = true;
+						}catch(NumberFormatException e) {
+							invalidArguments += args[i] + " could not parse \"" + args[i+1] + " as an integer.\n";
+							errorInProcess = true;
+						}
+						break;
+					case "--metrics-file":
+						try {
+							metricsFile = args[i+1];
+							i++;
+						}catch(IndexOutOfBoundsException e) {
+							invalidArguments += args[i] + " expects a file afterwards.\n";
+							errorInProcess = true;
+						}
+						break;
+					case "--generate":
+					case "--seed":
+						try {
+							if(arg.equals("--generate")) {
+								generateCount = Long.parseLong(args[i+1]);
+							}else {
+								generatorSeed = Long.parseLong(args[i+1]);
+							}
+							i++;
+						}catch(IndexOutOfBoundsException e) {
+							invalidArguments += args[i] + " expects an int afterwards.\n";
+							errorInProcess = true;
+						}catch(NumberFormatException e) {
+							invalidArguments += args[i] + " could not parse \"" + args[i+1] + " as an integer.\n";
+							errorInProcess = true;
+						}
+						break;
+					case "--symmetry":
+						try {
+							switch(args[i+1].toLowerCase()) {
+								case "none":
+									generatorSymmetry = SudokuGenerator.SYMMETRY_NONE;
+									break;
+								case "rotational":
+									generatorSymmetry = SudokuGenerator.SYMMETRY_ROTATIONAL;
+									break;
+								case "mirror":
+									generatorSymmetry = SudokuGenerator.SYMMETRY_MIRROR;
+									break;
+								default:
+									invalidArguments += args[i] + " does not know the symmetry \"" + args[i+1] + "\".\n";
+									errorInProcess = true;
+							}
+							i++;
+						}catch(IndexOutOfBoundsException e) {
+							invalidArguments += args[i] + " expects a symmetry afterwards.\n";
+							errorInProcess = true;
+						}
+						break;
+					case "--difficulty":
+						try {
+							switch(args[i+1].toLowerCase()) {
+								case "any":
+									generatorDifficulty = SudokuGenerator.DIFFICULTY_ANY;
+									break;
+								case "singles":
+									generatorDifficulty = SudokuGenerator.DIFFICULTY_SINGLES;
+									break;
+								case "pairs":
+									generatorDifficulty = SudokuGenerator.DIFFICULTY_PAIRS;
+									break;
+								case "search":
+									generatorDifficulty = SudokuGenerator.DIFFICULTY_SEARCH;
+									break;
+								default:
+									invalidArguments += args[i] + " does not know the difficulty \"" + args[i+1] + "\".\n";
+									errorInProcess = true;
+							}
+							i++;
+						}catch(IndexOutOfBoundsException e) {
+							invalidArguments += args[i] + " expects a difficulty afterwards.\n";
+							errorInProcess = true;
+						}
+						break;
 					default:
 						invalidArguments += args[i] + " is not a known argument.\n";
 						errorInProcess = true;
@@ -152,7 +451,12 @@ public class SudokuSolverTester {
 			initializeSolver();
 		}
 		if(!errorInProcess) {
-			copyOfOriginal = solver.getSudokuAttempt();
+			try {
+				copyOfOriginal = solver.saveState();
+			}catch(SudokuException e) {
+				//nothing has been solved yet, let alone searched
+				System.out.println(e.getMessage());
+			}
 			//print puzzle
 			System.out.println("Printing puzzle before attempt...");
 			System.out.print(solver.print());
@@ -160,21 +464,35 @@ public class SudokuSolverTester {
 			System.out.println("\nAttempting puzzle Validation...");
 			System.out.println("Validation result: " + solver.getValidateMessage(solver.validate()) + "\n");
 			
+			if(solutionCountLimit > 0) {
+				System.out.println("Counting solutions (up to " + solutionCountLimit + ")...");
+				System.out.println(describeSolutionCount(countSolutions()) + "\n");
+			}
+			
 			startPuzzleTime = System.nanoTime();
 			System.out.println("Attempting to solve puzzle...");
 			runSolver();
 			if(printDetails) {
 				printDetails();
 			}
+			printMetrics();
 		}
 	}
 	
 
 	private static void csvSolver(String puzzleCSV) {
 		File Puzzlefile = new File(puzzleCSV);
-		String[] puzzleAndSolution;
-		SudokuSolver dummyForComparison = new SudokuSolver();
-		int[] results = new int[5];
+		int numberOfSquares = sudokuSideLength*sudokuSideLength;
+		int[] puzzleValues = new int[numberOfSquares];
+		int[] solutionValues = new int[numberOfSquares];
+		int[] solvedValues = new int[numberOfSquares];
+		StringBuilder puzzleOutput = new StringBuilder();
+		int lineType;
+		int[] results = new int[6];
+		int[] solutionCounts = new int[3]; //puzzles with no, one, and several solutions
+		long[] techniquePuzzles = null; //puzzles each technique found something in
+		int solutionMismatches = 0;
+		int resumeMismatches = 0;
 		long startBatchTime = 0L;
 		long endBatchTime = 0L;
 		long latestUpdate = 0L;
@@ -182,22 +500,59 @@ public class SudokuSolverTester {
 		int verifyCode;
 		
 		if(inputDecoder == null) {
-			inputDecoder = new SudokuIODecoder(SudokuIODecoder.TYPICAL9X9_ZEROBLANKS);
+			inputDecoder = createCSVDecoder();
 		}
 		if(outputDecoder == null) {
 			outputDecoder = new SudokuIODecoder(SudokuIODecoder.TYPICAL9X9_SPACEBLANKS);
 		}
 		
+		if(Puzzlefile.exists() && packedBatch) {
+			csvSolverPacked(Puzzlefile);
+			return;
+		}
+		if(Puzzlefile.exists() && threads > 0) {
+			csvSolverThreaded(Puzzlefile);
+			return;
+		}
+		
 		//if it's a file, go get it and read puzzle
 		if(Puzzlefile.exists()){
 			startBatchTime = System.nanoTime();
+			createSolver();
+			techniquePuzzles = new long[solver.getTechniques().size()];
 			try{
-				Scanner s = new Scanner(Puzzlefile);
-				for(int i=0; (csvSudokuLimit==0 || i < csvSudokuLimit) && s.hasNextLine(); i++) {
-					puzzleAndSolution = s.nextLine().split(",");
-					puzzleContent = puzzleAndSolution[0];
-					initializeSolver();
-					copyOfOriginal = solver.getSudokuAttempt();
+				SudokuCSVReader reader = new SudokuCSVReader(Puzzlefile, sudokuSideLength, inputDecoder);
+				for(int i=0; (csvSudokuLimit==0 || i < csvSudokuLimit) && (lineType = reader.readLine(puzzleValues, solutionValues)) != SudokuCSVReader.END_OF_FILE; i++) {
+					if(lineType == SudokuCSVReader.LINE_INVALID) {
+						//ie: a header line
+						System.out.println("Line " + reader.getLineNumber() + " does not hold a puzzle.");
+						results[0]++;
+						continue;
+					}
+					try{
+						solver.enterSudoku(puzzleValues, sudokuSideLength, inputDecoder);
+					}catch(SudokuException e){
+						System.out.println(e.getMessage());
+						errorInProcess = true;
+						results[0]++;
+						continue;
+					}
+					if(solutionCountLimit > 0) {
+						try {
+							solutionCounts[(int)Math.min(solver.countSolutions(solutionCountLimit), 2)]++;
+						}catch(SudokuException e) {
+							System.out.println(e.getMessage());
+						}
+					}
+					puzzleOutput.setLength(0);
+					if(verbose) {
+						puzzleOutput.append("Before:\n");
+						solver.print(outputDecoder, puzzleOutput);
+					}
+					if(compactOutput) {
+						solver.printCompact(inputDecoder, puzzleOutput);
+						puzzleOutput.append(',');
+					}
 					
 					try{
 						//attempt puzzle
@@ -207,17 +562,31 @@ public class SudokuSolverTester {
 						errorInProcess = true;
 					}
 					
+					if(compactOutput) {
+						solver.printCompact(inputDecoder, puzzleOutput);
+						puzzleOutput.append('\n');
+					}
 					if(verbose) {
-						System.out.print("Before:\n" + copyOfOriginal.print(outputDecoder));
-						System.out.print("After:\n" + solver.print(outputDecoder));
+						puzzleOutput.append("After:\n");
+						solver.print(outputDecoder, puzzleOutput);
 					}
+					System.out.print(puzzleOutput);
 					if((System.nanoTime() - latestUpdate) >= updatePeriod) {
 						latestUpdate = System.nanoTime();
 						System.out.println("- - -");
 						System.out.println("Puzzles processed: " + i + " of " + csvSudokuLimit);
 					}
+					countTechniques(solver, techniquePuzzles);
+					if(resumeTest && !resumesTheSame(puzzleValues)) {
+						System.out.println("Line " + reader.getLineNumber() + " ends differently once saved and restored.");
+						resumeMismatches++;
+					}
 					verifyCode = solver.validate();
 					results[verifyCode + 1]++;
+					if(verifyCode == 0 && lineType == SudokuCSVReader.LINE_PUZZLE_AND_SOLUTION 
+							&& !Arrays.equals(solver.getValues(solvedValues), solutionValues)) {
+						solutionMismatches++;
+					}
 					if(DEBUG && verifyCode != 0) {
 						System.out.println(solver.print(outputDecoder));
 						ArrayList<String> xorConditions = solver.getPrintableXORConditions();
@@ -226,7 +595,7 @@ public class SudokuSolverTester {
 						}
 					}
 				}
-				s.close();
+				reader.close();
 			}catch(IOException e){
 				System.out.println(e.getMessage());
 				errorInProcess = true;
@@ -234,21 +603,317 @@ public class SudokuSolverTester {
 			endBatchTime = System.nanoTime();
 			
 			System.out.println("\n");
-			Long seconds = TimeUnit.NANOSECONDS.toSeconds(endBatchTime - startBatchTime);
 			Long milliseconds = TimeUnit.NANOSECONDS.toMillis(endBatchTime - startBatchTime);
-			System.out.println("(Time Elapsed: " + seconds.toString() + "." + milliseconds.toString() + " s)");
+			System.out.println("(Time Elapsed: " + String.format("%d.%03d", milliseconds / 1000, milliseconds % 1000) + " s)");
 			System.out.println("Puzzle results:");
 			for(int i=0; i<results.length;i++) {
-				System.out.println("\"" + solver.getValidateMessage(i - 1) + "\": " + results[i]);
+				System.out.println("\"" + Sudoku.getValidateMessage(i - 1) + "\": " + results[i]);
+			}
+			System.out.println("Completed puzzles that differ from the solution in the csv: " + solutionMismatches);
+			if(resumeTest) {
+				System.out.println("Puzzles that end differently once saved and restored: " + resumeMismatches);
+			}
+			if(solutionCountLimit > 0) {
+				printSolutionCounts(solutionCounts, System.out);
+			}
+			if(engine == SudokuSolver.ENGINE_DEDUCTIVE) {
+				printTechniqueCounts(solver.getTechniques(), techniquePuzzles, System.out);
+			}
+			printMetrics();
+		}
+		
+		
+	}
+	
+	private static void csvSolverThreaded(File puzzleFile) {
+		SudokuBatchRunner runner = new SudokuBatchRunner(threads, sudokuSideLength, inputDecoder, outputDecoder);
+		runner.setOrderedOutput(orderedOutput);
+		runner.setVerbose(verbose);
+		runner.setCompactOutput(compactOutput);
+		runner.setSolutionCountLimit(solutionCountLimit);
+		runner.setSearchEnabled(searchEnabled);
+		runner.setEngine(engine);
+		runner.setMaxIterations(maxIterations);
+		runner.setTimeLimit(TimeUnit.MILLISECONDS.toNanos(timeLimit));
+		runner.setMetrics(metrics);
+		try {
+			runner.run(puzzleFile, csvSudokuLimit, System.out);
+		}catch(IOException e) {
+			System.out.println(e.getMessage());
+			errorInProcess = true;
+		}
+		runner.printResults(System.out);
+		printMetrics();
+	}
+	
+	/**
+	 * Reads the puzzles of the csv into one packed batch, then solves them all with a single SudokuPackedBatch.solve().
+	 * Lines that don't hold a puzzle are counted as puzzles that couldn't be initialized, and left out of the batch.
+	 */
+	private static void csvSolverPacked(File puzzleFile) {
+		int numberOfSquares = sudokuSideLength*sudokuSideLength;
+		int[] puzzleValues = new int[numberOfSquares];
+		int[] solutionValues = new int[numberOfSquares];
+		byte[] puzzles = new byte[64 * numberOfSquares];
+		byte[] expected = new byte[64 * numberOfSquares];
+		boolean[] hasSolution = new boolean[64];
+		int count = 0;
+		int lineType;
+		int[] results = new int[6];
+		int solutionMismatches = 0;
+		long startBatchTime;
+		long endBatchTime;
+		
+		try {
+			SudokuCSVReader reader = new SudokuCSVReader(puzzleFile, sudokuSideLength, inputDecoder);
+			try {
+				for(int i=0; (csvSudokuLimit==0 || i < csvSudokuLimit) && (lineType = reader.readLine(puzzleValues, solutionValues)) != SudokuCSVReader.END_OF_FILE; i++) {
+					if(lineType == SudokuCSVReader.LINE_INVALID) {
+						results[0]++;
+						continue;
+					}
+					if((count + 1) * numberOfSquares > puzzles.length) {
+						puzzles = Arrays.copyOf(puzzles, puzzles.length * 2);
+						expected = Arrays.copyOf(expected, expected.length * 2);
+						hasSolution = Arrays.copyOf(hasSolution, hasSolution.length * 2);
+					}
+					for(int square=0; square<numberOfSquares; square++) {
+						puzzles[count * numberOfSquares + square] = (byte)puzzleValues[square];
+						expected[count * numberOfSquares + square] = (byte)solutionValues[square];
+					}
+					hasSolution[count] = lineType == SudokuCSVReader.LINE_PUZZLE_AND_SOLUTION;
+					count++;
+				}
+			}finally {
+				reader.close();
+			}
+		}catch(IOException e) {
+			System.out.println(e.getMessage());
+			errorInProcess = true;
+		}
+		
+		SudokuPackedBatch batch = new SudokuPackedBatch(sudokuSideLength, Math.max(1, threads));
+		if(cacheCapacity > 0) {
+			try {
+				solutionCache = new SudokuSolutionCache(sudokuSideLength, cacheCapacity);
+			}catch(SudokuException e) {
+				System.out.println(e.getMessage());
+				errorInProcess = true;
+			}
+		}
+		batch.setCache(solutionCache);
+		batch.setSearchEnabled(searchEnabled);
+		batch.setEngine(engine);
+		batch.setMaxIterations(maxIterations);
+		batch.setTimeLimit(TimeUnit.MILLISECONDS.toNanos(timeLimit));
+		batch.setMetrics(metrics);
+		byte[] solutions = new byte[count * numberOfSquares];
+		byte[] statuses = new byte[count];
+		startBatchTime = System.nanoTime();
+		batch.solve(puzzles, 0, solutions, 0, statuses, 0, count);
+		endBatchTime = System.nanoTime();
+		batch.shutdown();
+		
+		for(int i=0; i<count; i++) {
+			results[statuses[i] + 1]++;
+			if(statuses[i] == 0 && hasSolution[i]
+					&& !Arrays.equals(Arrays.copyOfRange(solutions, i * numberOfSquares, (i + 1) * numberOfSquares),
+							Arrays.copyOfRange(expected, i * numberOfSquares, (i + 1) * numberOfSquares))) {
+				solutionMismatches++;
+			}
+		}
+		System.out.println("\n");
+		Long milliseconds = TimeUnit.NANOSECONDS.toMillis(endBatchTime - startBatchTime);
+		System.out.println("(Time spent solving the batch of " + count + ": " + String.format("%d.%03d", milliseconds / 1000, milliseconds % 1000) 
+				+ " s, on " + Math.max(1, threads) + " threads)");
+		System.out.println("Puzzle results:");
+		for(int i=0; i<results.length;i++) {
+			System.out.println("\"" + Sudoku.getValidateMessage(i - 1) + "\": " + results[i]);
+		}
+		System.out.println("Completed puzzles that differ from the solution in the csv: " + solutionMismatches);
+		if(solutionCache != null) {
+			System.out.println("Solution cache: " + solutionCache.getHits() + " hits, " + solutionCache.getMisses() + " misses (hit rate: " 
+					+ String.format("%.1f", 100 * solutionCache.getHitRate()) + "%), " + solutionCache.getEvictions() + " evictions, " 
+					+ solutionCache.getSkipped() + " skipped, " + solutionCache.size() + " of " + solutionCache.getCapacity() + " held");
+		}
+		printMetrics();
+	}
+	
+	/**
+	 * Prints the metrics counted by the solvers, or writes them to the file given, if --metrics was given.
+	 */
+	private static void printMetrics() {
+		StringBuilder output;
+		if(metrics == null) {
+			return;
+		}
+		try {
+			if(metricsFile != null) {
+				Writer out = new BufferedWriter(new FileWriter(metricsFile));
+				try {
+					writeMetrics(out);
+				}finally {
+					out.close();
+				}
+				System.out.println("Metrics written to " + metricsFile);
+			}else {
+				output = new StringBuilder();
+				writeMetrics(output);
+				System.out.println("Metrics:");
+				System.out.print(output);
 			}
+		}catch(IOException e) {
+			System.out.println(e.getMessage());
+			errorInProcess = true;
+		}
+	}
+	
+	/**
+	 * Writes the metrics, and those of the solution cache if --cache was given. (as {"solver": ..., "cache": ...} in json)
+	 */
+	private static void writeMetrics(Appendable out) throws IOException{
+		if(prometheusMetrics) {
+			metrics.writePrometheus(out);
+			if(solutionCache != null) {
+				solutionCache.writePrometheus(out);
+			}
+		}else if(solutionCache != null) {
+			out.append("{\"solver\": ");
+			metrics.writeJSON(out);
+			out.append(", \"cache\": ");
+			solutionCache.writeJSON(out);
+			out.append("}\n");
+		}else {
+			metrics.writeJSON(out);
+		}
+	}
+	
+	/**
+	 * Generates puzzles into a csv file, with the options from the arguments.
+	 */
+	private static void generatePuzzles(String puzzleCSV) {
+		long startBatchTime = System.nanoTime();
+		SudokuGenerator generator;
+		try {
+			generator = new SudokuGenerator(sudokuSideLength, generatorSeed);
+		}catch(SudokuException e) {
+			System.out.println(e.getMessage());
+			errorInProcess = true;
+			return;
 		}
+		generator.setSymmetry(generatorSymmetry);
+		generator.setDifficulty(generatorDifficulty);
+		System.out.println("Generating " + generateCount + " puzzles with seed " + generatorSeed + "...");
 		
+		try {
+			Writer out = new BufferedWriter(new FileWriter(puzzleCSV));
+			try {
+				generator.generateBatch(generateCount, Math.max(1, threads), createCSVDecoder(), out);
+			}finally {
+				out.close();
+			}
+		}catch(IOException e) {
+			System.out.println(e.getMessage());
+			errorInProcess = true;
+			return;
+		}
 		
+		Long milliseconds = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startBatchTime);
+		System.out.println("(Time Elapsed: " + String.format("%d.%03d", milliseconds / 1000, milliseconds % 1000) + " s)");
+		System.out.println("Puzzles written to " + puzzleCSV + ": " + generator.getPuzzlesGenerated());
+		if(generator.getPuzzlesGenerated() > 0) {
+			System.out.println("Average clues per puzzle: " + String.format("%.2f", (double)generator.getCluesGenerated() / generator.getPuzzlesGenerated()));
+		}
+		if(generatorDifficulty != SudokuGenerator.DIFFICULTY_ANY) {
+			long[] difficultyCounts = generator.getDifficultyCounts();
+			for(int i=0; i<difficultyCounts.length; i++) {
+				System.out.println("Puzzles rated \"" + SudokuGenerator.getDifficultyName(i) + "\": " + difficultyCounts[i]);
+			}
+		}
+	}
+	
+	/**
+	 * @return The decoder csv files are read and written with by default, with '0' for blanks, for the size of the Sudoku.
+	 */
+	private static SudokuIODecoder createCSVDecoder() {
+		switch(sudokuSideLength) {
+			case 16:
+				return new SudokuIODecoder(SudokuIODecoder.TYPICAL16X16_ZEROBLANKS_STARTATONE);
+			case 25:
+				return new SudokuIODecoder(SudokuIODecoder.TYPICAL25X25_ZEROBLANKS_STARTATONE);
+			default:
+				return new SudokuIODecoder(SudokuIODecoder.TYPICAL9X9_ZEROBLANKS);
+		}
+	}
+	
+	/**
+	 * Counts the solutions of the puzzle entered in the solver, on several threads if --threads was given.
+	 * @return The number of solutions, up to the limit, or -1 if they couldn't be counted.
+	 */
+	private static long countSolutions() {
+		long count = -1;
+		try {
+			if(threads > 1) {
+				SudokuParallelSearch search = new SudokuParallelSearch(sudokuSideLength, threads);
+				count = search.countSolutions(solver.getValues(new int[sudokuSideLength*sudokuSideLength]), solutionCountLimit);
+				search.shutdown();
+			}else {
+				count = solver.countSolutions(solutionCountLimit);
+			}
+		}catch(SudokuException e) {
+			System.out.println(e.getMessage());
+			errorInProcess = true;
+		}
+		return count;
+	}
+	
+	private static String describeSolutionCount(long count) {
+		if(count < 0) {
+			return "Solutions could not be counted.";
+		}else if(count == 0) {
+			return "The puzzle has no solution.";
+		}else if(count == 1) {
+			return "The puzzle has a unique solution.";
+		}else if(count >= solutionCountLimit) {
+			return "The puzzle has at least " + count + " solutions. (the limit)";
+		}
+		return "The puzzle has " + count + " solutions.";
+	}
+	
+	/**
+	 * Prints the number of puzzles with no, one, and several solutions.
+	 */
+	static void printSolutionCounts(int[] solutionCounts, PrintStream out) {
+		out.println("Puzzles with no solution: " + solutionCounts[0]);
+		out.println("Puzzles with a unique solution: " + solutionCounts[1]);
+		out.println("Puzzles with more than one solution: " + solutionCounts[2]);
+	}
+	
+	/**
+	 * Counts the puzzle towards each technique that found something in it.
+	 */
+	static void countTechniques(SudokuSolver solver, long[] techniquePuzzles) {
+		ArrayList<SudokuTechnique> techniques = solver.getTechniques();
+		for(int i=0; i<techniques.size() && i<techniquePuzzles.length; i++) {
+			if(techniques.get(i).getUses() > 0) {
+				techniquePuzzles[i]++;
+			}
+		}
+	}
+	
+	/**
+	 * Prints the number of puzzles each technique found something in.
+	 */
+	static void printTechniqueCounts(ArrayList<SudokuTechnique> techniques, long[] techniquePuzzles, PrintStream out) {
+		out.println("Puzzles needing each technique:");
+		for(int i=0; i<techniques.size() && i<techniquePuzzles.length; i++) {
+			out.println("    " + techniques.get(i).getName() + ": " + techniquePuzzles[i]);
+		}
 	}
 	
 	private static String getPuzzleContent(String arg) {
 		File Puzzlefile = new File(arg);
-		String content = "";
+		StringBuilder content = new StringBuilder();
 		//if it's a file, go get it and read puzzle
 		if(Puzzlefile.exists()){
 			try{
@@ -257,7 +922,7 @@ public class SudokuSolverTester {
 				}
 				Scanner s = new Scanner(Puzzlefile);
 				while(s.hasNext()){
-					content += s.nextLine();
+					content.append(s.nextLine());
 				}
 				s.close();
 				
@@ -269,15 +934,35 @@ public class SudokuSolverTester {
 			if(DEBUG) {
 				System.out.println("Reading argument...");
 			}
-			content = arg;
+			content.append(arg);
 		}
-		return content;
+		return content.toString();
 	}
 	
 	private static void initializeSolver() {
+		createSolver();
+		
+		try{
+			//enter puzzle
+			solver.enterSudoku(puzzleContent, sudokuSideLength, inputDecoder);
+		}catch(SudokuException e){
+			System.out.println(e.getMessage());
+			errorInProcess = true;
+		}
+	}
+	
+	/**
+	 * Sets up a new solver with the options from the arguments, and defaults the input decoder for the size of the Sudoku.
+	 */
+	private static void createSolver() {
 		solver = new SudokuSolver();
+		configureSolver(solver);
+		solver.setMetrics(metrics);
 		
-		//defaulting decoder
+		//defaulting decoder, to the encoding that fits the puzzle if there is one, or the typical one for the size
+		if(inputDecoder == null && !csvPuzzleSet) {
+			inputDecoder = SudokuIODecoder.detect(puzzleContent, sudokuSideLength);
+		}
 		if(inputDecoder == null) {
 			switch(sudokuSideLength) {
 				case 9:
@@ -286,26 +971,126 @@ public class SudokuSolverTester {
 				case 16:
 					inputDecoder = new SudokuIODecoder(SudokuIODecoder.TYPICAL16X16_SPACEBLANKS_STARTATONE);
 					break;
+				case 25:
+					inputDecoder = new SudokuIODecoder(SudokuIODecoder.TYPICAL25X25_SPACEBLANKS_STARTATONE);
+					break;
 				default:
 					inputDecoder = new SudokuIODecoder(SudokuIODecoder.TYPICAL9X9_SPACEBLANKS);
 			}
 		}
+	}
+	
+	/**
+	 * Gives the solver the options from the arguments, apart from the metrics.
+	 */
+	private static void configureSolver(SudokuSolver newSolver) {
+		newSolver.setSearchEnabled(searchEnabled);
+		newSolver.setEngine(engine);
+		newSolver.setMaxIterations(maxIterations);
+		newSolver.setTimeLimit(timeLimit, TimeUnit.MILLISECONDS);
+		if(parallelThreads > 1) {
+			try {
+				if(parallelSearch == null) {
+					parallelSearch = new SudokuParallelSearch(sudokuSideLength, parallelThreads);
+				}
+				newSolver.setParallelSearch(parallelSearch);
+			}catch(SudokuException e) {
+				System.out.println(e.getMessage());
+				errorInProcess = true;
+			}
+		}
+	}
+	
+	/**
+	 * Solves the puzzle again in steps of the --step budget, saving the solver once it's half as many iterations in as the
+	 * solver took (or after every step, with --resume-each-step) and carrying on in another solver restored from the
+	 * snapshot, then compares where it ended with the solver, which solved it without stopping.
+	 * The solvers restored into are reused from puzzle to puzzle, so they hold another puzzle's state, deadline included.
+	 * @return True if both ended with the same values, counters and message. If either was stopped by the time limit,
+	 *  true if the restored solver kept to the limit, counted from the restore.
+	 */
+	private static boolean resumesTheSame(int[] puzzleValues) {
+		int numberOfSquares = sudokuSideLength*sudokuSideLength;
+		int budget = Math.max(stepBudget, 1);
+		int current = 0;
+		SudokuSolver stepped;
+		boolean finished = false;
+		boolean resumed = false;
+		SudokuSnapshot snapshot;
+		long restoreTime = 0L;
+		long sinceRestore;
+		long timeLimitNanos = TimeUnit.MILLISECONDS.toNanos(timeLimit);
 		
-		try{
-			//enter puzzle
-			solver.enterSudoku(puzzleContent, sudokuSideLength, inputDecoder);
-		}catch(SudokuException e){
-			System.out.println(e.getMessage());
-			errorInProcess = true;
+		if(resumeSolvers == null) {
+			resumeSolvers = new SudokuSolver[2];
+			for(int i=0; i < resumeSolvers.length; i++) {
+				resumeSolvers[i] = new SudokuSolver();
+				configureSolver(resumeSolvers[i]);
+			}
+		}
+		stepped = resumeSolvers[current];
+		try {
+			stepped.enterSudoku(puzzleValues, sudokuSideLength, inputDecoder);
+			while(!finished) {
+				finished = stepped.solveStep(budget);
+				if(!finished && (resumeEachStep || !resumed && stepped.getIterations()*2 >= solver.getIterations())) {
+					try {
+						snapshot = stepped.saveState();
+						//taken before, as the restore starts the clock
+						restoreTime = System.nanoTime();
+						resumeSolvers[1 - current].restoreState(snapshot);
+						current = 1 - current;
+						stepped = resumeSolvers[current];
+						resumed = true;
+					}catch(SudokuException e) {
+						//it's in the middle of a search, which can't be saved, so it's tried again after the next step
+					}
+				}
+			}
+		}catch(SudokuException e) {
+			//the puzzle was found invalid, as solveFull() would have found it
 		}
+		if(solver.isStopped() || stepped.isStopped()) {
+			//where a stopped solve ends depends on the clock, so it's only checked that the restore started the clock over:
+			//stopping before the limit is up means an old deadline was kept, and running well past it means none was set
+			sinceRestore = System.nanoTime() - restoreTime;
+			if(!resumed) {
+				return true;
+			}else if(stepped.isStopped()) {
+				return sinceRestore >= timeLimitNanos;
+			}
+			return sinceRestore <= 2*timeLimitNanos + 20*nanoToMili;
+		}
+		return Arrays.equals(stepped.getValues(new int[numberOfSquares]), solver.getValues(new int[numberOfSquares]))
+				&& stepped.getIterations() == solver.getIterations()
+				&& stepped.getBlockSearchCount() == solver.getBlockSearchCount()
+				&& stepped.getLineSearchCount() == solver.getLineSearchCount()
+				&& stepped.getNodesVisited() == solver.getNodesVisited()
+				&& stepped.getBacktracks() == solver.getBacktracks()
+				&& stepped.getMessage().equals(solver.getMessage());
 	}
 	
 	private static void runSolver() {
+		int steps = 0;
+		boolean finished = false;
 		
 		startPuzzleTime = System.nanoTime();
 		try{
 			//attempt puzzle
-			solver.solveFull();
+			if(stepBudget > 0) {
+				while(!finished && (maxSteps < 0 || steps < maxSteps)) {
+					finished = solver.solveStep(stepBudget);
+					steps++;
+					if(printEachStep) {
+						System.out.println("After step " + steps + ":");
+						System.out.print(solver.print());
+					}
+				}
+				System.out.println(finished ? "Solver finished after " + steps + " steps."
+						: "Solver stopped after " + steps + " steps, before it finished.");
+			}else {
+				solver.solveFull();
+			}
 		}catch(SudokuException e){
 			System.out.println(e.getMessage());
 			errorInProcess = true;
@@ -318,8 +1103,25 @@ public class SudokuSolverTester {
 		System.out.println("Printing puzzle after attempt...");
 		System.out.print(solver.print());
 		System.out.println("Number of times blocks were searched: " + solver.getBlockSearchCount());
+		System.out.println("Number of times rows/columns were searched: " + solver.getLineSearchCount());
 		System.out.println("Number of iterations: " + solver.getIterations());
+		if(searchEnabled || engine != SudokuSolver.ENGINE_DEDUCTIVE) {
+			System.out.println("Number of search nodes visited: " + solver.getNodesVisited());
+			System.out.println("Number of backtracks: " + solver.getBacktracks());
+			if(parallelSearch != null) {
+				System.out.println("Search threads: " + parallelSearch.getThreads());
+			}
+		}
 		System.out.println("Number of XOR conditions remaining: " + solver.getXORConditionCount());
+		if(engine == SudokuSolver.ENGINE_DEDUCTIVE) {
+			StringBuilder techniquesUsed = new StringBuilder();
+			for(SudokuTechnique technique : solver.getTechniques()) {
+				if(technique.getUses() > 0) {
+					techniquesUsed.append(techniquesUsed.length() > 0 ? ", " : "").append(technique.getName()).append(" (x").append(technique.getUses()).append(')');
+				}
+			}
+			System.out.println("Techniques used: " + (techniquesUsed.length() > 0 ? techniquesUsed : "none"));
+		}
 		System.out.println("Compared to original: " + solver.getCompareMessage(solver.compare(copyOfOriginal)));
 		System.out.println("Validation after attempt: " + solver.getValidateMessage(solver.validate()));
 	
@@ -330,7 +1132,7 @@ public class SudokuSolverTester {
 
 		miliseconds = (endPuzzleTime - startPuzzleTime)/nanoToMili;
 		decimalPlace = (endPuzzleTime - startPuzzleTime)%nanoToMili;
-		System.out.println("(Time Elapsed: " + miliseconds + "." + decimalPlace + " ms)");
+		System.out.println("(Time Elapsed: " + miliseconds + "." + String.format("%06d", decimalPlace) + " ms)");
 		System.out.println(invalidArguments);
 	}
 }
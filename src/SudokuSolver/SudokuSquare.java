@@ -10,14 +10,21 @@
 package SudokuSolver;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class SudokuSquare {
 	
 	private int value;
+	private int position = -1; //position in the Sudoku that holds this square
+	private Sudoku sudoku; //Sudoku that holds this square, told whenever the square is set
 	private SudokuRow row;
 	private SudokuColumn column;
 	private SudokuBlock block;
-	private ArrayList<SudokuSquareXOR> conditions = new ArrayList<SudokuSquareXOR>(); //Could technically contain up to one of each number
+	//Could technically contain up to one of each number for each of the row, column and block.
+	//Each condition knows its index here (See SudokuSquareXOR.getSlot()), so removing one is a swap with the last.
+	//A removed condition keeps the index it had, so the swap can be undone. (See restoreCondition())
+	private SudokuSquareXOR[] conditions = new SudokuSquareXOR[4];
+	private int conditionCount;
 
 	/**
 	 * Initializes a square as empty
@@ -34,6 +41,30 @@ public class SudokuSquare {
 		this.value = value;
 	}
 
+	/**
+	 * Records where this square is in its Sudoku.
+	 * @param sudoku The Sudoku holding this square, whose change log records each value set.
+	 * @param position The position as defined by Sudoku.blockSquareIndex
+	 */
+	void setPosition(Sudoku sudoku, int position){
+		this.sudoku = sudoku;
+		this.position = position;
+	}
+	
+	/**
+	 * @return Where the Sudoku holding this square counts what happens to it, or null. (See SudokuMetrics)
+	 */
+	SudokuMetrics getMetrics(){
+		return sudoku == null ? null : sudoku.metrics;
+	}
+	
+	/**
+	 * @return The position of this square in its Sudoku, or -1 if it hasn't been placed in one.
+	 */
+	public int getPosition(){
+		return position;
+	}
+
 	/**
 	 * @param row
 	 */
@@ -70,18 +101,24 @@ public class SudokuSquare {
 	}
 	
 	/**
-	 * Checks to see if the Square can contain the value, according to the rules of sudoku.
+	 * Checks to see if the Square can contain the value, according to the rules of sudoku, and any value excluded from it.
 	 * @param value Value to check
 	 * @return If the Square can contain the value, according to the rules of sudoku.
 	 * @predcondition Row, Block & Column must be set
 	 */
 	public Boolean canBe(int value){
+		if(sudoku != null && sudoku.metrics != null){
+			sudoku.metrics.candidateChecks++;
+		}
 		if(!this.isEmpty()){
 			return false;
 		}
 		if(row.contains(value) || column.contains(value) || block.contains(value)){
 			return false;
 		}
+		if(sudoku != null && sudoku.isExcluded(position, value)){
+			return false;
+		}
 		return true;
 	}
 	
@@ -103,16 +140,23 @@ public class SudokuSquare {
 			throw new SudokuException("Tried to set square " + /*square.getx() + ", " + square.gety() +*/ "with " + value + ", but already contains " + getValue());
 		}
 		
-		//set value
+		//set value, noting which of the row (1), column (2) and block (4) didn't hold it yet, so it can be undone
+		int newUnits = (row.contains(value) ? 0 : 1) | (column.contains(value) ? 0 : 2) | (block.contains(value) ? 0 : 4);
 		this.value = value;
+		row.markUsed(value);
+		column.markUsed(value);
+		block.markUsed(value);
+		if(sudoku != null) {
+			sudoku.logChange(position, newUnits);
+		}
 		
-		//then check conditions, and kill them
-		while(!conditions.isEmpty()){
-			SudokuSquareXOR condition = conditions.get(0);
+		//then check conditions, and kill them (from the back, so removing doesn't move the others)
+		SudokuSquareXOR condition;
+		while(conditionCount > 0){
+			condition = conditions[conditionCount - 1];
 			condition.checkCondition();
-			if(!conditions.isEmpty()){
-				conditions.remove(condition);
-			}
+			//checking may have already removed it, along with others
+			removeCondition(condition);
 		}
 		
 		row.checkCompletion();
@@ -120,19 +164,95 @@ public class SudokuSquare {
 		block.checkCompletion();
 	}
 
+	/**
+	 * Empties the square again, taking its value back out of the row, column and block that didn't hold it before it was set.
+	 * Only for Sudoku.undoTo(), which puts back the conditions separately.
+	 * @param newUnits The units the value was new to, as worked out by set(): row (1), column (2) and block (4).
+	 */
+	void unset(int newUnits){
+		if((newUnits & 1) != 0){
+			row.unmarkUsed(value);
+		}
+		if((newUnits & 2) != 0){
+			column.unmarkUsed(value);
+		}
+		if((newUnits & 4) != 0){
+			block.unmarkUsed(value);
+		}
+		value = 0;
+	}
+
+	/**
+	 * Replaces the value of this square without checking any rules, and drops any conditions.
+	 * The row, column and block must be reset afterwards.
+	 * @param value value to load into the square (0 for empty)
+	 */
+	void reset(int value){
+		this.value = value;
+		Arrays.fill(conditions, 0, conditionCount, null);
+		conditionCount = 0;
+	}
+
 	/**
 	 * Gets an uncontrolled Arraylist of XOR conditions from this square.
 	 * @return
 	 */
 	public ArrayList<SudokuSquareXOR> getXOR(){
-		return new ArrayList<SudokuSquareXOR>(conditions);
+		return new ArrayList<SudokuSquareXOR>(Arrays.asList(conditions).subList(0, conditionCount));
 	}
 	
 	public void addCondition(SudokuSquareXOR condition){
-		conditions.add(condition);
+		if(conditionCount == conditions.length){
+			conditions = Arrays.copyOf(conditions, conditions.length * 2);
+		}
+		condition.setSlot(this, conditionCount);
+		conditions[conditionCount++] = condition;
 	}
 	
+	/**
+	 * Puts the condition at the given index of the list, where it was when a snapshot was saved. Only for
+	 * SudokuRow.restore(): the list has gaps until every condition the square held is put back.
+	 */
+	void putCondition(SudokuSquareXOR condition, int slot){
+		if(slot >= conditions.length){
+			conditions = Arrays.copyOf(conditions, Math.max(slot + 1, conditions.length * 2));
+		}
+		condition.setSlot(this, slot);
+		conditions[slot] = condition;
+		conditionCount = Math.max(conditionCount, slot + 1);
+	}
+	
+	/**
+	 * Removes the condition, if this square holds it.
+	 */
 	public void removeCondition(SudokuSquareXOR condition){
-		conditions.remove(condition);
+		int slot = condition.getSlot(this);
+		SudokuSquareXOR last;
+		if(slot < 0 || slot >= conditionCount || conditions[slot] != condition){
+			return;
+		}
+		last = conditions[--conditionCount];
+		conditions[slot] = last;
+		last.setSlot(this, slot);
+		conditions[conditionCount] = null;
+	}
+	
+	/**
+	 * Puts back the condition removed last, at the index it was removed from, so the conditions are in the same order as
+	 * before. Only for Sudoku.undoTo(), which undoes every later change to this square first.
+	 */
+	void restoreCondition(SudokuSquareXOR condition){
+		int slot = condition.getSlot(this);
+		SudokuSquareXOR moved;
+		if(conditionCount == conditions.length){
+			conditions = Arrays.copyOf(conditions, conditions.length * 2);
+		}
+		if(slot < conditionCount){
+			moved = conditions[slot];
+			conditions[conditionCount] = moved;
+			moved.setSlot(this, conditionCount);
+		}
+		conditions[slot] = condition;
+		conditionCount++;
 	}
 }
@@ -1,10 +1,11 @@
 /**
  * Identifies two SudokuSquares.
- * One of the two must contain the number stored.
+ * One of the two must contain the number stored. (A "strong link")
+ * Held by the row, column or block the two squares share. (See SudokuRow)
  * 
  * @author drbob132
- * @version 1.1
- * @date 4/18/2018
+ * @version 1.2
+ * @date 10/18/2026
  */
 
 package SudokuSolver;
@@ -16,6 +17,9 @@ public class SudokuSquareXOR {
 	private SudokuSquare square1;
 	private SudokuSquare square2;
 	private boolean satisfied;
+	//where this condition sits in the condition list of each square, so it can be taken out without a search
+	private int slot1 = -1;
+	private int slot2 = -1;
 	
 	/**
 	 * Creates a condition that requires one of the two SudokuSquares to be the given value.
@@ -30,6 +34,57 @@ public class SudokuSquareXOR {
 		this.satisfied = false;
 	}
 	
+	/**
+	 * Points this condition at two other squares, keeping its value.
+	 * Only for blocks reusing a condition that is no longer held by any square.
+	 */
+	void reuse(SudokuSquare square1, SudokuSquare square2){
+		this.square1 = square1;
+		this.square2 = square2;
+		this.satisfied = false;
+		this.slot1 = -1;
+		this.slot2 = -1;
+	}
+	
+	/**
+	 * @return The index of this condition in the square's list, or where it was last if the square doesn't hold it anymore.
+	 *  -1 if the square never held it, or isn't one of its two.
+	 */
+	int getSlot(SudokuSquare square){
+		if(square == square1){
+			return slot1;
+		}else if(square == square2){
+			return slot2;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Called by the square whenever this condition moves in its list.
+	 */
+	void setSlot(SudokuSquare square, int slot){
+		if(square == square1){
+			slot1 = slot;
+		}else if(square == square2){
+			slot2 = slot;
+		}
+	}
+	
+	/**
+	 * Takes this condition out of both squares. Used by the row/column/block holding it once it's dropped.
+	 */
+	void detach(){
+		removeSelf();
+	}
+	
+	/**
+	 * Puts this condition back in both squares, where it was. Used by the row/column/block holding it when the drop is undone.
+	 */
+	void reattach(){
+		square1.restoreCondition(this);
+		square2.restoreCondition(this);
+	}
+	
 	/**
 	 * checks to see if any of the blocks can not be the value, then the other must be. 
 	 * @throws SudokuException
@@ -54,11 +109,9 @@ public class SudokuSquareXOR {
 
 		try{
 			if(target != null){
-				removeSelf();
-				if(target != null){
-					setSquare(target);
-					satisfied = true;
-				}
+				//finding the value in the row/column/block holding this condition drops it, taking it out of both squares
+				setSquare(target);
+				satisfied = true;
 			}
 		}catch(SudokuException problem){
 			throw problem;
@@ -72,6 +125,11 @@ public class SudokuSquareXOR {
 	 */
 	private void setSquare(SudokuSquare square) throws SudokuException{
 		if(square.isEmpty()){
+			//counted first, as setting it can throw once it's logged, from the conditions it sets off
+			SudokuMetrics metrics = square.getMetrics();
+			if(metrics != null){
+				metrics.recordPlaced(SudokuMetrics.PLACED_XOR);
+			}
 			square.set(value);
 		}else{
 			throw new SudokuException("XOR tried to set square (" + /*square.getx() + ", " + square.gety() +*/ ") with " + value);
@@ -109,6 +167,20 @@ public class SudokuSquareXOR {
 		return value;
 	}
 	
+	/**
+	 * Follows the link from one of its squares: if that square doesn't hold the value, the other must.
+	 * @param square One of the two squares.
+	 * @return The other square, or null if the given one isn't part of this condition.
+	 */
+	public SudokuSquare getOtherSquare(SudokuSquare square){
+		if(square == square1){
+			return square2;
+		}else if(square == square2){
+			return square1;
+		}
+		return null;
+	}
+	
 	public ArrayList<SudokuSquare> getSquares(){
 		ArrayList<SudokuSquare> tempArray = new ArrayList<SudokuSquare>();
 		
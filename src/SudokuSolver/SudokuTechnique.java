@@ -0,0 +1,80 @@
+/**
+ * A deduction SudokuSolver falls back on once its block by block search halts. The solver keeps a list of them,
+ * ordered from cheapest to most expensive, and runs the first one that finds anything before going back to the blocks.
+ *
+ * A technique either sets squares, or rules values out of squares with Sudoku.exclude(). Both are logged by the Sudoku,
+ * so the solver knows which blocks are worth checking again. Each technique counts the times it found something, so the
+ * solver can report which ones a puzzle needed.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+public abstract class SudokuTechnique {
+
+	private final String name;
+	private long uses;
+	private long[][] candidateTable; //scratch for candidateTable()
+
+	protected SudokuTechnique(String name){
+		this.name = name;
+	}
+
+	/**
+	 * Looks for the deductions of this technique across the whole Sudoku, and applies every one found.
+	 * @param sudoku The Sudoku to work on.
+	 * @return True if a square was set or a value was excluded.
+	 * @throws SudokuException If the Sudoku is found to be invalid.
+	 */
+	public abstract boolean apply(Sudoku sudoku) throws SudokuException;
+
+	/**
+	 * Works out the values every square can still hold, so a technique can test them a bit at a time instead of asking
+	 * the Sudoku for each square and value. The table isn't updated by the exclusions made afterwards. It only holds
+	 * more values than the squares can take, so it's safe for a technique that only excludes values when the places
+	 * left for them line up.
+	 * @return The values of each square, by position. (See SudokuBits) Reused by the next call.
+	 */
+	protected long[][] candidateTable(Sudoku sudoku) {
+		if(candidateTable == null || candidateTable.length != sudoku.SUDOKU_NUMBER_OF_SQUARES) {
+			candidateTable = new long[sudoku.SUDOKU_NUMBER_OF_SQUARES][];
+			for(int i=0; i < candidateTable.length; i++) {
+				candidateTable[i] = SudokuBits.newMask(sudoku.SUDOKU_SIDE_LENGTH);
+			}
+		}
+		for(int position=0; position < candidateTable.length; position++) {
+			sudoku.candidates(position, candidateTable[position]);
+		}
+		return candidateTable;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * A cheap technique is still run at every node of a search, where the others are only run before it starts, unless
+	 * the solver is asked to run them all. (See SudokuSolver.setTechniquesWhileSearching())
+	 * @return True if the technique costs about as much as a pass through the queue. False by default.
+	 */
+	public boolean isCheap() {
+		return false;
+	}
+
+	/**
+	 * @return The number of times apply() found something since the uses were last reset.
+	 */
+	public long getUses() {
+		return uses;
+	}
+
+	void recordUse() {
+		uses++;
+	}
+
+	public void resetUses() {
+		uses = 0;
+	}
+}
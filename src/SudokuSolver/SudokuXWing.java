@@ -0,0 +1,99 @@
+/**
+ * If a value has exactly two places left in each of two rows, and they are in the same two columns, the value must take
+ * one of those columns in each row. So it can't be anywhere else in those two columns. (An "X-wing")
+ * The same goes with the rows and columns swapped.
+ * @author drbob132
+ * @version 1.0
+ * @date 10/18/2026
+ */
+
+package SudokuSolver;
+
+import java.util.Arrays;
+
+public class SudokuXWing extends SudokuTechnique {
+
+	private static final boolean DEBUG = false;
+
+	//scratch, sized for the Sudoku last worked on
+	private int sideLength;
+	private long[][] places; //positions in each line (as values, from 1) the value can still go in, by line
+	private int[] counts;
+
+	public SudokuXWing(){
+		super("X-wing");
+	}
+
+	@Override
+	public boolean apply(Sudoku sudoku) throws SudokuException{
+		SudokuGeometry geometry = sudoku.getGeometry();
+		long[][] candidates = candidateTable(sudoku);
+		boolean changed = false;
+
+		prepare(sudoku.SUDOKU_SIDE_LENGTH);
+		for(int value=1; value <= sideLength; value++) {
+			//rows as the base lines, then columns
+			changed |= findWings(sudoku, geometry, candidates, value, 0, sideLength);
+			changed |= findWings(sudoku, geometry, candidates, value, sideLength, 0);
+		}
+		return changed;
+	}
+
+	/**
+	 * @param baseUnits The unit of the first base line. (0 for rows, sideLength for columns)
+	 * @param coverUnits The unit of the first line crossing them.
+	 * @return True if a value was excluded.
+	 */
+	private boolean findWings(Sudoku sudoku, SudokuGeometry geometry, long[][] candidates, int value, int baseUnits, int coverUnits) {
+		boolean changed = false;
+		int square;
+
+		for(int line=0; line < sideLength; line++) {
+			SudokuBits.clear(places[line]);
+			for(int i=0; i < sideLength; i++) {
+				if(SudokuBits.contains(candidates[geometry.unitSquare(baseUnits + line, i)], value)) {
+					SudokuBits.add(places[line], i + 1);
+				}
+			}
+			counts[line] = SudokuBits.count(places[line]);
+		}
+		for(int line1=0; line1 < sideLength; line1++) {
+			if(counts[line1] != 2) {
+				continue;
+			}
+			for(int line2=line1 + 1; line2 < sideLength; line2++) {
+				if(counts[line2] != 2 || !Arrays.equals(places[line1], places[line2])) {
+					continue;
+				}
+				for(int cover=SudokuBits.first(places[line1]); cover > 0; cover=SudokuBits.next(places[line1], cover)) {
+					for(int i=0; i < sideLength; i++) {
+						if(i == line1 || i == line2) {
+							continue;
+						}
+						//position i of a crossing line is on base line i
+						square = geometry.unitSquare(coverUnits + cover - 1, i);
+						if(SudokuBits.contains(candidates[square], value) && sudoku.exclude(square, value)) {
+							if(DEBUG) {
+								System.out.println("[" + getClass() + ".findWings(); " + value + " excluded from square #" + square + "]");
+							}
+							changed = true;
+						}
+					}
+				}
+			}
+		}
+		return changed;
+	}
+
+	private void prepare(int sideLength) {
+		if(places != null && this.sideLength == sideLength) {
+			return;
+		}
+		this.sideLength = sideLength;
+		places = new long[sideLength][];
+		for(int i=0; i < sideLength; i++) {
+			places[i] = SudokuBits.newMask(sideLength);
+		}
+		counts = new int[sideLength];
+	}
+}